@@ -14,11 +14,13 @@ package org.openhab.binding.modbus.sunspec.internal.discovery;
 
 import static org.openhab.binding.modbus.sunspec.internal.SunSpecConstants.*;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -33,6 +35,7 @@ import org.openhab.core.config.discovery.DiscoveryResultBuilder;
 import org.openhab.core.io.transport.modbus.AsyncModbusFailure;
 import org.openhab.core.io.transport.modbus.ModbusBitUtilities;
 import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
+import org.openhab.core.io.transport.modbus.ModbusConstants;
 import org.openhab.core.io.transport.modbus.ModbusConstants.ValueType;
 import org.openhab.core.io.transport.modbus.ModbusReadFunctionCode;
 import org.openhab.core.io.transport.modbus.ModbusReadRequestBlueprint;
@@ -50,6 +53,11 @@ import org.slf4j.LoggerFactory;
  * It scans trough the defined model items and notifies the
  * discovery service about the discovered devices
  *
+ * Registers are read in windows of the maximum request size, so that
+ * consecutive headers and the common block are mostly served without
+ * additional requests. If the device rejects such a read, only the
+ * requested registers are read from then on.
+ *
  * @author Nagy Attila Gabor - Initial contribution
  */
 @NonNullByDefault
@@ -113,6 +121,17 @@ public class SunspecDiscoveryProcess {
      */
     private ModbusCommunicationInterface comms;
 
+    /**
+     * Whether the device accepts reads larger than the requested registers
+     */
+    private boolean windowReads = true;
+
+    /**
+     * Registers of the last window read, and its start address
+     */
+    private @Nullable ModbusRegisterArray window = null;
+    private int windowAddress;
+
     /**
      * New instances of this class should get a reference to the handler
      *
@@ -155,13 +174,58 @@ public class SunspecDiscoveryProcess {
         baseAddress = possibleAddresses.poll();
         logger.trace("Beginning scan for SunSpec device at address {}", baseAddress);
 
+        readRegisters(baseAddress, SUNSPEC_ID_SIZE, this::headerReceived);
+    }
+
+    /**
+     * Read registers from the device, or take them from the last window read if it contains them
+     *
+     * @param address start address
+     * @param length number of registers
+     * @param callback receives exactly the requested registers
+     */
+    private void readRegisters(int address, int length, Consumer<ModbusRegisterArray> callback) {
+        ModbusRegisterArray localWindow = window;
+        if (localWindow != null && address >= windowAddress
+                && address + length <= windowAddress + localWindow.size()) {
+            callback.accept(slice(localWindow, address - windowAddress, length));
+            return;
+        }
+
+        // Never read beyond the end of the address space
+        int readLength = windowReads ? Math.max(length, Math.min(ModbusConstants.MAX_REGISTERS_READ_COUNT,
+                0x10000 - address)) : length;
         ModbusReadRequestBlueprint request = new ModbusReadRequestBlueprint(slaveId,
-                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, baseAddress, // Start address
-                SUNSPEC_ID_SIZE, // number or words to return
+                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, address, // Start address
+                readLength, // number or words to return
                 maxTries);
 
-        comms.submitOneTimePoll(request, result -> result.getRegisters().ifPresent(this::headerReceived),
-                this::handleError);
+        comms.submitOneTimePoll(request, result -> result.getRegisters().ifPresent(registers -> {
+            if (registers.size() < length) {
+                logger.debug("Device returned {} registers instead of {}", registers.size(), readLength);
+                window = null;
+                callback.accept(registers);
+                return;
+            }
+            window = registers;
+            windowAddress = address;
+            callback.accept(readLength == length ? registers : slice(registers, 0, length));
+        }), failure -> {
+            if (readLength > length) {
+                logger.debug("Device rejected reading {} registers at address {}, reading only the requested ones",
+                        readLength, address);
+                windowReads = false;
+                window = null;
+                readRegisters(address, length, callback);
+            } else {
+                handleError(failure);
+            }
+        });
+    }
+
+    private static ModbusRegisterArray slice(ModbusRegisterArray registers, int offset, int length) {
+        byte[] bytes = registers.getBytes();
+        return new ModbusRegisterArray(Arrays.copyOfRange(bytes, offset * 2, (offset + length) * 2));
     }
 
     /**
@@ -189,14 +253,7 @@ public class SunspecDiscoveryProcess {
      * Look for a valid model block at the current base address
      */
     private void lookForModelBlock() {
-
-        ModbusReadRequestBlueprint request = new ModbusReadRequestBlueprint(slaveId,
-                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, baseAddress, // Start address
-                MODEL_HEADER_SIZE, // number or words to return
-                maxTries);
-
-        comms.submitOneTimePoll(request, result -> result.getRegisters().ifPresent(this::modelBlockReceived),
-                this::handleError);
+        readRegisters(baseAddress, MODEL_HEADER_SIZE, this::modelBlockReceived);
     }
 
     /**
@@ -243,13 +300,7 @@ public class SunspecDiscoveryProcess {
      * @param block
      */
     private void readCommonBlock(ModelBlock block) {
-        ModbusReadRequestBlueprint request = new ModbusReadRequestBlueprint(slaveId,
-                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, block.address, // Start address
-                block.length, // number or words to return
-                maxTries);
-
-        comms.submitOneTimePoll(request, result -> result.getRegisters().ifPresent(this::parseCommonBlock),
-                this::handleError);
+        readRegisters(block.address, block.length, this::parseCommonBlock);
     }
 
     /**
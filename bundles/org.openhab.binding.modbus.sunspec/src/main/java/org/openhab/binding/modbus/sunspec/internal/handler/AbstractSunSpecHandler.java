@@ -24,9 +24,11 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.modbus.handler.EndpointNotInitializedException;
 import org.openhab.binding.modbus.handler.ModbusEndpointThingHandler;
+import org.openhab.binding.modbus.handler.ModbusPollCoalescer;
 import org.openhab.binding.modbus.sunspec.internal.SunSpecConfiguration;
 import org.openhab.binding.modbus.sunspec.internal.dto.ModelBlock;
 import org.openhab.core.io.transport.modbus.AsyncModbusFailure;
+import org.openhab.core.io.transport.modbus.AsyncModbusReadResult;
 import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
 import org.openhab.core.io.transport.modbus.ModbusReadFunctionCode;
 import org.openhab.core.io.transport.modbus.ModbusReadRequestBlueprint;
@@ -80,6 +82,11 @@ public abstract class AbstractSunSpecHandler extends BaseThingHandler {
      */
     private volatile @Nullable PollTask pollTask = null;
 
+    /**
+     * The endpoint merging our poll with the polls of other things, if the endpoint is configured to do so
+     */
+    private volatile @Nullable ModbusPollCoalescer pollCoalescer = null;
+
     /**
      * Communication interface to the slave endpoint we're connecting to
      */
@@ -137,7 +144,7 @@ public abstract class AbstractSunSpecHandler extends BaseThingHandler {
             return;
         }
 
-        if (pollTask != null) {
+        if (pollTask != null || pollCoalescer != null) {
             return;
         }
 
@@ -315,7 +322,7 @@ public abstract class AbstractSunSpecHandler extends BaseThingHandler {
      * This is where we set up our regular poller
      */
     private synchronized void registerPollTask(ModelBlock mainBlock) {
-        if (pollTask != null) {
+        if (pollTask != null || pollCoalescer != null) {
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR);
             throw new IllegalStateException("pollTask should be unregistered before registering a new one!");
         }
@@ -327,18 +334,33 @@ public abstract class AbstractSunSpecHandler extends BaseThingHandler {
             throw new IllegalStateException("registerPollTask called without proper configuration");
         }
 
-        logger.debug("Setting up regular polling");
-
         ModbusReadRequestBlueprint request = new ModbusReadRequestBlueprint(getSlaveId(),
                 ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, mainBlock.address, mainBlock.length, myconfig.maxTries);
 
         long refreshMillis = myconfig.getRefreshMillis();
-        pollTask = mycomms.registerRegularPoll(request, refreshMillis, 1000, result -> {
-            result.getRegisters().ifPresent(this::handlePolledData);
-            if (getThing().getStatus() != ThingStatus.ONLINE) {
-                updateStatus(ThingStatus.ONLINE);
-            }
-        }, this::handleError);
+        ModbusEndpointThingHandler handler = getEndpointThingHandler();
+        @Nullable
+        ModbusPollCoalescer coalescer = handler == null ? null : handler.getPollCoalescer();
+        if (coalescer != null) {
+            // Blocks of things sharing the endpoint and refresh interval are then read with contiguous requests
+            logger.debug("Setting up regular polling with the endpoint, merging it with other things");
+            coalescer.register(this, request, refreshMillis, this::handleReadResult, this::handleError);
+            pollCoalescer = coalescer;
+        } else {
+            logger.debug("Setting up regular polling");
+            pollTask = mycomms.registerRegularPoll(request, refreshMillis, 1000, this::handleReadResult,
+                    this::handleError);
+        }
+    }
+
+    /**
+     * Handle the result of a regular poll
+     */
+    private void handleReadResult(AsyncModbusReadResult result) {
+        result.getRegisters().ifPresent(this::handlePolledData);
+        if (getThing().getStatus() != ThingStatus.ONLINE) {
+            updateStatus(ThingStatus.ONLINE);
+        }
     }
 
     /**
@@ -365,6 +387,13 @@ public abstract class AbstractSunSpecHandler extends BaseThingHandler {
      * No-op in case no poll task is registered, or if the initialization is incomplete.
      */
     private synchronized void unregisterPollTask() {
+        @Nullable
+        ModbusPollCoalescer coalescer = pollCoalescer;
+        if (coalescer != null) {
+            logger.debug("Unregistering polling from the endpoint");
+            coalescer.unregister(this);
+            pollCoalescer = null;
+        }
         @Nullable
         PollTask task = pollTask;
         if (task == null) {
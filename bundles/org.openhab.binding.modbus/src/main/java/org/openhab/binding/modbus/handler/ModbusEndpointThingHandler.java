@@ -50,4 +50,14 @@ public interface ModbusEndpointThingHandler extends Identifiable<ThingUID> {
      * @return boolean true if the discovery is enabled
      */
     public boolean isDiscoveryEnabled();
+
+    /**
+     * Get the {@link ModbusPollCoalescer} merging the regular polls of the pollers of this endpoint
+     *
+     * @return poll coalescer, or <code>null</code> if polls should not be merged or the initialization is not
+     *         complete
+     */
+    public default @Nullable ModbusPollCoalescer getPollCoalescer() {
+        return null;
+    }
 }
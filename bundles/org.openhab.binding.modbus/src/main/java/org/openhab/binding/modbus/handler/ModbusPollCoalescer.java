@@ -0,0 +1,335 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.modbus.handler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.io.transport.modbus.AsyncModbusFailure;
+import org.openhab.core.io.transport.modbus.AsyncModbusReadResult;
+import org.openhab.core.io.transport.modbus.BitArray;
+import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
+import org.openhab.core.io.transport.modbus.ModbusConstants;
+import org.openhab.core.io.transport.modbus.ModbusFailureCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.core.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.core.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.core.io.transport.modbus.PollTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges the regular polls of several pollers of one endpoint into as few requests as possible.
+ *
+ * Polls with the same slave id, function code, refresh interval and maximum tries form a group. Within a group the
+ * polls are sorted by start address and merged greedily as long as the merged request stays within the protocol
+ * limits and the number of unrequested registers (or bits) between two polls does not exceed the configured gap.
+ * The result of a merged request is split into the ranges of its polls and passed to their callbacks, so that a
+ * poller does not notice whether its request was merged.
+ *
+ * The plan of a group is recalculated whenever a poll of the group is registered or unregistered.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusPollCoalescer {
+
+    private final Logger logger = LoggerFactory.getLogger(ModbusPollCoalescer.class);
+
+    private final ModbusCommunicationInterface comms;
+    private final int maxGap;
+
+    // all guarded by this
+    private final Map<Object, Poll> polls = new LinkedHashMap<>();
+    private final Map<GroupKey, List<PollTask>> pollTasks = new HashMap<>();
+    private boolean closed;
+
+    /**
+     * A regular poll registered by a poller
+     */
+    private static class Poll {
+        private final ModbusReadRequestBlueprint request;
+        private final long refreshMillis;
+        private final ModbusReadCallback resultCallback;
+        private final ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback;
+
+        private Poll(ModbusReadRequestBlueprint request, long refreshMillis, ModbusReadCallback resultCallback,
+                ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback) {
+            this.request = request;
+            this.refreshMillis = refreshMillis;
+            this.resultCallback = resultCallback;
+            this.failureCallback = failureCallback;
+        }
+
+        private int getStart() {
+            return request.getReference();
+        }
+
+        private int getEnd() {
+            return request.getReference() + request.getDataLength();
+        }
+    }
+
+    /**
+     * Polls which can be merged share the same group key
+     */
+    private static class GroupKey {
+        private final int slaveId;
+        private final ModbusReadFunctionCode functionCode;
+        private final long refreshMillis;
+        private final int maxTries;
+
+        private GroupKey(Poll poll) {
+            this.slaveId = poll.request.getUnitID();
+            this.functionCode = poll.request.getFunctionCode();
+            this.refreshMillis = poll.refreshMillis;
+            this.maxTries = poll.request.getMaxTries();
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            GroupKey other = (GroupKey) obj;
+            return slaveId == other.slaveId && functionCode == other.functionCode
+                    && refreshMillis == other.refreshMillis && maxTries == other.maxTries;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(slaveId, functionCode, refreshMillis, maxTries);
+        }
+    }
+
+    /**
+     * One request covering one or more polls, passing the matching part of the response to each of them
+     */
+    private class MergedPoll implements ModbusReadCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> {
+        private final ModbusReadRequestBlueprint request;
+        private final List<Poll> polls;
+
+        private MergedPoll(ModbusReadRequestBlueprint request, List<Poll> polls) {
+            this.request = request;
+            this.polls = polls;
+        }
+
+        @Override
+        public void handle(AsyncModbusReadResult result) {
+            for (Poll poll : polls) {
+                AsyncModbusReadResult pollResult;
+                try {
+                    pollResult = polls.size() == 1 ? result : slice(result, poll.request);
+                } catch (IllegalStateException e) {
+                    logger.debug("Could not extract the data of {} from {}", poll.request, result, e);
+                    poll.failureCallback.handle(new AsyncModbusFailure<>(poll.request, e));
+                    continue;
+                }
+                try {
+                    poll.resultCallback.handle(pollResult);
+                } catch (RuntimeException e) {
+                    logger.warn("Error handling the result of {} for {}", request, poll.request, e);
+                }
+            }
+        }
+
+        @Override
+        public void handle(AsyncModbusFailure<ModbusReadRequestBlueprint> failure) {
+            for (Poll poll : polls) {
+                try {
+                    poll.failureCallback.handle(polls.size() == 1 ? failure
+                            : new AsyncModbusFailure<>(poll.request, failure.getCause()));
+                } catch (RuntimeException e) {
+                    logger.warn("Error handling the failure of {} for {}", request, poll.request, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param comms communication interface of the endpoint
+     * @param maxGap maximum number of unrequested registers or bits between two polls which are merged
+     */
+    public ModbusPollCoalescer(ModbusCommunicationInterface comms, int maxGap) {
+        this.comms = comms;
+        this.maxGap = Math.max(0, maxGap);
+    }
+
+    /**
+     * Register a regular poll, replacing the poll registered earlier by the same owner
+     *
+     * @param owner the owner of the poll, used to unregister it
+     * @param request the request to poll
+     * @param refreshMillis the poll interval
+     * @param resultCallback callback receiving the data of the request
+     * @param failureCallback callback receiving the failures of the request
+     */
+    public synchronized void register(Object owner, ModbusReadRequestBlueprint request, long refreshMillis,
+            ModbusReadCallback resultCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback) {
+        if (closed) {
+            logger.debug("Not registering {} since the coalescer is closed", request);
+            return;
+        }
+        Poll poll = new Poll(request, refreshMillis, resultCallback, failureCallback);
+        Poll previous = polls.put(owner, poll);
+        if (previous != null && !new GroupKey(previous).equals(new GroupKey(poll))) {
+            replan(new GroupKey(previous));
+        }
+        replan(new GroupKey(poll));
+    }
+
+    /**
+     * Unregister the regular poll of the given owner. No-op if the owner has no poll registered.
+     *
+     * @param owner the owner of the poll
+     */
+    public synchronized void unregister(Object owner) {
+        Poll poll = polls.remove(owner);
+        if (poll != null && !closed) {
+            replan(new GroupKey(poll));
+        }
+    }
+
+    /**
+     * Unregister all polls
+     */
+    public synchronized void close() {
+        closed = true;
+        pollTasks.values().forEach(tasks -> tasks.forEach(comms::unregisterRegularPoll));
+        pollTasks.clear();
+        polls.clear();
+    }
+
+    private void replan(GroupKey key) {
+        List<PollTask> previousTasks = pollTasks.remove(key);
+        if (previousTasks != null) {
+            previousTasks.forEach(comms::unregisterRegularPoll);
+        }
+
+        List<Poll> group = new ArrayList<>();
+        for (Poll poll : polls.values()) {
+            if (key.equals(new GroupKey(poll))) {
+                group.add(poll);
+            }
+        }
+        if (group.isEmpty()) {
+            return;
+        }
+
+        List<PollTask> tasks = new ArrayList<>();
+        for (List<Poll> merged : plan(group, maxLength(key.functionCode), maxGap)) {
+            ModbusReadRequestBlueprint request = merged.size() == 1 ? merged.get(0).request
+                    : mergedRequest(key, merged);
+            MergedPoll mergedPoll = new MergedPoll(request, merged);
+            tasks.add(comms.registerRegularPoll(request, key.refreshMillis, 0, mergedPoll, mergedPoll));
+        }
+        pollTasks.put(key, tasks);
+        logger.debug("Polling {} requests of slave {} (function code {}, refresh {} ms) with {} requests",
+                group.size(), key.slaveId, key.functionCode, key.refreshMillis, tasks.size());
+    }
+
+    private static int maxLength(ModbusReadFunctionCode functionCode) {
+        switch (functionCode) {
+            case READ_COILS:
+            case READ_INPUT_DISCRETES:
+                return ModbusConstants.MAX_BITS_READ_COUNT;
+            default:
+                return ModbusConstants.MAX_REGISTERS_READ_COUNT;
+        }
+    }
+
+    private static ModbusReadRequestBlueprint mergedRequest(GroupKey key, List<Poll> merged) {
+        int start = merged.get(0).getStart();
+        int end = merged.stream().mapToInt(Poll::getEnd).max().orElse(start);
+        return new ModbusReadRequestBlueprint(key.slaveId, key.functionCode, start, end - start, key.maxTries);
+    }
+
+    /**
+     * Split polls of one group into the minimum number of merged requests
+     *
+     * @param group polls to merge
+     * @param maxLength maximum length of a merged request
+     * @param maxGap maximum number of unrequested registers or bits between two merged polls
+     * @return polls of each merged request, ordered by start address
+     */
+    private static List<List<Poll>> plan(List<Poll> group, int maxLength, int maxGap) {
+        List<Poll> sorted = new ArrayList<>(group);
+        sorted.sort(Comparator.comparingInt(Poll::getStart).thenComparingInt(Poll::getEnd));
+
+        List<List<Poll>> plan = new ArrayList<>();
+        List<Poll> current = new ArrayList<>();
+        int start = 0;
+        int end = 0;
+        for (Poll poll : sorted) {
+            if (!current.isEmpty() && poll.getStart() - end <= maxGap
+                    && Math.max(end, poll.getEnd()) - start <= maxLength) {
+                current.add(poll);
+                end = Math.max(end, poll.getEnd());
+            } else {
+                if (!current.isEmpty()) {
+                    plan.add(current);
+                }
+                current = new ArrayList<>();
+                current.add(poll);
+                start = poll.getStart();
+                end = poll.getEnd();
+            }
+        }
+        if (!current.isEmpty()) {
+            plan.add(current);
+        }
+        return plan;
+    }
+
+    /**
+     * Extract the data of a request from the result of a merged request covering it
+     */
+    static AsyncModbusReadResult slice(AsyncModbusReadResult result, ModbusReadRequestBlueprint request) {
+        int offset = request.getReference() - result.getRequest().getReference();
+        int length = request.getDataLength();
+
+        Optional<ModbusRegisterArray> registers = result.getRegisters();
+        if (registers.isPresent()) {
+            byte[] bytes = registers.get().getBytes();
+            if (bytes.length < (offset + length) * 2) {
+                throw new IllegalStateException(String.format("Response with %d registers is too short for %s",
+                        bytes.length / 2, request));
+            }
+            byte[] sliced = new byte[length * 2];
+            System.arraycopy(bytes, offset * 2, sliced, 0, sliced.length);
+            return new AsyncModbusReadResult(request, new ModbusRegisterArray(sliced));
+        }
+
+        Optional<BitArray> bits = result.getBits();
+        if (bits.isPresent()) {
+            BitArray sliced = new BitArray(length);
+            for (int i = 0; i < length && offset + i < bits.get().size(); i++) {
+                sliced.setBit(i, bits.get().getBit(offset + i));
+            }
+            return new AsyncModbusReadResult(request, sliced);
+        }
+        throw new IllegalStateException("Response contains neither registers nor bits: " + result);
+    }
+}
@@ -184,6 +184,7 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
     private @NonNullByDefault({}) ModbusPollerConfiguration config;
     private long cacheMillis;
     private volatile @Nullable PollTask pollTask;
+    private volatile @Nullable ModbusPollCoalescer pollCoalescer;
     private volatile @Nullable ModbusReadRequestBlueprint request;
     private volatile boolean disposed;
     private volatile List<ModbusDataThingHandler> childCallbacks = new CopyOnWriteArrayList<>();
@@ -306,7 +307,13 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
             logger.debug("Unregistering polling from ModbusManager");
             comms.unregisterRegularPoll(localPollTask);
         }
+        ModbusPollCoalescer localPollCoalescer = this.pollCoalescer;
+        if (localPollCoalescer != null) {
+            logger.debug("Unregistering polling from the endpoint");
+            localPollCoalescer.unregister(this);
+        }
         this.pollTask = null;
+        this.pollCoalescer = null;
         request = null;
         comms = null;
         updateStatus(ThingStatus.OFFLINE);
@@ -321,7 +328,7 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
     @SuppressWarnings("null")
     private synchronized void registerPollTask() throws EndpointNotInitializedException {
         logger.trace("registerPollTask()");
-        if (pollTask != null) {
+        if (pollTask != null || pollCoalescer != null) {
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR);
             logger.debug("pollTask should be unregistered before registering a new one!");
             return;
@@ -355,10 +362,18 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
             logger.debug("Not registering polling with ModbusManager since refresh disabled");
             updateStatus(ThingStatus.ONLINE, ThingStatusDetail.NONE, "Not polling");
         } else {
-            logger.debug("Registering polling with ModbusManager");
-            pollTask = localComms.registerRegularPoll(localRequest, config.getRefresh(), 0, callbackDelegator,
-                    callbackDelegator);
-            assert pollTask != null;
+            ModbusPollCoalescer localPollCoalescer = slaveEndpointThingHandler.getPollCoalescer();
+            if (localPollCoalescer != null) {
+                logger.debug("Registering polling with the endpoint, merging it with other pollers");
+                localPollCoalescer.register(this, localRequest, config.getRefresh(), callbackDelegator,
+                        callbackDelegator);
+                pollCoalescer = localPollCoalescer;
+            } else {
+                logger.debug("Registering polling with ModbusManager");
+                pollTask = localComms.registerRegularPoll(localRequest, config.getRefresh(), 0, callbackDelegator,
+                        callbackDelegator);
+                assert pollTask != null;
+            }
             updateStatus(ThingStatus.ONLINE);
         }
     }
@@ -38,6 +38,8 @@ public class ModbusSerialConfiguration {
     private int connectMaxTries;
     private int connectTimeoutMillis;
     private boolean enableDiscovery;
+    private boolean coalescePolls;
+    private int coalesceMaxGap;
 
     public @Nullable String getPort() {
         return port;
@@ -158,4 +160,20 @@ public class ModbusSerialConfiguration {
     public void setDiscoveryEnabled(boolean enableDiscovery) {
         this.enableDiscovery = enableDiscovery;
     }
+
+    public boolean isCoalescePolls() {
+        return coalescePolls;
+    }
+
+    public void setCoalescePolls(boolean coalescePolls) {
+        this.coalescePolls = coalescePolls;
+    }
+
+    public int getCoalesceMaxGap() {
+        return coalesceMaxGap;
+    }
+
+    public void setCoalesceMaxGap(int coalesceMaxGap) {
+        this.coalesceMaxGap = coalesceMaxGap;
+    }
 }
@@ -32,6 +32,8 @@ public class ModbusTcpConfiguration {
     private int reconnectAfterMillis;
     private int connectTimeoutMillis;
     private boolean enableDiscovery;
+    private boolean coalescePolls;
+    private int coalesceMaxGap;
     private boolean rtuEncoded;
 
     public boolean getRtuEncoded() {
@@ -109,4 +111,20 @@ public class ModbusTcpConfiguration {
     public void setDiscoveryEnabled(boolean enableDiscovery) {
         this.enableDiscovery = enableDiscovery;
     }
+
+    public boolean isCoalescePolls() {
+        return coalescePolls;
+    }
+
+    public void setCoalescePolls(boolean coalescePolls) {
+        this.coalescePolls = coalescePolls;
+    }
+
+    public int getCoalesceMaxGap() {
+        return coalesceMaxGap;
+    }
+
+    public void setCoalesceMaxGap(int coalesceMaxGap) {
+        this.coalesceMaxGap = coalesceMaxGap;
+    }
 }
@@ -16,6 +16,7 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.modbus.handler.EndpointNotInitializedException;
 import org.openhab.binding.modbus.handler.ModbusEndpointThingHandler;
+import org.openhab.binding.modbus.handler.ModbusPollCoalescer;
 import org.openhab.binding.modbus.internal.ModbusConfigurationException;
 import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
 import org.openhab.core.io.transport.modbus.ModbusManager;
@@ -46,8 +47,11 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
     protected volatile @Nullable E endpoint;
     protected ModbusManager modbusManager;
     protected volatile @Nullable EndpointPoolConfiguration poolConfiguration;
+    /** Maximum gap between merged polls, negative if polls are not merged */
+    protected volatile int pollCoalescingMaxGap = -1;
     private final Logger logger = LoggerFactory.getLogger(AbstractModbusEndpointThingHandler.class);
     private @NonNullByDefault({}) ModbusCommunicationInterface comms;
+    private volatile @Nullable ModbusPollCoalescer pollCoalescer;
 
     public AbstractModbusEndpointThingHandler(Bridge bridge, ModbusManager modbusManager) {
         super(bridge);
@@ -76,6 +80,8 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
                 }
                 try {
                     comms = modbusManager.newModbusCommunicationInterface(endpoint, poolConfiguration);
+                    pollCoalescer = pollCoalescingMaxGap >= 0 ? new ModbusPollCoalescer(comms, pollCoalescingMaxGap)
+                            : null;
                     updateStatus(ThingStatus.ONLINE);
                 } catch (IllegalArgumentException e) {
                     updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
@@ -93,6 +99,11 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
 
     @Override
     public void dispose() {
+        ModbusPollCoalescer localPollCoalescer = pollCoalescer;
+        pollCoalescer = null;
+        if (localPollCoalescer != null) {
+            localPollCoalescer.close();
+        }
         try {
             ModbusCommunicationInterface localComms = comms;
             if (localComms != null) {
@@ -110,6 +121,11 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
         return comms;
     }
 
+    @Override
+    public @Nullable ModbusPollCoalescer getPollCoalescer() {
+        return pollCoalescer;
+    }
+
     @Nullable
     public E getEndpoint() {
         return endpoint;
@@ -119,7 +135,7 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
     public abstract int getSlaveId() throws EndpointNotInitializedException;
 
     /**
-     * Must be overriden by subclasses to initialize config, endpoint, and poolConfiguration
+     * Must be overriden by subclasses to initialize config, endpoint, poolConfiguration and pollCoalescingMaxGap
      */
     protected abstract void configure() throws ModbusConfigurationException;
 
@@ -142,6 +142,18 @@ public class ModbusDataThingHandler extends BaseThingHandler {
     private volatile Map<String, ChannelUID> channelCache = new HashMap<>();
     private volatile Map<ChannelUID, Long> channelLastUpdated = new HashMap<>(NUMER_OF_CHANNELS_HINT);
     private volatile Map<ChannelUID, State> channelLastState = new HashMap<>(NUMER_OF_CHANNELS_HINT);
+    // oldest update of the channels in channelLastState, unchanged values are not decoded again before it expires
+    private volatile long oldestChannelUpdateMillis;
+    // channels linked when the value was last decoded, channels linked later have not received it yet
+    private volatile Set<ChannelUID> decodedChannels = new HashSet<>();
+
+    // read plan: registers (or bits) of the polled data holding the read value, and the index to extract it from
+    private volatile int readPlanOffset;
+    private volatile int readPlanLength;
+    private volatile int readPlanExtractIndex;
+    // raw registers (or bit) of the read value in the previous poll
+    private volatile int[] lastRawValue = new int[0];
+    private volatile boolean lastRawValueValid;
 
     private volatile LocalDateTime lastStatusInfoUpdate = LocalDateTime.MIN;
     private volatile ThingStatusInfo statusInfo = new ThingStatusInfo(ThingStatus.UNKNOWN, ThingStatusDetail.NONE,
@@ -408,6 +420,13 @@ public class ModbusDataThingHandler extends BaseThingHandler {
         statusInfo = new ThingStatusInfo(ThingStatus.UNKNOWN, ThingStatusDetail.NONE, null);
         channelLastUpdated = new HashMap<>(NUMER_OF_CHANNELS_HINT);
         channelLastState = new HashMap<>(NUMER_OF_CHANNELS_HINT);
+        oldestChannelUpdateMillis = 0L;
+        decodedChannels = new HashSet<>();
+        readPlanOffset = 0;
+        readPlanLength = 0;
+        readPlanExtractIndex = 0;
+        lastRawValue = new int[0];
+        lastRawValueValid = false;
     }
 
     @Override
@@ -500,6 +519,45 @@ public class ModbusDataThingHandler extends BaseThingHandler {
         }
         readTransformation = new Transformation(config.getReadTransform());
         validateReadIndex();
+        compileReadPlan();
+    }
+
+    /**
+     * Determine the part of the polled data holding the read value. With every poll, only this part is compared
+     * against the previous poll, and decoded when it has changed.
+     */
+    private void compileReadPlan() {
+        ValueType readValueType = this.readValueType;
+        lastRawValueValid = false;
+        if (!isReadEnabled || readValueType == null || !readIndex.isPresent()) {
+            readPlanLength = 0;
+            lastRawValue = new int[0];
+            return;
+        }
+        int offset = readIndex.get() - pollStart;
+        readPlanOffset = offset;
+        if (functionCode == ModbusReadFunctionCode.READ_COILS
+                || functionCode == ModbusReadFunctionCode.READ_INPUT_DISCRETES) {
+            readPlanLength = 1;
+            readPlanExtractIndex = offset;
+        } else if (readValueType.getBits() >= 16) {
+            // Invariant, checked in validateReadIndex
+            assert readSubIndex.orElse(0) == 0;
+            readPlanLength = readValueType.getBits() / 16;
+            readPlanExtractIndex = offset;
+        } else {
+            // extractIndex:
+            // e.g. with bit, extractIndex=4 means 5th bit (from right) ("10.4" -> 5th bit of register 10)
+            // e.g. with 8bit integer, extractIndex=3 means high byte of second register
+            //
+            // with <16 bit types, this is the index of the N'th 1-bit/8-bit item. Each register has 16/2 items,
+            // respectively.
+            // with >=16 bit types, this is index of first register
+            int itemsPerRegister = 16 / readValueType.getBits();
+            readPlanLength = 1;
+            readPlanExtractIndex = offset * itemsPerRegister + readSubIndex.orElse(0);
+        }
+        lastRawValue = new int[readPlanLength];
     }
 
     private void validateAndParseWriteParameters(ModbusDataConfiguration config) throws ModbusConfigurationException {
@@ -675,31 +733,19 @@ public class ModbusDataThingHandler extends BaseThingHandler {
         if (readValueType == null) {
             return;
         }
-        State numericState;
-
-        // extractIndex:
-        // e.g. with bit, extractIndex=4 means 5th bit (from right) ("10.4" -> 5th bit of register 10, "10.4" -> 5th bit
-        // of register 10)
-        // bit of second register)
-        // e.g. with 8bit integer, extractIndex=3 means high byte of second register
-        //
-        // with <16 bit types, this is the index of the N'th 1-bit/8-bit item. Each register has 16/2 items,
-        // respectively.
-        // with >=16 bit types, this is index of first register
-        int extractIndex;
-        if (readValueType.getBits() >= 16) {
-            // Invariant, checked in initialize
-            assert readSubIndex.orElse(0) == 0;
-            extractIndex = readIndex.get() - pollStart;
-        } else {
-            int subIndex = readSubIndex.orElse(0);
-            int itemsPerRegister = 16 / readValueType.getBits();
-            extractIndex = (readIndex.get() - pollStart) * itemsPerRegister + subIndex;
+        if (isUnchanged(registers)) {
+            onUnchangedValue();
+            logger.trace("Thing {} value unchanged, not decoding it again. Registers {} for request {}",
+                    thing.getUID(), registers, request);
+            return;
         }
-        numericState = ModbusBitUtilities.extractStateFromRegisters(registers, extractIndex, readValueType)
+        // see compileReadPlan
+        int extractIndex = readPlanExtractIndex;
+        State numericState = ModbusBitUtilities.extractStateFromRegisters(registers, extractIndex, readValueType)
                 .map(state -> (State) state).orElse(UnDefType.UNDEF);
         boolean boolValue = !numericState.equals(DecimalType.ZERO);
         Map<ChannelUID, State> values = processUpdatedValue(numericState, boolValue);
+        lastRawValueValid = true;
         logger.debug(
                 "Thing {} channels updated: {}. readValueType={}, readIndex={}, readSubIndex(or 0)={}, extractIndex={} -> numeric value {} and boolValue={}. Registers {} for request {}",
                 thing.getUID(), values, readValueType, readIndex, readSubIndex.orElse(0), extractIndex, numericState,
@@ -712,9 +758,16 @@ public class ModbusDataThingHandler extends BaseThingHandler {
         } else if (!isReadEnabled) {
             return;
         }
+        if (isUnchanged(bits)) {
+            onUnchangedValue();
+            logger.trace("Thing {} value unchanged, not decoding it again. Bits {} for request {}", thing.getUID(),
+                    bits, request);
+            return;
+        }
         boolean boolValue = bits.getBit(readIndex.get() - pollStart);
         DecimalType numericState = boolValue ? new DecimalType(BigDecimal.ONE) : DecimalType.ZERO;
         Map<ChannelUID, State> values = processUpdatedValue(numericState, boolValue);
+        lastRawValueValid = true;
         logger.debug(
                 "Thing {} channels updated: {}. readValueType={}, readIndex={} -> numeric value {} and boolValue={}. Bits {} for request {}",
                 thing.getUID(), values, readValueType, readIndex, numericState, boolValue, bits, request);
@@ -738,6 +791,7 @@ public class ModbusDataThingHandler extends BaseThingHandler {
                     getThing().getUID(), getThing().getLabel(), error.getClass().getName(), error.toString(),
                     error.getMessage(), error);
         }
+        lastRawValueValid = false;
         Map<ChannelUID, State> states = new HashMap<>();
         ChannelUID lastReadErrorUID = getChannelUID(ModbusBindingConstantsInternal.CHANNEL_LAST_READ_ERROR);
         if (isLinked(lastReadErrorUID)) {
@@ -821,11 +875,13 @@ public class ModbusDataThingHandler extends BaseThingHandler {
             return Collections.emptyMap();
         }
         Map<ChannelUID, State> states = new HashMap<>();
+        Set<ChannelUID> linkedChannels = new HashSet<>();
         CHANNEL_ID_TO_ACCEPTED_TYPES.keySet().stream().forEach(channelId -> {
             ChannelUID channelUID = getChannelUID(channelId);
             if (!isLinked(channelUID)) {
                 return;
             }
+            linkedChannels.add(channelUID);
             List<Class<? extends State>> acceptedDataTypes = CHANNEL_ID_TO_ACCEPTED_TYPES.get(channelId);
             if (acceptedDataTypes.isEmpty()) {
                 return;
@@ -878,6 +934,7 @@ public class ModbusDataThingHandler extends BaseThingHandler {
         if (isLinked(lastReadSuccessUID)) {
             states.put(lastReadSuccessUID, new DateTimeType());
         }
+        decodedChannels = linkedChannels;
         updateExpiredChannels(states);
         return states;
     }
@@ -889,6 +946,84 @@ public class ModbusDataThingHandler extends BaseThingHandler {
             // Update channels that have not been updated in a while, or when their values has changed
             states.forEach((uid, state) -> updateExpiredChannel(now, uid, state));
             channelLastState = states;
+            long oldestUpdate = now;
+            for (ChannelUID uid : states.keySet()) {
+                oldestUpdate = Math.min(oldestUpdate, channelLastUpdated.getOrDefault(uid, 0L));
+            }
+            oldestChannelUpdateMillis = oldestUpdate;
+        }
+    }
+
+    /**
+     * Compare the registers of the read value with the previous poll
+     *
+     * @param registers polled registers
+     * @return whether the value is unchanged and none of its channels is due for an update, that is, decoding and
+     *         transforming the value again would not update any channel
+     */
+    private boolean isUnchanged(ModbusRegisterArray registers) {
+        if (readPlanOffset < 0 || readPlanOffset + readPlanLength > registers.size()) {
+            lastRawValueValid = false;
+            return false;
+        }
+        boolean changed = false;
+        for (int i = 0; i < readPlanLength; i++) {
+            changed |= updateRawValue(i, registers.getRegister(readPlanOffset + i));
+        }
+        return !changed && isDecodedValueCurrent();
+    }
+
+    /**
+     * Compare the bit of the read value with the previous poll
+     *
+     * @param bits polled bits
+     * @return whether the value is unchanged and none of its channels is due for an update
+     */
+    private boolean isUnchanged(BitArray bits) {
+        if (readPlanOffset < 0 || readPlanOffset >= bits.size()) {
+            lastRawValueValid = false;
+            return false;
+        }
+        boolean changed = updateRawValue(0, bits.getBit(readPlanOffset) ? 1 : 0);
+        return !changed && isDecodedValueCurrent();
+    }
+
+    private boolean updateRawValue(int index, int value) {
+        int[] lastRawValue = this.lastRawValue;
+        if (index >= lastRawValue.length) {
+            return true;
+        }
+        boolean changed = lastRawValue[index] != value;
+        lastRawValue[index] = value;
+        return changed;
+    }
+
+    private boolean isDecodedValueCurrent() {
+        if (!lastRawValueValid || updateUnchangedValuesEveryMillis <= 0L
+                || System.currentTimeMillis() - oldestChannelUpdateMillis > updateUnchangedValuesEveryMillis) {
+            return false;
+        }
+        // channels linked after the last update have not received the value yet
+        for (String channelId : CHANNEL_ID_TO_ACCEPTED_TYPES.keySet()) {
+            ChannelUID channelUID = getChannelUID(channelId);
+            if (isLinked(channelUID) && !decodedChannels.contains(channelUID)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Update status and last read success channel of a poll which did not change the value
+     */
+    private void onUnchangedValue() {
+        synchronized (this) {
+            updateStatusIfChanged(ThingStatus.ONLINE);
+            ChannelUID lastReadSuccessUID = getChannelUID(ModbusBindingConstantsInternal.CHANNEL_LAST_READ_SUCCESS);
+            if (isLinked(lastReadSuccessUID)) {
+                tryUpdateState(lastReadSuccessUID, new DateTimeType());
+                channelLastUpdated.put(lastReadSuccessUID, System.currentTimeMillis());
+            }
         }
     }
 
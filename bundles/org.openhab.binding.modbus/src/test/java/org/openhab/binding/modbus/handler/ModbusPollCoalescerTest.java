@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.modbus.handler;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.core.io.transport.modbus.AsyncModbusFailure;
+import org.openhab.core.io.transport.modbus.AsyncModbusReadResult;
+import org.openhab.core.io.transport.modbus.BitArray;
+import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
+import org.openhab.core.io.transport.modbus.ModbusFailureCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.core.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.core.io.transport.modbus.ModbusRegisterArray;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class ModbusPollCoalescerTest {
+
+    private ModbusCommunicationInterface comms;
+
+    /**
+     * Collects the results and failures passed to a poller
+     */
+    private static class RecordingCallback
+            implements ModbusReadCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> {
+        private final List<AsyncModbusReadResult> results = new ArrayList<>();
+        private final List<AsyncModbusFailure<ModbusReadRequestBlueprint>> failures = new ArrayList<>();
+
+        @Override
+        public void handle(AsyncModbusReadResult result) {
+            results.add(result);
+        }
+
+        @Override
+        public void handle(AsyncModbusFailure<ModbusReadRequestBlueprint> failure) {
+            failures.add(failure);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        comms = mock(ModbusCommunicationInterface.class);
+    }
+
+    private static ModbusReadRequestBlueprint holding(int start, int length) {
+        return new ModbusReadRequestBlueprint(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, start, length, 3);
+    }
+
+    private static ModbusReadRequestBlueprint coils(int start, int length) {
+        return new ModbusReadRequestBlueprint(1, ModbusReadFunctionCode.READ_COILS, start, length, 3);
+    }
+
+    private List<ModbusReadRequestBlueprint> registeredRequests(int times) {
+        ArgumentCaptor<ModbusReadRequestBlueprint> captor = ArgumentCaptor.forClass(ModbusReadRequestBlueprint.class);
+        verify(comms, times(times)).registerRegularPoll(captor.capture(), anyLong(), anyLong(), any(), any());
+        return captor.getAllValues();
+    }
+
+    private ModbusReadCallback lastRegisteredCallback() {
+        ArgumentCaptor<ModbusReadCallback> captor = ArgumentCaptor.forClass(ModbusReadCallback.class);
+        verify(comms, atLeastOnce()).registerRegularPoll(any(), anyLong(), anyLong(), captor.capture(), any());
+        List<ModbusReadCallback> callbacks = captor.getAllValues();
+        return callbacks.get(callbacks.size() - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ModbusFailureCallback<ModbusReadRequestBlueprint> lastRegisteredFailureCallback() {
+        return (ModbusFailureCallback<ModbusReadRequestBlueprint>) (Object) lastRegisteredCallback();
+    }
+
+    @Test
+    public void testAdjacentPollsAreMergedAndResultIsSplit() {
+        ModbusPollCoalescer coalescer = new ModbusPollCoalescer(comms, 0);
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        ModbusReadRequestBlueprint firstRequest = holding(10, 2);
+        ModbusReadRequestBlueprint secondRequest = holding(12, 3);
+
+        coalescer.register(first, firstRequest, 1000, first, first);
+        coalescer.register(second, secondRequest, 1000, second, second);
+
+        List<ModbusReadRequestBlueprint> requests = registeredRequests(2);
+        ModbusReadRequestBlueprint merged = requests.get(1);
+        assertThat(merged.getReference(), is(equalTo(10)));
+        assertThat(merged.getDataLength(), is(equalTo(5)));
+        verify(comms, times(1)).unregisterRegularPoll(any());
+
+        lastRegisteredCallback().handle(new AsyncModbusReadResult(merged, new ModbusRegisterArray(1, 2, 3, 4, 5)));
+
+        assertThat(first.results.size(), is(equalTo(1)));
+        assertThat(first.results.get(0).getRequest(), is(sameInstance(firstRequest)));
+        ModbusRegisterArray firstRegisters = first.results.get(0).getRegisters().get();
+        assertThat(firstRegisters.size(), is(equalTo(2)));
+        assertThat(firstRegisters.getRegister(0), is(equalTo(1)));
+        assertThat(firstRegisters.getRegister(1), is(equalTo(2)));
+
+        assertThat(second.results.size(), is(equalTo(1)));
+        assertThat(second.results.get(0).getRequest(), is(sameInstance(secondRequest)));
+        ModbusRegisterArray secondRegisters = second.results.get(0).getRegisters().get();
+        assertThat(secondRegisters.size(), is(equalTo(3)));
+        assertThat(secondRegisters.getRegister(0), is(equalTo(3)));
+        assertThat(secondRegisters.getRegister(2), is(equalTo(5)));
+    }
+
+    @Test
+    public void testFailureIsPassedToAllMergedPolls() {
+        ModbusPollCoalescer coalescer = new ModbusPollCoalescer(comms, 0);
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        coalescer.register(first, holding(0, 2), 1000, first, first);
+        coalescer.register(second, holding(1, 2), 1000, second, second);
+
+        ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback = lastRegisteredFailureCallback();
+        Exception cause = new Exception("timeout");
+        failureCallback.handle(new AsyncModbusFailure<>(registeredRequests(2).get(1), cause));
+
+        assertThat(first.failures.size(), is(equalTo(1)));
+        assertThat(first.failures.get(0).getCause(), is(sameInstance(cause)));
+        assertThat(second.failures.size(), is(equalTo(1)));
+        assertThat(second.failures.get(0).getRequest().getReference(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testPollsWithDifferentRefreshAreNotMerged() {
+        ModbusPollCoalescer coalescer = new ModbusPollCoalescer(comms, 0);
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        coalescer.register(first, holding(0, 2), 1000, first, first);
+        coalescer.register(second, holding(2, 2), 2000, second, second);
+
+        verify(comms, times(2)).registerRegularPoll(any(), anyLong(), anyLong(), any(), any());
+        verify(comms, never()).unregisterRegularPoll(any());
+    }
+
+    @Test
+    public void testGapAndMaximumLength() {
+        ModbusPollCoalescer coalescer = new ModbusPollCoalescer(comms, 3);
+        RecordingCallback callback = new RecordingCallback();
+        coalescer.register("a", holding(0, 5), 1000, callback, callback);
+        // gap of 3 registers is merged
+        coalescer.register("b", holding(8, 2), 1000, callback, callback);
+        // gap of 4 registers is not merged
+        coalescer.register("c", holding(14, 2), 1000, callback, callback);
+        // adjacent, but merged with the previous one it would exceed 125 registers
+        coalescer.register("d", holding(16, 124), 1000, callback, callback);
+
+        // 1 + 1 + 2 + 3 registrations
+        List<ModbusReadRequestBlueprint> requests = registeredRequests(7);
+        List<ModbusReadRequestBlueprint> last = requests.subList(4, 7);
+        assertThat(last.get(0).getReference(), is(equalTo(0)));
+        assertThat(last.get(0).getDataLength(), is(equalTo(10)));
+        assertThat(last.get(1).getReference(), is(equalTo(14)));
+        assertThat(last.get(1).getDataLength(), is(equalTo(2)));
+        assertThat(last.get(2).getReference(), is(equalTo(16)));
+        assertThat(last.get(2).getDataLength(), is(equalTo(124)));
+    }
+
+    @Test
+    public void testUnregisterReplansGroup() {
+        ModbusPollCoalescer coalescer = new ModbusPollCoalescer(comms, 0);
+        RecordingCallback callback = new RecordingCallback();
+        coalescer.register("a", holding(0, 2), 1000, callback, callback);
+        coalescer.register("b", holding(2, 2), 1000, callback, callback);
+        coalescer.unregister("a");
+
+        List<ModbusReadRequestBlueprint> requests = registeredRequests(3);
+        assertThat(requests.get(2).getReference(), is(equalTo(2)));
+        assertThat(requests.get(2).getDataLength(), is(equalTo(2)));
+
+        coalescer.close();
+        coalescer.register("c", holding(4, 2), 1000, callback, callback);
+        verify(comms, times(3)).registerRegularPoll(any(), anyLong(), anyLong(), any(), any());
+        verify(comms, times(3)).unregisterRegularPoll(any());
+    }
+
+    @Test
+    public void testSliceBits() {
+        BitArray bits = new BitArray(8);
+        bits.setBit(3, true);
+        bits.setBit(5, true);
+        AsyncModbusReadResult result = new AsyncModbusReadResult(coils(0, 8), bits);
+
+        AsyncModbusReadResult sliced = ModbusPollCoalescer.slice(result, coils(3, 3));
+
+        BitArray slicedBits = sliced.getBits().get();
+        assertThat(slicedBits.size(), is(equalTo(3)));
+        assertThat(slicedBits.getBit(0), is(true));
+        assertThat(slicedBits.getBit(1), is(false));
+        assertThat(slicedBits.getBit(2), is(true));
+    }
+}
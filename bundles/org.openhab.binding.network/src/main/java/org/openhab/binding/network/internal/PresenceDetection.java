@@ -20,9 +20,9 @@ import java.net.UnknownHostException;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -51,6 +51,8 @@ public class PresenceDetection implements IPRequestReceivedCallback {
 
     public static final double NOT_REACHABLE = -1;
     public static final int DESTINATION_TTL = 300 * 1000; // in ms, 300 s
+    // maximum random delay of the first automatic refresh, spreading the detections of many things
+    static final long MAX_REFRESH_JITTER_IN_MS = 10000;
 
     NetworkUtils networkUtils = new NetworkUtils();
     private final Logger logger = LoggerFactory.getLogger(PresenceDetection.class);
@@ -178,6 +180,17 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         }
     }
 
+    /**
+     * Sets a ping method determined before, e.g. by {@link NetworkUtils#determinePingMethod()}. Unlike
+     * {@link #setUseIcmpPing(Boolean)}, no feature test is performed.
+     *
+     * @param pingMethod The ICMP ping method to use
+     */
+    public void setIcmpPingMethod(IpPingMethodEnum pingMethod) {
+        this.pingMethod = pingMethod;
+        ipPingState = pingMethod == IpPingMethodEnum.JAVA_PING ? "Java ping" : pingMethod.name();
+    }
+
     /**
      * Enables or disables ARP pings. Will be automatically disabled if the destination
      * is not an IPv4 address. If the feature test for the native arping utility fails,
@@ -279,14 +292,20 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         cache.getValue(callback);
     }
 
-    public ExecutorService getThreadsFor(int threadCount) {
-        return Executors.newFixedThreadPool(threadCount);
+    /**
+     * Returns the executor for the checks of one presence detection. The checks of all presence detections share one
+     * thread pool of fixed size, see {@link PresenceDetectionExecutor}.
+     *
+     * @param checkCount number of checks which will be executed
+     */
+    public ExecutorService getThreadsFor(int checkCount) {
+        return PresenceDetectionExecutor.newTaskGroup();
     }
 
     /**
      * Perform a presence detection with ICMP-, ARP ping and
-     * TCP connection attempts simultaneously. A fixed thread pool will be created with as many
-     * thread as necessary to perform all tests at once.
+     * TCP connection attempts simultaneously. The checks are executed by a thread pool shared
+     * by all presence detections.
      *
      * This is a NO-OP, if there is already an ongoing detection or if the cached value
      * is not expired yet.
@@ -332,7 +351,6 @@ public class PresenceDetection implements IPRequestReceivedCallback {
 
         for (Integer tcpPort : tcpPorts) {
             executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionTCP_" + hostname + " " + String.valueOf(tcpPort));
                 performServicePing(tcpPort);
                 checkIfFinished();
             });
@@ -342,7 +360,6 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         // each own executor for each network interface for other tools
         if (arpPingMethod == ArpPingUtilEnum.ELI_FULKERSON_ARP_PING_FOR_WINDOWS) {
             executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionARP_" + hostname + " ");
                 // arp-ping.exe tool capable of handling multiple interfaces by itself
                 performARPping("");
                 checkIfFinished();
@@ -350,7 +367,6 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         } else if (interfaceNames != null) {
             for (final String interfaceName : interfaceNames) {
                 executorService.execute(() -> {
-                    Thread.currentThread().setName("presenceDetectionARP_" + hostname + " " + interfaceName);
                     performARPping(interfaceName);
                     checkIfFinished();
                 });
@@ -361,7 +377,6 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         if (pingMethod != null) {
             executorService.execute(() -> {
                 if (pingMethod != IpPingMethodEnum.JAVA_PING) {
-                    Thread.currentThread().setName("presenceDetectionICMP_" + hostname);
                     performSystemPing();
                 } else {
                     performJavaPing();
@@ -389,7 +404,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         if (service == null) {
             return;
         }
-        // Finish the detection process
+        // Finish the detection process, cancelling the checks still running
         service.shutdownNow();
         executorService = null;
         detectionChecks = 0;
@@ -438,7 +453,8 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             return;
         }
         try {
-            // We may get interrupted here by cancelRefreshJob().
+            // We may get interrupted here by cancelRefreshJob(). The timeout only starts when all checks have started,
+            // they may have to wait for the checks of other things on the shared thread pool.
             service.awaitTermination(timeoutInMS + 100, TimeUnit.MILLISECONDS);
             submitFinalResult();
         } catch (InterruptedException e) {
@@ -594,6 +610,8 @@ public class PresenceDetection implements IPRequestReceivedCallback {
 
     /**
      * Start/Restart a fixed scheduled runner to update the devices reach-ability state.
+     * The first run is delayed randomly, so that things started at the same time do not
+     * perform their detections at the same time.
      *
      * @param scheduledExecutorService A scheduler to run pings periodically.
      */
@@ -602,8 +620,10 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         if (future != null && !future.isDone()) {
             future.cancel(true);
         }
-        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true), 0,
-                refreshIntervalInMS, TimeUnit.MILLISECONDS);
+        long maxJitter = Math.min(refreshIntervalInMS, MAX_REFRESH_JITTER_IN_MS);
+        long initialDelay = maxJitter > 0 ? ThreadLocalRandom.current().nextLong(maxJitter) : 0;
+        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true),
+                initialDelay, refreshIntervalInMS, TimeUnit.MILLISECONDS);
     }
 
     /**
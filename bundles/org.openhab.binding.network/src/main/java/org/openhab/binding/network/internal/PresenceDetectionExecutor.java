@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.NamedThreadFactory;
+
+/**
+ * Runs the checks of all presence detections on one shared thread pool of fixed size, so that the number of threads
+ * (and of concurrently running ping processes) does not grow with the number of things.
+ *
+ * Each presence detection gets a {@link TaskGroup}, an {@link java.util.concurrent.ExecutorService} view of the
+ * shared pool. Shutting a group down only cancels the checks of that detection, and awaiting its termination only
+ * waits for them. Checks may wait in the queue of the shared pool while the checks of other things are running, so
+ * the timeout of awaiting the termination of a group only starts when all of its checks have started. If the pool is
+ * so busy that they do not start within {@link #MAX_QUEUE_WAIT_MILLIS}, awaiting the termination gives up anyway.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PresenceDetectionExecutor {
+
+    /**
+     * Checks mostly wait for network responses or ping processes, so use more threads than processors
+     */
+    static final int THREAD_COUNT = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+
+    /**
+     * How long awaiting the termination of a group waits for its queued checks to start, on top of the timeout
+     */
+    static final long MAX_QUEUE_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final ThreadPoolExecutor POOL = createPool();
+
+    private PresenceDetectionExecutor() {
+    }
+
+    private static ThreadPoolExecutor createPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("binding-network-presence", true));
+        // idle threads are stopped when no thing is detecting presence
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * @return a new task group running its tasks on the shared pool
+     */
+    public static TaskGroup newTaskGroup() {
+        return new TaskGroup(POOL, MAX_QUEUE_WAIT_MILLIS);
+    }
+
+    /**
+     * @param executor the executor running the tasks, e.g. a pool of its own for a network scan
+     * @return a new task group running its tasks on the given executor
+     */
+    public static TaskGroup newTaskGroup(Executor executor) {
+        return new TaskGroup(executor, MAX_QUEUE_WAIT_MILLIS);
+    }
+
+    /**
+     * The tasks of one presence detection, executed by a shared executor
+     */
+    public static class TaskGroup extends AbstractExecutorService {
+        private final Executor executor;
+        private final long maxQueueWaitNanos;
+
+        // all guarded by this
+        private final Set<FutureTask<?>> tasks = new HashSet<>();
+        private final Set<FutureTask<?>> queuedTasks = new HashSet<>();
+        private long lastTaskStartNanos;
+        private boolean shutdown;
+
+        TaskGroup(Executor executor, long maxQueueWaitMillis) {
+            this.executor = executor;
+            this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMillis);
+        }
+
+        @Override
+        public void execute(@Nullable Runnable command) {
+            if (command == null) {
+                throw new NullPointerException();
+            }
+            FutureTask<@Nullable Void> task = new FutureTask<@Nullable Void>(command, null) {
+                @Override
+                public void run() {
+                    taskStarted(this);
+                    super.run();
+                }
+
+                @Override
+                protected void done() {
+                    taskDone(this);
+                }
+            };
+            synchronized (this) {
+                if (shutdown) {
+                    throw new RejectedExecutionException("The presence detection is already finished");
+                }
+                tasks.add(task);
+                queuedTasks.add(task);
+            }
+            executor.execute(task);
+        }
+
+        private synchronized void taskStarted(FutureTask<?> task) {
+            if (queuedTasks.remove(task)) {
+                lastTaskStartNanos = System.nanoTime();
+                notifyAll();
+            }
+        }
+
+        private synchronized void taskDone(FutureTask<?> task) {
+            tasks.remove(task);
+            queuedTasks.remove(task);
+            notifyAll();
+        }
+
+        /**
+         * @return number of submitted tasks which are neither finished nor cancelled
+         */
+        public synchronized int getPendingTaskCount() {
+            return tasks.size();
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            shutdown = true;
+            notifyAll();
+        }
+
+        /**
+         * Cancels all pending tasks of this group and interrupts the running ones. The shared pool is not affected.
+         *
+         * @return always an empty list, the cancelled tasks are not returned
+         */
+        @Override
+        public List<Runnable> shutdownNow() {
+            List<FutureTask<?>> pending;
+            synchronized (this) {
+                shutdown = true;
+                pending = new ArrayList<>(tasks);
+            }
+            // cancelling calls taskDone, so do not hold the lock here
+            pending.forEach(task -> task.cancel(true));
+            return Collections.emptyList();
+        }
+
+        @Override
+        public synchronized boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public synchronized boolean isTerminated() {
+            return shutdown && tasks.isEmpty();
+        }
+
+        /**
+         * Blocks until all tasks have completed after a shutdown, or the timeout occurs. Unlike other executor
+         * services, the timeout only starts when the last task of this group has started to run, so tasks waiting in
+         * the queue of the shared pool do not use it up. Waiting for queued tasks to start is limited to the timeout
+         * plus the maximum queue wait of this group.
+         */
+        @Override
+        public synchronized boolean awaitTermination(long timeout, @Nullable TimeUnit unit)
+                throws InterruptedException {
+            long timeoutNanos = unit == null ? timeout : unit.toNanos(timeout);
+            long callNanos = System.nanoTime();
+            long queueDeadlineNanos = callNanos + timeoutNanos + maxQueueWaitNanos;
+            while (!isTerminated()) {
+                if (!queuedTasks.isEmpty()) {
+                    // the checks of other groups are running, the pool will start the queued tasks when they finish
+                    long queueWaitMillis = TimeUnit.NANOSECONDS.toMillis(queueDeadlineNanos - System.nanoTime());
+                    if (queueWaitMillis <= 0) {
+                        return false;
+                    }
+                    wait(queueWaitMillis);
+                    continue;
+                }
+                long startNanos = lastTaskStartNanos - callNanos > 0 ? lastTaskStartNanos : callNanos;
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(startNanos + timeoutNanos - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                wait(remainingMillis);
+            }
+            return true;
+        }
+    }
+}
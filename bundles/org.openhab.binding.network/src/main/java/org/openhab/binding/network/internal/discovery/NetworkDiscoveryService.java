@@ -14,13 +14,17 @@ package org.openhab.binding.network.internal.discovery;
 
 import static org.openhab.binding.network.internal.NetworkBindingConstants.*;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -30,9 +34,12 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.network.internal.NetworkBindingConfiguration;
 import org.openhab.binding.network.internal.PresenceDetection;
+import org.openhab.binding.network.internal.PresenceDetectionExecutor;
 import org.openhab.binding.network.internal.PresenceDetectionListener;
 import org.openhab.binding.network.internal.PresenceDetectionValue;
 import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.NetworkUtils.IpPingMethodEnum;
+import org.openhab.core.common.NamedThreadFactory;
 import org.openhab.core.config.core.Configuration;
 import org.openhab.core.config.discovery.AbstractDiscoveryService;
 import org.openhab.core.config.discovery.DiscoveryResultBuilder;
@@ -50,6 +57,10 @@ import org.slf4j.LoggerFactory;
  * the current Network. It uses every Network Interface which is connected to a network.
  * It tries common TCP ports to connect to, ICMP pings and ARP pings.
  *
+ * Devices in the ARP cache of the system are reported first. All hosts are then probed
+ * within one packet budget: the TCP ports by a {@link TcpProbeSweep}, and pings by presence
+ * detections on a thread pool of the scan. Results are reported as soon as they are found.
+ *
  * @author Marc Mettke - Initial contribution
  * @author David Graeff - Rewritten
  */
@@ -57,26 +68,46 @@ import org.slf4j.LoggerFactory;
 @Component(service = DiscoveryService.class, configurationPid = "discovery.network")
 public class NetworkDiscoveryService extends AbstractDiscoveryService implements PresenceDetectionListener {
     static final int PING_TIMEOUT_IN_MS = 500;
-    static final int MAXIMUM_IPS_PER_INTERFACE = 255;
+    // hosts pinged at the same time, each ping needs one more thread per check
+    static final int PING_THREADS = 64;
+    // a /16 network
+    static final int MAXIMUM_IPS_PER_INTERFACE = 65535;
+    static final String CONFIG_PROBES_PER_SECOND = "probesPerSecond";
+    static final int DEFAULT_PROBES_PER_SECOND = 1000;
     private static final long DISCOVERY_RESULT_TTL = TimeUnit.MINUTES.toSeconds(10);
     private final Logger logger = LoggerFactory.getLogger(NetworkDiscoveryService.class);
 
     // TCP port 548 (Apple Filing Protocol (AFP))
     // TCP port 554 (Windows share / Linux samba)
     // TCP port 1025 (Xbox / MS-RPC)
-    private Set<Integer> tcpServicePorts = Collections
+    private static final Set<Integer> DISCOVERY_TCP_PORTS = Collections
             .unmodifiableSet(Stream.of(80, 548, 554, 1025).collect(Collectors.toSet()));
-    private AtomicInteger scannedIPcount = new AtomicInteger(0);
-    private @Nullable ExecutorService executorService = null;
+    private volatile @Nullable Scan scan = null;
+    private volatile int probesPerSecond = DEFAULT_PROBES_PER_SECOND;
     private final NetworkBindingConfiguration configuration = new NetworkBindingConfiguration();
     private final NetworkUtils networkUtils = new NetworkUtils();
 
     public NetworkDiscoveryService() {
-        super(SUPPORTED_THING_TYPES_UIDS, (int) Math.round(
-                new NetworkUtils().getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE).size() * (PING_TIMEOUT_IN_MS / 1000.0)),
+        super(SUPPORTED_THING_TYPES_UIDS, estimateScanTimeout(
+                new NetworkUtils().getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE).size(), DEFAULT_PROBES_PER_SECOND),
                 false);
     }
 
+    private static int estimateScanTimeout(int ipCount, int probesPerSecond) {
+        // one ICMP ping and usually one ARP ping next to the TCP probes, and time for the pings to finish
+        long sendMillis = TcpProbeSweep.estimateDurationInMS(ipCount, DISCOVERY_TCP_PORTS.size() + 2, probesPerSecond,
+                PING_TIMEOUT_IN_MS);
+        // pings of unreachable hosts keep their thread busy until the timeout
+        long pingMillis = (long) ipCount * PING_TIMEOUT_IN_MS / PING_THREADS;
+        long millis = Math.max(sendMillis, pingMillis) + 5 * PING_TIMEOUT_IN_MS;
+        return (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(millis) + 1);
+    }
+
+    @Override
+    public int getScanTimeout() {
+        return estimateScanTimeout(networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE).size(), probesPerSecond);
+    }
+
     @Override
     @Activate
     public void activate(@Nullable Map<String, Object> config) {
@@ -92,13 +123,22 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
         // configuration, the values are automatically available in all handlers. Because they all
         // share the same instance.
         configuration.update(new Configuration(config).as(NetworkBindingConfiguration.class));
+
+        Object rate = config == null ? null : config.get(CONFIG_PROBES_PER_SECOND);
+        try {
+            probesPerSecond = rate == null ? DEFAULT_PROBES_PER_SECOND : Integer.parseInt(rate.toString());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid {} '{}', using {}", CONFIG_PROBES_PER_SECOND, rate, DEFAULT_PROBES_PER_SECOND);
+            probesPerSecond = DEFAULT_PROBES_PER_SECOND;
+        }
     }
 
     @Override
     @Deactivate
     protected void deactivate() {
-        if (executorService != null) {
-            executorService.shutdown();
+        Scan localScan = scan;
+        if (localScan != null) {
+            localScan.stop();
         }
         super.deactivate();
     }
@@ -118,65 +158,122 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
 
     @Override
     public void finalDetectionResult(PresenceDetectionValue value) {
+        // the ping threads of a scan wait for their presence detections to finish, see pingHosts()
     }
 
     /**
-     * Starts the DiscoveryThread for each IP on each interface on the network
+     * Reports the devices of the ARP cache and starts probing every IP on each interface on the network
      */
     @Override
-    protected void startScan() {
-        if (executorService == null) {
-            executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
-        }
-        final ExecutorService service = executorService;
-        if (service == null) {
+    protected synchronized void startScan() {
+        if (scan != null) {
+            logger.debug("Network Device Discovery is already running");
             return;
         }
         removeOlderResults(getTimestampOfLastScan(), null);
         logger.trace("Starting Network Device Discovery");
 
         final Set<String> networkIPs = networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE);
-        scannedIPcount.set(0);
-
-        for (String ip : networkIPs) {
-            final PresenceDetection s = new PresenceDetection(this, 2000);
-            s.setHostname(ip);
-            s.setIOSDevice(true);
-            s.setUseDhcpSniffing(false);
-            s.setTimeout(PING_TIMEOUT_IN_MS);
-            // Ping devices
-            s.setUseIcmpPing(true);
-            s.setUseArpPing(true, configuration.arpPingToolPath, configuration.arpPingUtilMethod);
-            // TCP devices
-            s.setServicePorts(tcpServicePorts);
-
-            service.execute(() -> {
-                Thread.currentThread().setName("Discovery thread " + ip);
-                s.performPresenceDetection(true);
-                int count = scannedIPcount.incrementAndGet();
-                if (count == networkIPs.size()) {
-                    logger.trace("Scan of {} IPs successful", scannedIPcount);
-                    stopScan();
-                }
-            });
+        // Devices which have been reachable recently do not need to be pinged
+        final Set<String> arpCacheIPs = new HashSet<>(networkUtils.getArpCacheIPs());
+        arpCacheIPs.retainAll(networkIPs);
+        arpCacheIPs.forEach(this::newPingDevice);
+        logger.trace("Found {} devices in the ARP cache", arpCacheIPs.size());
+        final List<String> pingIPs = new ArrayList<>(networkIPs);
+        pingIPs.removeAll(arpCacheIPs);
+
+        // Feature tests are done once per scan, not once per IP
+        final IpPingMethodEnum pingMethod = networkUtils.determinePingMethod();
+        final int pingsPerHost = 1 + networkUtils.getInterfaceNames().size();
+
+        // The TCP probes and the pings share one packet budget, which they use when the packets are sent
+        final PacketRateLimiter rateLimiter = new PacketRateLimiter(probesPerSecond,
+                Math.max(DISCOVERY_TCP_PORTS.size(), pingsPerHost));
+        final Scan localScan = new Scan(pingIPs);
+        final TcpProbeSweep localSweep = new TcpProbeSweep(networkIPs, DISCOVERY_TCP_PORTS, PING_TIMEOUT_IN_MS,
+                rateLimiter, new TcpProbeSweep.Listener() {
+                    @Override
+                    public void serviceFound(String host, int port) {
+                        newServiceDevice(host, port);
+                    }
+
+                    @Override
+                    public void sweepFinished() {
+                        taskFinished(localScan);
+                    }
+                });
+        localScan.sweep = localSweep;
+        scan = localScan;
+        for (int i = 0; i < PING_THREADS; i++) {
+            localScan.pool.execute(() -> pingHosts(localScan, pingMethod, pingsPerHost, rateLimiter));
+        }
+        localSweep.start();
+    }
+
+    /**
+     * Ping the hosts of a scan one after another, until all hosts have been pinged or the scan is stopped
+     */
+    private void pingHosts(Scan localScan, IpPingMethodEnum pingMethod, int pingsPerHost,
+            PacketRateLimiter rateLimiter) {
+        try {
+            String ip;
+            while ((ip = localScan.nextHost()) != null) {
+                rateLimiter.acquire(pingsPerHost);
+                ping(localScan, ip, pingMethod);
+            }
+        } catch (InterruptedException | RejectedExecutionException e) {
+            // the scan has been stopped
+        } finally {
+            taskFinished(localScan);
+        }
+    }
+
+    /**
+     * Ping a device by ICMP and ARP pings, and wait for the pings to finish. Results are received
+     * by {@link #partialDetectionResult(PresenceDetectionValue)}.
+     */
+    private void ping(Scan localScan, String ip, IpPingMethodEnum pingMethod) {
+        final PresenceDetection s = new PresenceDetection(this, 2000) {
+            @Override
+            public ExecutorService getThreadsFor(int checkCount) {
+                // the pings of a scan must not delay the presence detection of things
+                return PresenceDetectionExecutor.newTaskGroup(localScan.pool);
+            }
+        };
+        s.setHostname(ip);
+        s.setIOSDevice(true);
+        s.setUseDhcpSniffing(false);
+        s.setTimeout(PING_TIMEOUT_IN_MS);
+        // Ping devices, TCP services are probed by the sweep
+        s.setIcmpPingMethod(pingMethod);
+        s.setUseArpPing(true, configuration.arpPingToolPath, configuration.arpPingUtilMethod);
+        s.setServicePorts(Collections.emptySet());
+        s.performPresenceDetection(true);
+    }
+
+    private void taskFinished(Scan localScan) {
+        if (localScan.runningTasks.decrementAndGet() > 0) {
+            return;
+        }
+        synchronized (this) {
+            // a stopped scan may finish after a new one has been started
+            if (scan == localScan) {
+                logger.trace("Network Device Discovery finished");
+                stopScan();
+            }
         }
     }
 
     @Override
     protected synchronized void stopScan() {
         super.stopScan();
-        final ExecutorService service = executorService;
-        if (service == null) {
+        Scan localScan = scan;
+        if (localScan == null) {
             return;
         }
-
-        try {
-            service.awaitTermination(PING_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Reset interrupt flag
-        }
-        service.shutdown();
-        executorService = null;
+        // Cancels the TCP probes and pings still waiting or running
+        localScan.stop();
+        scan = null;
     }
 
     public static ThingUID createServiceUID(String ip, int tcpPort) {
@@ -240,4 +337,34 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
         thingDiscovered(DiscoveryResultBuilder.create(createPingUID(ip)).withTTL(DISCOVERY_RESULT_TTL)
                 .withProperties(properties).withLabel("Network Device (" + ip + ")").build());
     }
+
+    /**
+     * The state of one scan, so that the threads of a stopped scan cannot affect the next one
+     */
+    private static class Scan {
+        // the sweep and one task per ping thread
+        private final AtomicInteger runningTasks = new AtomicInteger(PING_THREADS + 1);
+        private final ExecutorService pool = Executors
+                .newCachedThreadPool(new NamedThreadFactory("binding-network-discovery", true));
+        private final Iterator<String> hosts;
+        private volatile @Nullable TcpProbeSweep sweep;
+        private volatile boolean stopped;
+
+        private Scan(List<String> hosts) {
+            this.hosts = hosts.iterator();
+        }
+
+        private synchronized @Nullable String nextHost() {
+            return !stopped && hosts.hasNext() ? hosts.next() : null;
+        }
+
+        private void stop() {
+            stopped = true;
+            TcpProbeSweep localSweep = sweep;
+            if (localSweep != null) {
+                localSweep.stop();
+            }
+            pool.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Limits the number of packets sent per second by all probes of a network scan. Packets are counted when they are
+ * about to be sent, so probes waiting for a free thread do not use up the budget.
+ *
+ * This is a token bucket: it refills at {@code packetsPerSecond} and holds at most {@code burst} tokens, so a pause of
+ * the scan never allows more than {@code burst} packets at once afterwards.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PacketRateLimiter {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final int packetsPerSecond;
+    private final int burst;
+
+    // guarded by this; negative while packets are reserved by waiting threads
+    private double tokens;
+    private long refillNanos = System.nanoTime();
+
+    /**
+     * @param packetsPerSecond maximum number of packets sent per second, or 0 for no limit
+     * @param burst number of packets which may be sent at once, e.g. all probes of one host
+     */
+    public PacketRateLimiter(int packetsPerSecond, int burst) {
+        this.packetsPerSecond = Math.max(0, packetsPerSecond);
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+    }
+
+    /**
+     * Takes the permits for sending packets if they are available right now
+     *
+     * @param packets number of packets to send
+     * @return true if the packets may be sent now, false if nothing has been taken
+     */
+    public synchronized boolean tryAcquire(int packets) {
+        if (packetsPerSecond == 0) {
+            return true;
+        }
+        refill();
+        if (tokens < packets) {
+            return false;
+        }
+        tokens -= packets;
+        return true;
+    }
+
+    /**
+     * Takes the permits for sending packets, waiting until they are available
+     *
+     * @param packets number of packets to send
+     * @throws InterruptedException if interrupted while waiting, the permits are used up anyway
+     */
+    public void acquire(int packets) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            if (packetsPerSecond == 0) {
+                return;
+            }
+            refill();
+            // reserve the packets now, so that waiting threads are served in order
+            tokens -= packets;
+            waitNanos = tokens < 0 ? (long) Math.ceil(-tokens * NANOS_PER_SECOND / packetsPerSecond) : 0;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refillNanos) * packetsPerSecond / NANOS_PER_SECOND);
+        refillNanos = now;
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Probes the TCP ports of many hosts with non-blocking connection attempts, which are multiplexed over one
+ * {@link Selector} by a single thread. The probes of new hosts are started within the packet budget of a
+ * {@link PacketRateLimiter}, and open ports are reported as soon as a connection has been established.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class TcpProbeSweep {
+
+    /**
+     * Maximum number of connection attempts in progress, each of them needs a socket
+     */
+    static final int MAX_PENDING_CONNECTIONS = 256;
+    private static final long SELECT_INTERVAL_MS = 10;
+
+    /**
+     * Receives the progress of a sweep. All methods are called by the thread of the sweep.
+     */
+    public interface Listener {
+        /**
+         * A connection to the port of the host has been established
+         *
+         * @param host the host
+         * @param port the open port
+         */
+        void serviceFound(String host, int port);
+
+        /**
+         * All probes are finished, or the sweep has been stopped
+         */
+        void sweepFinished();
+    }
+
+    private static class Probe {
+        private final String host;
+        private final int port;
+        private final long deadlineNanos;
+
+        private Probe(String host, int port, long deadlineNanos) {
+            this.host = host;
+            this.port = port;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(TcpProbeSweep.class);
+
+    private final List<String> hosts;
+    private final List<Integer> ports;
+    private final long timeoutNanos;
+    private final PacketRateLimiter rateLimiter;
+    private final Listener listener;
+
+    private volatile boolean stopped;
+    private volatile @Nullable Selector selector;
+
+    /**
+     * @param hosts the IP addresses to probe
+     * @param ports the TCP ports to probe on each host
+     * @param timeoutInMS time to wait for a connection to be established
+     * @param rateLimiter the packet budget, which may be shared with other probes of the hosts
+     * @param listener receives the results
+     */
+    public TcpProbeSweep(Collection<String> hosts, Collection<Integer> ports, int timeoutInMS,
+            PacketRateLimiter rateLimiter, Listener listener) {
+        if (ports.size() > MAX_PENDING_CONNECTIONS) {
+            throw new IllegalArgumentException("Too many ports to probe: " + ports.size());
+        }
+        this.hosts = new ArrayList<>(hosts);
+        this.ports = new ArrayList<>(ports);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutInMS);
+        this.rateLimiter = rateLimiter;
+        this.listener = listener;
+    }
+
+    /**
+     * Start the sweep on a new thread
+     */
+    public void start() {
+        Thread thread = new Thread(this::run, "OH-binding-network-discovery");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the sweep, closing all pending connection attempts
+     */
+    public void stop() {
+        stopped = true;
+        Selector localSelector = selector;
+        if (localSelector != null) {
+            localSelector.wakeup();
+        }
+    }
+
+    /**
+     * Estimate the duration of a sweep
+     *
+     * @param hostCount number of hosts
+     * @param packetsPerHost packets sent to each host
+     * @param packetsPerSecond maximum number of packets sent per second, or 0 for no limit
+     * @param timeoutInMS time to wait for a response
+     * @return the duration in milliseconds
+     */
+    public static long estimateDurationInMS(int hostCount, int packetsPerHost, int packetsPerSecond,
+            int timeoutInMS) {
+        long sendMillis = packetsPerSecond > 0 ? (long) hostCount * packetsPerHost * 1000 / packetsPerSecond : 0;
+        return sendMillis + timeoutInMS;
+    }
+
+    void run() {
+        try (Selector localSelector = Selector.open()) {
+            selector = localSelector;
+            Iterator<String> remainingHosts = hosts.iterator();
+            int hostsProbed = 0;
+            while (!stopped && (remainingHosts.hasNext() || !localSelector.keys().isEmpty())) {
+                long now = System.nanoTime();
+                while (remainingHosts.hasNext() && localSelector.keys().size() + ports.size() <= MAX_PENDING_CONNECTIONS
+                        && rateLimiter.tryAcquire(ports.size())) {
+                    String host = remainingHosts.next();
+                    hostsProbed++;
+                    for (int port : ports) {
+                        connect(localSelector, host, port, now + timeoutNanos);
+                    }
+                }
+
+                localSelector.select(SELECT_INTERVAL_MS);
+                Iterator<SelectionKey> selectedKeys = localSelector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    finishConnect(key);
+                }
+                expire(localSelector, System.nanoTime());
+            }
+            logger.trace("TCP probes of {} hosts finished", hostsProbed);
+            for (SelectionKey key : localSelector.keys()) {
+                close(key);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not probe TCP services: {}", e.getMessage());
+        } finally {
+            selector = null;
+            listener.sweepFinished();
+        }
+    }
+
+    private void connect(Selector localSelector, String host, int port, long deadlineNanos) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            if (channel.connect(new InetSocketAddress(host, port))) {
+                channel.close();
+                listener.serviceFound(host, port);
+                return;
+            }
+            channel.register(localSelector, SelectionKey.OP_CONNECT, new Probe(host, port, deadlineNanos));
+        } catch (IOException | UnresolvedAddressException e) {
+            logger.trace("Could not connect to {}:{}: {}", host, port, e.getMessage());
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private void finishConnect(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Probe probe = (Probe) key.attachment();
+        try {
+            if (!channel.finishConnect()) {
+                return;
+            }
+            listener.serviceFound(probe.host, probe.port);
+        } catch (IOException e) {
+            // connection refused or host unreachable
+        }
+        close(key);
+    }
+
+    private void expire(Selector localSelector, long now) {
+        for (SelectionKey key : localSelector.keys()) {
+            Probe probe = (Probe) key.attachment();
+            if (key.isValid() && now - probe.deadlineNanos > 0) {
+                close(key);
+            }
+        }
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+        }
+    }
+}
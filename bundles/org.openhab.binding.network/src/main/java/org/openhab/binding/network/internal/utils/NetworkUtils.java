@@ -28,10 +28,15 @@ import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -54,6 +59,10 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 public class NetworkUtils {
+    private static final Path ARP_CACHE = Paths.get("/proc/net/arp");
+    private static final String ARP_FLAG_INCOMPLETE = "0x0";
+    private static final String ARP_NO_HW_ADDRESS = "00:00:00:00:00:00";
+
     private final Logger logger = LoggerFactory.getLogger(NetworkUtils.class);
 
     private LatencyParser latencyParser = new LatencyParser();
@@ -147,6 +156,43 @@ public class NetworkUtils {
         return networkIPs;
     }
 
+    /**
+     * Returns the IPv4 addresses in the ARP cache of the kernel which have been resolved to a hardware address.
+     * These devices have been reachable recently. Only supported on Linux, other systems return an empty set.
+     *
+     * @return IPv4 addresses of the ARP cache
+     */
+    public Set<String> getArpCacheIPs() {
+        if (!Files.isReadable(ARP_CACHE)) {
+            return Collections.emptySet();
+        }
+        try {
+            return parseArpCache(Files.readAllLines(ARP_CACHE));
+        } catch (IOException e) {
+            logger.debug("Could not read the ARP cache: {}", e.getMessage());
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * Parses the content of /proc/net/arp. The first line is the header, the columns of each following line are
+     * IP address, HW type, Flags, HW address, Mask and Device.
+     *
+     * @param lines lines of the ARP cache
+     * @return IP addresses with a resolved hardware address
+     */
+    static Set<String> parseArpCache(List<String> lines) {
+        Set<String> result = new HashSet<>();
+        for (int i = 1; i < lines.size(); i++) {
+            String[] columns = lines.get(i).trim().split("\\s+");
+            if (columns.length >= 4 && !ARP_FLAG_INCOMPLETE.equals(columns[2])
+                    && !ARP_NO_HW_ADDRESS.equals(columns[3])) {
+                result.add(columns[0]);
+            }
+        }
+        return result;
+    }
+
     /**
      * Try to establish a tcp connection to the given port. Returns false if a timeout occurred
      * or the connection was denied.
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.network.internal.PresenceDetectionExecutor.TaskGroup;
+
+/**
+ * Tests cases for {@see PresenceDetectionExecutor}
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceDetectionExecutorTest {
+
+    private final List<Runnable> queued = new ArrayList<>();
+    private final TaskGroup group = new TaskGroup(queued::add, PresenceDetectionExecutor.MAX_QUEUE_WAIT_MILLIS);
+
+    @Test
+    public void tasksRunOnSharedExecutor() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        group.execute(runs::incrementAndGet);
+        group.execute(runs::incrementAndGet);
+
+        assertThat(queued.size(), is(2));
+        assertThat(group.getPendingTaskCount(), is(2));
+
+        queued.forEach(Runnable::run);
+        assertThat(runs.get(), is(2));
+        assertThat(group.getPendingTaskCount(), is(0));
+
+        // not terminated before shutdown, like any other executor service
+        assertFalse(group.awaitTermination(10, TimeUnit.MILLISECONDS));
+        group.shutdown();
+        assertTrue(group.awaitTermination(10, TimeUnit.MILLISECONDS));
+        assertThrows(RejectedExecutionException.class, () -> group.execute(runs::incrementAndGet));
+    }
+
+    @Test
+    public void shutdownNowCancelsPendingTasks() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        group.execute(runs::incrementAndGet);
+        group.execute(runs::incrementAndGet);
+        queued.get(0).run();
+
+        group.shutdownNow();
+        assertTrue(group.isTerminated());
+        assertTrue(group.awaitTermination(0, TimeUnit.MILLISECONDS));
+
+        // the shared executor still runs the cancelled task, which does nothing then
+        queued.get(1).run();
+        assertThat(runs.get(), is(1));
+    }
+
+    @Test
+    public void groupsAreIndependent() {
+        assertTrue(PresenceDetectionExecutor.THREAD_COUNT >= 16);
+        TaskGroup first = PresenceDetectionExecutor.newTaskGroup();
+        TaskGroup second = PresenceDetectionExecutor.newTaskGroup();
+        first.shutdownNow();
+        assertTrue(first.isShutdown());
+        assertFalse(second.isShutdown());
+    }
+
+    @Test
+    public void queuedTasksDoNotUseUpTheTimeout() throws Exception {
+        // one thread, blocked by the check of another thing, so that the check of this group waits in the queue
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        ExecutorService awaiting = Executors.newSingleThreadExecutor();
+        CountDownLatch blockerStarted = new CountDownLatch(1);
+        CountDownLatch releaseBlocker = new CountDownLatch(1);
+        try {
+            TaskGroup other = new TaskGroup(pool, PresenceDetectionExecutor.MAX_QUEUE_WAIT_MILLIS);
+            other.execute(() -> {
+                blockerStarted.countDown();
+                try {
+                    releaseBlocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(blockerStarted.await(10, TimeUnit.SECONDS));
+
+            TaskGroup taskGroup = new TaskGroup(pool, PresenceDetectionExecutor.MAX_QUEUE_WAIT_MILLIS);
+            taskGroup.execute(() -> {
+            });
+            taskGroup.shutdown();
+            Future<Boolean> terminated = awaiting.submit(() -> taskGroup.awaitTermination(100, TimeUnit.MILLISECONDS));
+
+            // still waiting for the queued check long after the timeout
+            Thread.sleep(500);
+            assertFalse(terminated.isDone());
+
+            releaseBlocker.countDown();
+            assertTrue(terminated.get(10, TimeUnit.SECONDS));
+        } finally {
+            releaseBlocker.countDown();
+            awaiting.shutdownNow();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitingForQueuedTasksIsLimited() throws InterruptedException {
+        TaskGroup taskGroup = new TaskGroup(queued::add, 50);
+        taskGroup.execute(() -> {
+        });
+        taskGroup.shutdown();
+
+        // the shared executor never starts the task
+        assertFalse(taskGroup.awaitTermination(10, TimeUnit.MILLISECONDS));
+        assertThat(taskGroup.getPendingTaskCount(), is(1));
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests cases for {@see PacketRateLimiter}
+ *
+ * @author agent - Initial contribution
+ */
+public class PacketRateLimiterTest {
+
+    @Test
+    public void burstIsAllowedRightAway() {
+        PacketRateLimiter rateLimiter = new PacketRateLimiter(1, 4);
+
+        assertThat(rateLimiter.tryAcquire(4), is(true));
+        assertThat(rateLimiter.tryAcquire(1), is(false));
+    }
+
+    @Test
+    public void noLimit() {
+        PacketRateLimiter rateLimiter = new PacketRateLimiter(0, 1);
+
+        assertThat(rateLimiter.tryAcquire(1000), is(true));
+        assertThat(rateLimiter.tryAcquire(1000), is(true));
+    }
+
+    @Test
+    public void acquireWaitsForThePermits() throws InterruptedException {
+        PacketRateLimiter rateLimiter = new PacketRateLimiter(100, 10);
+        long start = System.nanoTime();
+
+        rateLimiter.acquire(10);
+        rateLimiter.acquire(10);
+
+        // the second 10 packets are due after 100 ms
+        assertTrue(System.nanoTime() - start >= 90_000_000L);
+        // and the permits taken by waiting threads are not available to others
+        assertThat(rateLimiter.tryAcquire(5), is(false));
+    }
+
+    @Test
+    public void idleTimeDoesNotAddUpBeyondTheBurst() throws InterruptedException {
+        PacketRateLimiter rateLimiter = new PacketRateLimiter(1, 5);
+        Thread.sleep(300);
+
+        int sent = 0;
+        for (int i = 0; i < 100; i++) {
+            if (rateLimiter.tryAcquire(1)) {
+                sent++;
+            }
+        }
+        assertThat(sent, is(5));
+    }
+
+    @Test
+    public void acquireAfterIdleTimeWaitsOnceTheBurstIsUsedUp() throws InterruptedException {
+        PacketRateLimiter rateLimiter = new PacketRateLimiter(100, 10);
+        Thread.sleep(300);
+        long start = System.nanoTime();
+
+        rateLimiter.acquire(10);
+        rateLimiter.acquire(10);
+
+        // the idle time only refilled the burst, the second 10 packets are still due after 100 ms
+        assertTrue(System.nanoTime() - start >= 90_000_000L);
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests cases for {@see TcpProbeSweep}
+ *
+ * @author agent - Initial contribution
+ */
+public class TcpProbeSweepTest {
+
+    private static class RecordingListener implements TcpProbeSweep.Listener {
+        private final List<String> services = new ArrayList<>();
+        private int finished;
+
+        @Override
+        public void serviceFound(String host, int port) {
+            services.add(host + ":" + port);
+        }
+
+        @Override
+        public void sweepFinished() {
+            finished++;
+        }
+    }
+
+    @Test
+    public void openPortIsFound() throws IOException {
+        int closedPort;
+        try (ServerSocket closed = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            closedPort = closed.getLocalPort();
+        }
+        try (ServerSocket open = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            RecordingListener listener = new RecordingListener();
+            TcpProbeSweep sweep = new TcpProbeSweep(Collections.singletonList("127.0.0.1"),
+                    Arrays.asList(open.getLocalPort(), closedPort), 2000, new PacketRateLimiter(0, 1), listener);
+
+            sweep.run();
+
+            assertThat(listener.services, is(Collections.singletonList("127.0.0.1:" + open.getLocalPort())));
+            assertThat(listener.finished, is(1));
+        }
+    }
+
+    @Test
+    public void stoppedSweepFinishes() {
+        RecordingListener listener = new RecordingListener();
+        PacketRateLimiter rateLimiter = new PacketRateLimiter(1, 1);
+        TcpProbeSweep sweep = new TcpProbeSweep(Arrays.asList("127.0.0.1", "127.0.0.2"), Collections.singletonList(1),
+                100, rateLimiter, listener);
+        sweep.stop();
+
+        sweep.run();
+
+        // no packet has been sent
+        assertThat(rateLimiter.tryAcquire(1), is(true));
+        assertThat(listener.services.size(), is(0));
+        assertThat(listener.finished, is(1));
+    }
+
+    @Test
+    public void durationEstimate() {
+        // a /24 network with 4 TCP ports and 2 pings per host at 1000 packets per second
+        assertThat(TcpProbeSweep.estimateDurationInMS(254, 6, 1000, 500), is(1524L + 500L));
+        assertThat(TcpProbeSweep.estimateDurationInMS(254, 6, 0, 500), is(500L));
+    }
+
+    @Test
+    public void tooManyPorts() {
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i <= TcpProbeSweep.MAX_PENDING_CONNECTIONS; i++) {
+            ports.add(i + 1);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new TcpProbeSweep(Collections.singletonList("127.0.0.1"),
+                ports, 100, new PacketRateLimiter(0, 1), new RecordingListener()));
+    }
+}
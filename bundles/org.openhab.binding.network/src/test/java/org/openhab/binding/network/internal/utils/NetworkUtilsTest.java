@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests cases for {@see NetworkUtils}
+ *
+ * @author agent - Initial contribution
+ */
+public class NetworkUtilsTest {
+
+    @Test
+    public void parseArpCache() {
+        assertThat(NetworkUtils.parseArpCache(Arrays.asList(
+                "IP address       HW type     Flags       HW address            Mask     Device",
+                "192.168.0.1      0x1         0x2         f4:b5:20:01:02:03     *        eth0",
+                "192.168.0.17     0x1         0x0         00:00:00:00:00:00     *        eth0",
+                "192.168.0.23     0x1         0x2         a8:5e:45:0a:0b:0c     *        eth0")),
+                is(new HashSet<>(Arrays.asList("192.168.0.1", "192.168.0.23"))));
+    }
+
+    @Test
+    public void parseEmptyArpCache() {
+        assertThat(NetworkUtils.parseArpCache(Collections.emptyList()), is(Collections.emptySet()));
+        assertThat(NetworkUtils.parseArpCache(Collections
+                .singletonList("IP address       HW type     Flags       HW address            Mask     Device")),
+                is(Collections.emptySet()));
+    }
+}
@@ -18,7 +18,7 @@ import java.time.ZonedDateTime;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -30,7 +30,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Abstract class for buffered persistence services
+ * Abstract class for buffered persistence services. {@link #store(Item, String)} only adds the item to the buffer,
+ * the buffered data is written by the flusher of the implementation, so the calling thread never waits for the
+ * database. If the buffer is full, the data is discarded rather than waiting for the flusher.
  *
  * @param <T> Type of the state as accepted by the AWS SDK.
  *
@@ -41,15 +43,18 @@ import org.slf4j.LoggerFactory;
 @NonNullByDefault
 public abstract class AbstractBufferedPersistenceService<T> implements PersistenceService {
 
-    private static final long BUFFER_OFFER_TIMEOUT_MILLIS = 500;
+    // buffer capacity when every item is written immediately, only needed to bridge a slow write
+    private static final int WRITE_IMMEDIATELY_BUFFER_CAPACITY = 1000;
 
     private final Logger logger = LoggerFactory.getLogger(AbstractBufferedPersistenceService.class);
     protected @Nullable BlockingQueue<T> buffer;
+    // number of items discarded since the buffer was full the last time
+    private final AtomicLong discardedItems = new AtomicLong();
 
     private boolean writeImmediately;
 
     protected void resetWithBufferSize(int bufferSize) {
-        int capacity = Math.max(1, bufferSize);
+        int capacity = bufferSize == 0 ? WRITE_IMMEDIATELY_BUFFER_CAPACITY : Math.max(1, bufferSize);
         buffer = new ArrayBlockingQueue<>(capacity, true);
         writeImmediately = bufferSize == 0;
     }
@@ -58,8 +63,16 @@ public abstract class AbstractBufferedPersistenceService<T> implements Persisten
 
     protected abstract boolean isReadyToStore();
 
+    /**
+     * Writes all buffered data. Called by the flusher only.
+     */
     protected abstract void flushBufferedData();
 
+    /**
+     * Asks the flusher to write the buffered data as soon as possible. Must not block.
+     */
+    protected abstract void requestFlush();
+
     @Override
     public void store(Item item) {
         store(item, null);
@@ -76,6 +89,7 @@ public abstract class AbstractBufferedPersistenceService<T> implements Persisten
         if (!isReadyToStore()) {
             return;
         }
+        BlockingQueue<T> buffer = this.buffer;
         if (buffer == null) {
             throw new IllegalStateException("Buffer not initialized with resetWithBufferSize. Bug?");
         }
@@ -85,45 +99,24 @@ public abstract class AbstractBufferedPersistenceService<T> implements Persisten
         State state = item.getState();
         T persistenceItem = persistenceItemFromState(name, state, time);
         logger.trace("store() called with item {}, which was converted to {} [{}]", item, persistenceItem, uuid);
-        if (writeImmediately) {
-            logger.debug("Writing immediately item {} [{}]", realName, uuid);
-            // We want to write everything immediately
-            // Synchronous behavior to ensure buffer does not get full.
-            synchronized (this) {
-                boolean buffered = addToBuffer(persistenceItem);
-                assert buffered;
-                flushBufferedData();
+        if (buffer.offer(persistenceItem)) {
+            if (writeImmediately || buffer.remainingCapacity() == 0) {
+                requestFlush();
             }
-        } else {
-            long bufferStart = System.currentTimeMillis();
-            boolean buffered = addToBuffer(persistenceItem);
-            if (buffered) {
-                logger.debug("Buffered item {} in {} ms. Total time for store(): {} [{}]", realName,
-                        System.currentTimeMillis() - bufferStart, System.currentTimeMillis() - storeStart, uuid);
-            } else {
-                logger.debug(
-                        "Buffer is full. Writing buffered data immediately and trying again. Consider increasing bufferSize");
-                // Buffer is full, commit it immediately
-                flushBufferedData();
-                boolean buffered2 = addToBuffer(persistenceItem);
-                if (buffered2) {
-                    logger.debug("Buffered item in {} ms (2nd try, flushed buffer in-between) [{}]",
-                            System.currentTimeMillis() - bufferStart, uuid);
-                } else {
-                    // The unlikely case happened -- buffer got full again immediately
-                    logger.warn("Buffering failed for the second time -- Too small bufferSize? Discarding data [{}]",
-                            uuid);
-                }
+            if (discardedItems.get() > 0) {
+                logger.warn("Buffering again, {} items have been discarded while the buffer was full",
+                        discardedItems.getAndSet(0));
             }
+            logger.debug("Buffered item {} in {} ms [{}]", realName, System.currentTimeMillis() - storeStart, uuid);
+            return;
         }
-    }
-
-    protected boolean addToBuffer(T persistenceItem) {
-        try {
-            return buffer != null && buffer.offer(persistenceItem, BUFFER_OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            logger.warn("Interrupted when trying to buffer data! Dropping data");
-            return false;
+        // The flusher could not keep up, most likely DynamoDB is throttling or not reachable
+        requestFlush();
+        if (discardedItems.incrementAndGet() == 1) {
+            logger.warn("Buffer is full, discarding data until it has been flushed -- Too small bufferSize? [{}]",
+                    uuid);
+        } else {
+            logger.debug("Buffer is full, discarding item {} [{}]", realName, uuid);
         }
     }
 }
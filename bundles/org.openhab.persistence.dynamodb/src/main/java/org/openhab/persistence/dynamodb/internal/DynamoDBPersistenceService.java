@@ -23,10 +23,16 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -55,15 +61,17 @@ import org.slf4j.LoggerFactory;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperTableModel;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
-import com.amazonaws.services.dynamodbv2.document.BatchWriteItemOutcome;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndex;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.TableStatus;
@@ -76,6 +84,9 @@ import com.amazonaws.services.dynamodbv2.model.WriteRequest;
  *
  * The service creates tables automatically, one for numbers, and one for strings.
  *
+ * Item values are buffered and written by a single flusher thread with BatchWriteItem requests. When DynamoDB
+ * throttles the writes, the flusher slows down.
+ *
  * @see AbstractDynamoDBItem.fromState for details how different items are persisted
  *
  * @author Sami Salonen - Initial contribution
@@ -92,76 +103,13 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
 
     protected static final String CONFIG_URI = "persistence:dynamodb";
 
-    private class ExponentialBackoffRetry implements Runnable {
-        private int retry;
-        private Map<String, List<WriteRequest>> unprocessedItems;
-        private @Nullable Exception lastException;
-
-        public ExponentialBackoffRetry(Map<String, List<WriteRequest>> unprocessedItems) {
-            this.unprocessedItems = unprocessedItems;
-        }
-
-        @Override
-        public void run() {
-            logger.debug("Error storing object to dynamo, unprocessed items: {}. Retrying with exponential back-off",
-                    unprocessedItems);
-            lastException = null;
-            while (!unprocessedItems.isEmpty() && retry < WAIT_MILLIS_IN_RETRIES.length) {
-                if (!sleep()) {
-                    // Interrupted
-                    return;
-                }
-                retry++;
-                try {
-                    BatchWriteItemOutcome outcome = DynamoDBPersistenceService.this.db.getDynamoDB()
-                            .batchWriteItemUnprocessed(unprocessedItems);
-                    unprocessedItems = outcome.getUnprocessedItems();
-                    lastException = null;
-                } catch (AmazonServiceException e) {
-                    if (e instanceof ResourceNotFoundException) {
-                        logger.debug(
-                                "DynamoDB query raised unexpected exception: {}. This might happen if table was recently created",
-                                e.getMessage());
-                    } else {
-                        logger.debug("DynamoDB query raised unexpected exception: {}.", e.getMessage());
-                    }
-                    lastException = e;
-                    continue;
-                }
-            }
-            if (unprocessedItems.isEmpty()) {
-                logger.debug("After {} retries successfully wrote all unprocessed items", retry);
-            } else {
-                logger.warn(
-                        "Even after retries failed to write some items. Last exception: {} {}, unprocessed items: {}",
-                        lastException == null ? "null" : lastException.getClass().getName(),
-                        lastException == null ? "null" : lastException.getMessage(), unprocessedItems);
-            }
-        }
-
-        private boolean sleep() {
-            try {
-                long sleepTime;
-                if (retry == 1 && lastException != null && lastException instanceof ResourceNotFoundException) {
-                    sleepTime = WAIT_ON_FIRST_RESOURCE_NOT_FOUND_MILLIS;
-                } else {
-                    sleepTime = WAIT_MILLIS_IN_RETRIES[retry];
-                }
-                Thread.sleep(sleepTime);
-                return true;
-            } catch (InterruptedException e) {
-                logger.debug("Interrupted while writing data!");
-                return false;
-            }
-        }
-
-        public Map<String, List<WriteRequest>> getUnprocessedItems() {
-            return unprocessedItems;
-        }
-    }
-
-    private static final int WAIT_ON_FIRST_RESOURCE_NOT_FOUND_MILLIS = 5000;
-    private static final int[] WAIT_MILLIS_IN_RETRIES = new int[] { 100, 100, 200, 300, 500 };
+    // BatchWriteItem accepts at most 25 put requests
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_WRITE_ATTEMPTS = 8;
+    private static final long RETRY_BASE_MILLIS = 50;
+    private static final long RETRY_MAX_MILLIS = 5000;
+    private static final long MAX_SEND_DELAY_MILLIS = 5000;
+    private static final long DEACTIVATE_FLUSH_TIMEOUT_MILLIS = 10000;
     private static final String DYNAMODB_THREADPOOL_NAME = "dynamodbPersistenceService";
 
     private final ItemRegistry itemRegistry;
@@ -173,6 +121,9 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1,
             new NamedThreadFactory(DYNAMODB_THREADPOOL_NAME));
     private @Nullable ScheduledFuture<?> writeBufferedDataFuture;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    // delay between two BatchWriteItem requests, raised when DynamoDB throttles. Only used by the flusher thread.
+    private long sendDelayMillis = 0;
 
     @Activate
     public DynamoDBPersistenceService(final @Reference ItemRegistry itemRegistry) {
@@ -242,6 +193,10 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
             writeBufferedDataFuture.cancel(false);
             writeBufferedDataFuture = null;
         }
+        if (isProperlyConfigured && !awaitFlush(DEACTIVATE_FLUSH_TIMEOUT_MILLIS)) {
+            logger.warn("Buffered data could not be written within {} ms, some data is lost",
+                    DEACTIVATE_FLUSH_TIMEOUT_MILLIS);
+        }
         resetClient();
     }
 
@@ -388,30 +343,66 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
         return Collections.emptySet();
     }
 
+    @Override
+    protected void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    flushRequested.set(false);
+                    try {
+                        flushBufferedData();
+                    } catch (RuntimeException e) {
+                        logger.warn("Flushing of buffered data failed unexpectedly", e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+                logger.debug("Flusher is not running, buffered data is written with the next flush");
+            }
+        }
+    }
+
+    /**
+     * Waits until everything buffered so far has been written. For deactivation and testing.
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return whether the buffered data has been written in time
+     */
+    boolean awaitFlush(long timeoutMillis) {
+        try {
+            // the flusher is single threaded, so this runs after all flushes requested before
+            scheduler.submit(this::flushBufferedData).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            logger.debug("Waiting for buffered data to be written failed: {}", e.getMessage());
+        }
+        return false;
+    }
+
     @Override
     protected void flushBufferedData() {
-        if (buffer != null && buffer.isEmpty()) {
+        BlockingQueue<DynamoDBItem<?>> buffer = this.buffer;
+        if (buffer == null || buffer.isEmpty()) {
             return;
         }
         logger.debug("Writing buffered data. Buffer size: {}", buffer.size());
 
-        for (;;) {
-            Map<String, Deque<DynamoDBItem<?>>> itemsByTable = readBuffer();
+        while (!buffer.isEmpty()) {
+            Map<String, Deque<DynamoDBItem<?>>> itemsByTable = readBuffer(buffer);
             // Write batch of data, one table at a time
             for (Entry<String, Deque<DynamoDBItem<?>>> entry : itemsByTable.entrySet()) {
                 String tableName = entry.getKey();
                 Deque<DynamoDBItem<?>> batch = entry.getValue();
                 if (!batch.isEmpty()) {
-                    flushBatch(getDBMapper(tableName), batch);
+                    flushBatch(tableName, batch);
                 }
             }
-            if (buffer != null && buffer.isEmpty()) {
-                break;
-            }
         }
     }
 
-    private Map<String, Deque<DynamoDBItem<?>>> readBuffer() {
+    private Map<String, Deque<DynamoDBItem<?>>> readBuffer(BlockingQueue<DynamoDBItem<?>> buffer) {
         Map<String, Deque<DynamoDBItem<?>>> batchesByTable = new HashMap<>(2);
         // Get batch of data
         while (!buffer.isEmpty()) {
@@ -432,56 +423,132 @@ public class DynamoDBPersistenceService extends AbstractBufferedPersistenceServi
     }
 
     /**
-     * Flush batch of data to DynamoDB
+     * Flush batch of data of one table to DynamoDB, using BatchWriteItem requests of at most 25 items
      *
-     * @param mapper mapper associated with the batch
+     * @param tableName table of the batch
      * @param batch batch of data to write to DynamoDB
      */
-    private void flushBatch(DynamoDBMapper mapper, Deque<DynamoDBItem<?>> batch) {
+    private void flushBatch(String tableName, Deque<DynamoDBItem<?>> batch) {
         long currentTimeMillis = System.currentTimeMillis();
-        List<FailedBatch> failed = mapper.batchSave(batch);
-        for (FailedBatch failedBatch : failed) {
-            if (failedBatch.getException() instanceof ResourceNotFoundException) {
-                // Table did not exist. Try again after creating table
-                retryFlushAfterCreatingTable(mapper, batch, failedBatch);
-            } else {
-                logger.debug("Batch failed with {}. Retrying next with exponential back-off",
-                        failedBatch.getException().getMessage());
-                new ExponentialBackoffRetry(failedBatch.getUnprocessedItems()).run();
+        DynamoDBMapper mapper = getDBMapper(tableName);
+        @SuppressWarnings("unchecked")
+        Class<DynamoDBItem<?>> dtoClass = (Class<DynamoDBItem<?>>) batch.peek().getClass();
+        DynamoDBMapperTableModel<DynamoDBItem<?>> tableModel = mapper.getTableModel(dtoClass);
+
+        int failed = 0;
+        List<WriteRequest> writeRequests = new ArrayList<>(MAX_BATCH_WRITE_ITEMS);
+        for (DynamoDBItem<?> dynamoItem : batch) {
+            writeRequests.add(new WriteRequest(new PutRequest(tableModel.convert(dynamoItem))));
+            if (writeRequests.size() == MAX_BATCH_WRITE_ITEMS) {
+                failed += writeItems(mapper, dtoClass, tableName, writeRequests);
+                writeRequests = new ArrayList<>(MAX_BATCH_WRITE_ITEMS);
             }
         }
-        if (failed.isEmpty()) {
+        if (!writeRequests.isEmpty()) {
+            failed += writeItems(mapper, dtoClass, tableName, writeRequests);
+        }
+        if (failed == 0) {
             logger.debug("flushBatch ended with {} items in {} ms: {}", batch.size(),
                     System.currentTimeMillis() - currentTimeMillis, batch);
         } else {
-            logger.warn(
-                    "flushBatch ended with {} items in {} ms: {}. There were some failed batches that were retried -- check logs for ERRORs to see if writes were successful",
-                    batch.size(), System.currentTimeMillis() - currentTimeMillis, batch);
+            logger.warn("flushBatch ended with {} items in {} ms, {} items could not be written: {}", batch.size(),
+                    System.currentTimeMillis() - currentTimeMillis, failed, batch);
         }
     }
 
     /**
-     * Retry flushing data after creating table associated with mapper
+     * Writes a single BatchWriteItem request. Unprocessed items are retried with jittered exponential back-off and
+     * the delay between requests is adapted when DynamoDB throttles the writes.
      *
-     * @param mapper mapper associated with the batch
-     * @param batch original batch of data. Used for logging and to determine table name
-     * @param failedBatch failed batch that should be retried
+     * @return number of items which could not be written
      */
-    private void retryFlushAfterCreatingTable(DynamoDBMapper mapper, Deque<DynamoDBItem<?>> batch,
-            FailedBatch failedBatch) {
-        logger.debug("Table was not found. Trying to create table and try saving again");
-        if (createTable(mapper, batch.peek().getClass())) {
-            logger.debug("Table creation successful, trying to save again");
-            if (!failedBatch.getUnprocessedItems().isEmpty()) {
-                ExponentialBackoffRetry retry = new ExponentialBackoffRetry(failedBatch.getUnprocessedItems());
-                retry.run();
-                if (retry.getUnprocessedItems().isEmpty()) {
-                    logger.debug("Successfully saved items after table creation");
+    private int writeItems(DynamoDBMapper mapper, Class<?> dtoClass, String tableName,
+            List<WriteRequest> writeRequests) {
+        Map<String, List<WriteRequest>> requestItems = Map.of(tableName, writeRequests);
+        boolean tableCreated = false;
+        int attempt = 0;
+        while (true) {
+            if (!sleep(sendDelayMillis)) {
+                return countItems(requestItems);
+            }
+            boolean throttled;
+            try {
+                Map<String, List<WriteRequest>> unprocessedItems = db.getDynamoClient()
+                        .batchWriteItem(new BatchWriteItemRequest(requestItems)).getUnprocessedItems();
+                if (unprocessedItems == null || unprocessedItems.isEmpty()) {
+                    adaptSendDelay(false);
+                    return 0;
+                }
+                logger.debug("{} items were not processed by DynamoDB", countItems(unprocessedItems));
+                requestItems = unprocessedItems;
+                throttled = true;
+            } catch (ResourceNotFoundException e) {
+                if (tableCreated) {
+                    logger.warn("Table '{}' does not exist. Not storing {} items", tableName,
+                            countItems(requestItems));
+                    return countItems(requestItems);
                 }
+                // Table did not exist. Try again after creating table
+                logger.debug("Table was not found. Trying to create table and try saving again");
+                tableCreated = true;
+                if (!createTable(mapper, dtoClass)) {
+                    logger.warn("Table creation failed. Not storing {} items", countItems(requestItems));
+                    return countItems(requestItems);
+                }
+                continue;
+            } catch (ProvisionedThroughputExceededException e) {
+                logger.debug("DynamoDB throttled writes to table '{}': {}", tableName, e.getMessage());
+                throttled = true;
+            } catch (AmazonClientException e) {
+                logger.debug("DynamoDB write raised unexpected exception: {}", e.getMessage());
+                throttled = false;
+            }
+            if (throttled) {
+                adaptSendDelay(true);
             }
+            if (++attempt >= MAX_WRITE_ATTEMPTS) {
+                logger.warn("Even after {} attempts failed to write {} items to table '{}'", attempt,
+                        countItems(requestItems), tableName);
+                return countItems(requestItems);
+            }
+            // "full jitter" back-off
+            long backoff = Math.min(RETRY_MAX_MILLIS, RETRY_BASE_MILLIS << attempt);
+            if (!sleep(ThreadLocalRandom.current().nextLong(backoff + 1))) {
+                return countItems(requestItems);
+            }
+        }
+    }
+
+    /**
+     * Doubles the delay between requests if DynamoDB throttled, otherwise lowers it again step by step.
+     */
+    private void adaptSendDelay(boolean throttled) {
+        long oldDelay = sendDelayMillis;
+        if (throttled) {
+            sendDelayMillis = Math.min(MAX_SEND_DELAY_MILLIS, Math.max(RETRY_BASE_MILLIS, 2 * sendDelayMillis));
         } else {
-            logger.warn("Table creation failed. Not storing some parts of batch: {}. Unprocessed items: {}", batch,
-                    failedBatch.getUnprocessedItems());
+            sendDelayMillis = sendDelayMillis * 3 / 4;
+        }
+        if (oldDelay != sendDelayMillis) {
+            logger.debug("Delay between write requests is now {} ms", sendDelayMillis);
+        }
+    }
+
+    private static int countItems(Map<String, List<WriteRequest>> requestItems) {
+        return requestItems.values().stream().mapToInt(List::size).sum();
+    }
+
+    private boolean sleep(long millis) {
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            logger.debug("Interrupted while writing data!");
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
@@ -21,6 +21,7 @@ import java.util.stream.Stream;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.openhab.core.common.registry.RegistryChangeListener;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
@@ -196,10 +197,24 @@ public class BaseIntegrationTest {
             }
         }
 
+        // Optional, e.g. http://localhost:8000 to test against DynamoDB Local
+        value = System.getProperty("DYNAMODBTEST_ENDPOINT");
+        if (value != null && !value.isBlank()) {
+            config.put("endpoint", value);
+        }
+
         service.activate(null, config);
         clearData();
     }
 
+    @BeforeEach
+    public void waitForWrites() {
+        // items are written asynchronously by the flusher of the service
+        if (service != null) {
+            service.awaitFlush(30000);
+        }
+    }
+
     protected static void clearData() {
         // Clear data
         for (String table : new String[] { "dynamodb-integration-tests-bigdecimal",
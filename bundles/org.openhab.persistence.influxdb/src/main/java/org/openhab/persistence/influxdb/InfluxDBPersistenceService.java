@@ -12,8 +12,11 @@
  */
 package org.openhab.persistence.influxdb;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -23,10 +26,13 @@ import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.OpenHAB;
 import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
+import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.items.MetadataRegistry;
+import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
@@ -40,6 +46,7 @@ import org.openhab.persistence.influxdb.internal.InfluxDBHistoricItem;
 import org.openhab.persistence.influxdb.internal.InfluxDBPersistentItemInfo;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils;
+import org.openhab.persistence.influxdb.internal.InfluxDBWriteBuffer;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
 import org.openhab.persistence.influxdb.internal.ItemToStorePointCreator;
@@ -91,6 +98,7 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
     // Relax rules because can only be null if component is not active
     private @NonNullByDefault({}) ItemToStorePointCreator itemToStorePointCreator;
     private @NonNullByDefault({}) InfluxDBRepository influxDBRepository;
+    private @NonNullByDefault({}) InfluxDBWriteBuffer writeBuffer;
 
     @Activate
     public InfluxDBPersistenceService(final @Reference ItemRegistry itemRegistry,
@@ -110,6 +118,8 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
             itemToStorePointCreator = new ItemToStorePointCreator(configuration, metadataRegistry);
             influxDBRepository = createInfluxDBRepository();
             influxDBRepository.connect();
+            writeBuffer = new InfluxDBWriteBuffer(influxDBRepository, configuration, getSpillFile());
+            writeBuffer.start();
         } else {
             logger.error("Cannot load configuration, persistence service wont work");
         }
@@ -122,12 +132,21 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         return RepositoryFactory.createRepository(configuration);
     }
 
+    // Visible for testing
+    protected Path getSpillFile() {
+        return Path.of(OpenHAB.getUserDataFolder(), "persistence", SERVICE_NAME, "spill.lp");
+    }
+
     /**
      * Disconnect from database when service is deactivated
      */
     @Deactivate
     public void deactivate() {
         logger.debug("InfluxDB persistence service deactivated");
+        if (writeBuffer != null) {
+            writeBuffer.stop();
+            writeBuffer = null;
+        }
         if (influxDBRepository != null) {
             influxDBRepository.disconnect();
             influxDBRepository = null;
@@ -203,7 +222,9 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
             InfluxPoint point = itemToStorePointCreator.convert(item, alias);
             if (point != null) {
                 logger.trace("Storing item {} in InfluxDB point {}", item, point);
-                influxDBRepository.write(point);
+                if (!writeBuffer.add(point)) {
+                    logger.debug("store ignored, InfluxDB write buffer is stopped");
+                }
             } else {
                 logger.trace("Ignoring item {} as is cannot be converted to a InfluxDB point", item);
             }
@@ -222,17 +243,50 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
                     filter.getItemName(), filter.getOrdering().toString(), filter.getState(), filter.getOperator(),
                     filter.getBeginDate(), filter.getEndDate(), filter.getPageSize(), filter.getPageNumber());
 
-            String query = RepositoryFactory.createQueryCreator(configuration).createQuery(filter,
-                    configuration.getRetentionPolicy());
+            FilterCriteriaQueryCreator queryCreator = RepositoryFactory.createQueryCreator(configuration);
+            String query;
+            if (isAggregationQuery(filter)) {
+                Duration window = calculateAggregationWindow(filter);
+                query = queryCreator.createAggregationQuery(filter, configuration.getRetentionPolicy(), window,
+                        configuration.getAggregationFunction());
+            } else {
+                query = queryCreator.createQuery(filter, configuration.getRetentionPolicy());
+            }
             logger.trace("Query {}", query);
-            List<InfluxRow> results = influxDBRepository.query(query);
-            return results.stream().map(this::mapRow2HistoricItem).collect(Collectors.toList());
+            List<HistoricItem> results = new ArrayList<>();
+            influxDBRepository.query(query, row -> results.add(mapRow2HistoricItem(row)));
+            return results;
         } else {
             logger.debug("query ignored, InfluxDB is not yet connected");
             return Collections.emptyList();
         }
     }
 
+    /**
+     * Range queries of numeric items are aggregated by the server if a maximum number of points is configured. Only
+     * chart-like queries are aggregated: ascending, not paged and not filtered by state.
+     */
+    private boolean isAggregationQuery(FilterCriteria filter) {
+        String itemName = filter.getItemName();
+        if (configuration.getAggregationMaxPoints() <= 0 || itemName == null || filter.getBeginDate() == null
+                || filter.getEndDate() == null || filter.getPageSize() != Integer.MAX_VALUE
+                || filter.getOrdering() != FilterCriteria.Ordering.ASCENDING || filter.getState() != null) {
+            return false;
+        }
+        try {
+            return itemRegistry.getItem(itemName) instanceof NumberItem;
+        } catch (ItemNotFoundException e) {
+            return false;
+        }
+    }
+
+    private Duration calculateAggregationWindow(FilterCriteria filter) {
+        Duration range = Duration.between(filter.getBeginDate(), filter.getEndDate());
+        long seconds = (range.getSeconds() + configuration.getAggregationMaxPoints() - 1)
+                / configuration.getAggregationMaxPoints();
+        return Duration.ofSeconds(Math.max(1, seconds));
+    }
+
     private HistoricItem mapRow2HistoricItem(InfluxRow row) {
         State state = InfluxDBStateConvertUtils.objectToState(row.getValue(), row.getItemName(), itemRegistry);
         return new InfluxDBHistoricItem(row.getItemName(), state,
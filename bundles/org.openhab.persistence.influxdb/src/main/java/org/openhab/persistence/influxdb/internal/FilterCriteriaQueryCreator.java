@@ -12,6 +12,8 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
+import java.time.Duration;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.core.persistence.FilterCriteria;
 
@@ -31,6 +33,19 @@ public interface FilterCriteriaQueryCreator {
      */
     String createQuery(FilterCriteria criteria, String retentionPolicy);
 
+    /**
+     * Create query from {@link FilterCriteria} which lets the server aggregate the points of each time window into one
+     * point. The criteria must contain an item name, a begin and an end date; paging is ignored.
+     *
+     * @param criteria Criteria to create query from
+     * @param retentionPolicy Name of the retentionPolicy/bucket to use in query
+     * @param window Length of the time windows
+     * @param function Function used to aggregate the points of one window
+     * @return Created query as an String
+     */
+    String createAggregationQuery(FilterCriteria criteria, String retentionPolicy, Duration window,
+            InfluxDBAggregationFunction function);
+
     default String getOperationSymbol(FilterCriteria.Operator operator, InfluxDBVersion version) {
         switch (operator) {
             case EQ:
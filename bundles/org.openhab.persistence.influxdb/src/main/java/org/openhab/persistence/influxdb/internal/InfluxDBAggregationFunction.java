@@ -0,0 +1,25 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+/**
+ * Function used to aggregate the points of one time window when a query is downsampled by the server
+ *
+ * @author agent - Initial contribution
+ */
+public enum InfluxDBAggregationFunction {
+    AVG,
+    MIN,
+    MAX,
+    LAST
+}
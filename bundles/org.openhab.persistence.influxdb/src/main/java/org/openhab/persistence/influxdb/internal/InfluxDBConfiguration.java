@@ -39,6 +39,12 @@ public class InfluxDBConfiguration {
     public static final String ADD_CATEGORY_TAG_PARAM = "addCategoryTag";
     public static final String ADD_LABEL_TAG_PARAM = "addLabelTag";
     public static final String ADD_TYPE_TAG_PARAM = "addTypeTag";
+    public static final String BATCH_SIZE_PARAM = "batchSize";
+    public static final String FLUSH_INTERVAL_PARAM = "flushInterval";
+    public static final String QUEUE_SIZE_PARAM = "queueSize";
+    public static final String SPILL_MAX_SIZE_PARAM = "spillMaxSize";
+    public static final String AGGREGATION_MAX_POINTS_PARAM = "aggregationMaxPoints";
+    public static final String AGGREGATION_FUNCTION_PARAM = "aggregationFunction";
     public static InfluxDBConfiguration NO_CONFIGURATION = new InfluxDBConfiguration(Collections.emptyMap());
     private final Logger logger = LoggerFactory.getLogger(InfluxDBConfiguration.class);
     private final String url;
@@ -54,6 +60,14 @@ public class InfluxDBConfiguration {
     private final boolean addTypeTag;
     private final boolean addLabelTag;
 
+    private final int batchSize;
+    private final int flushInterval;
+    private final int queueSize;
+    private final int spillMaxSize;
+
+    private final int aggregationMaxPoints;
+    private final InfluxDBAggregationFunction aggregationFunction;
+
     public InfluxDBConfiguration(Map<String, Object> config) {
         url = (String) config.getOrDefault(URL_PARAM, "http://127.0.0.1:8086");
         user = (String) config.getOrDefault(USER_PARAM, "openhab");
@@ -67,6 +81,29 @@ public class InfluxDBConfiguration {
         addCategoryTag = getConfigBooleanValue(config, ADD_CATEGORY_TAG_PARAM, false);
         addLabelTag = getConfigBooleanValue(config, ADD_LABEL_TAG_PARAM, false);
         addTypeTag = getConfigBooleanValue(config, ADD_TYPE_TAG_PARAM, false);
+
+        batchSize = getConfigIntValue(config, BATCH_SIZE_PARAM, 1000);
+        flushInterval = getConfigIntValue(config, FLUSH_INTERVAL_PARAM, 1000);
+        queueSize = getConfigIntValue(config, QUEUE_SIZE_PARAM, 10000);
+        spillMaxSize = getConfigIntValue(config, SPILL_MAX_SIZE_PARAM, 100);
+
+        aggregationMaxPoints = getConfigIntValue(config, AGGREGATION_MAX_POINTS_PARAM, 0);
+        aggregationFunction = parseAggregationFunction(
+                config.getOrDefault(AGGREGATION_FUNCTION_PARAM, InfluxDBAggregationFunction.AVG.name()));
+    }
+
+    private int getConfigIntValue(Map<String, Object> config, String key, int defaultValue) {
+        Object object = config.get(key);
+        if (object instanceof Number) {
+            return ((Number) object).intValue();
+        } else if (object instanceof String) {
+            try {
+                return Integer.parseInt(((String) object).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value {} for {}, using {}", object, key, defaultValue);
+            }
+        }
+        return defaultValue;
     }
 
     private static boolean getConfigBooleanValue(Map<String, Object> config, String key, boolean defaultValue) {
@@ -89,6 +126,15 @@ public class InfluxDBConfiguration {
         }
     }
 
+    private InfluxDBAggregationFunction parseAggregationFunction(@Nullable Object value) {
+        try {
+            return InfluxDBAggregationFunction.valueOf(((String) value).trim().toUpperCase());
+        } catch (RuntimeException e) {
+            logger.warn("Invalid aggregation function {}, using {}", value, InfluxDBAggregationFunction.AVG);
+            return InfluxDBAggregationFunction.AVG;
+        }
+    }
+
     public boolean isValid() {
         boolean hasVersion = version != InfluxDBVersion.UNKNOWN;
         boolean hasCredentials = false;
@@ -156,6 +202,37 @@ public class InfluxDBConfiguration {
         return addLabelTag;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getFlushInterval() {
+        return flushInterval;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @return maximum size of the spill file in MB, 0 if points should not be spilled
+     */
+    public long getSpillMaxSize() {
+        return spillMaxSize;
+    }
+
+    /**
+     * @return maximum number of points returned for a time range query of a numeric item, 0 if queries should not be
+     *         aggregated
+     */
+    public int getAggregationMaxPoints() {
+        return aggregationMaxPoints;
+    }
+
+    public InfluxDBAggregationFunction getAggregationFunction() {
+        return aggregationFunction;
+    }
+
     public String getUser() {
         return user;
     }
@@ -174,7 +251,10 @@ public class InfluxDBConfiguration {
                 + password.length() + " chars" + '\'' + ", token='" + token.length() + " chars" + '\''
                 + ", databaseName='" + databaseName + '\'' + ", retentionPolicy='" + retentionPolicy + '\''
                 + ", version=" + version + ", replaceUnderscore=" + replaceUnderscore + ", addCategoryTag="
-                + addCategoryTag + ", addTypeTag=" + addTypeTag + ", addLabelTag=" + addLabelTag + '}';
+                + addCategoryTag + ", addTypeTag=" + addTypeTag + ", addLabelTag=" + addLabelTag + ", batchSize="
+                + batchSize + ", flushInterval=" + flushInterval + ", queueSize=" + queueSize + ", spillMaxSize="
+                + spillMaxSize + ", aggregationMaxPoints=" + aggregationMaxPoints + ", aggregationFunction="
+                + aggregationFunction + '}';
         return sb;
     }
 
@@ -12,8 +12,10 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 
@@ -24,6 +26,18 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
  */
 @NonNullByDefault
 public interface InfluxDBRepository {
+    /**
+     * Result of a write
+     */
+    enum WriteResult {
+        /** The points have been accepted by the server */
+        WRITTEN,
+        /** The server couldn't be reached or failed temporarily, the points can be written again later */
+        FAILED,
+        /** The server rejected the points permanently, e.g. because of a field type conflict */
+        REJECTED
+    }
+
     /**
      * Returns if the client is successfully connected to server
      *
@@ -58,17 +72,30 @@ public interface InfluxDBRepository {
     Map<String, Integer> getStoredItemsCount();
 
     /**
-     * Executes Flux query
+     * Executes query and passes the rows to the consumer while they are received from the server
+     *
+     * @param query Query
+     * @param consumer Consumer for the query results
+     */
+    void query(String query, Consumer<InfluxRow> consumer);
+
+    /**
+     * Executes query
      *
      * @param query Query
      * @return Query results
      */
-    List<InfluxRow> query(String query);
+    default List<InfluxRow> query(String query) {
+        List<InfluxRow> rows = new ArrayList<>();
+        query(query, rows::add);
+        return rows;
+    }
 
     /**
-     * Write point to database
+     * Write points to database
      *
-     * @param influxPoint Point to write
+     * @param records Points in line protocol with millisecond precision, one point per line
+     * @return whether the points have been written, can be written again later or have been rejected
      */
-    void write(InfluxPoint influxPoint);
+    WriteResult write(String records);
 }
@@ -0,0 +1,406 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.FIELD_VALUE_NAME;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.persistence.influxdb.internal.InfluxDBRepository.WriteResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Batching layer above {@link InfluxDBRepository}. Points are collected in a bounded queue and written by a single
+ * writer thread in line protocol, as soon as {@code batchSize} points are pending or {@code flushInterval} ms have
+ * passed. Batches which cannot be written because the server is not available are appended to a spill file, which is
+ * replayed in order before any newer batch once the server accepts writes again. During an outage, new batches are
+ * spilled right away and the replay is retried with an increasing delay, so that the writer does not wait for a
+ * timeout of the client for every batch while the queue fills up. Batches the server rejects, e.g.
+ * because of a field type conflict, are dropped, as writing them again would fail again.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBWriteBuffer {
+    private static final long MIN_RETRY_DELAY_MS = 1000;
+    private static final long MAX_RETRY_DELAY_MS = 60000;
+
+    private final Logger logger = LoggerFactory.getLogger(InfluxDBWriteBuffer.class);
+
+    private final InfluxDBRepository repository;
+    private final BlockingQueue<InfluxPoint> queue;
+    private final int batchSize;
+    private final long flushInterval;
+    private final Path spillFile;
+    private final long spillMaxSize;
+
+    // reused for every batch, guarded by this
+    private final StringBuilder records = new StringBuilder(16384);
+
+    private volatile boolean running = false;
+    private @Nullable Thread writerThread;
+    // guarded by this
+    private boolean spillFull = false;
+    private boolean stopping = false;
+    private boolean unavailable = false;
+    private long retryDelayMillis = MIN_RETRY_DELAY_MS;
+    private long nextRetryNanos;
+
+    public InfluxDBWriteBuffer(InfluxDBRepository repository, InfluxDBConfiguration configuration, Path spillFile) {
+        this.repository = repository;
+        this.batchSize = Math.max(1, configuration.getBatchSize());
+        this.queue = new ArrayBlockingQueue<>(Math.max(configuration.getQueueSize(), batchSize));
+        this.flushInterval = Math.max(1, configuration.getFlushInterval());
+        this.spillFile = spillFile;
+        this.spillMaxSize = configuration.getSpillMaxSize() * 1024 * 1024;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::run, "OH-persistence-influxdb-writer");
+        thread.setDaemon(true);
+        thread.start();
+        writerThread = thread;
+        logger.debug("Write buffer started with batchSize={} flushInterval={} ms spillFile={}", batchSize,
+                flushInterval, spillFile);
+    }
+
+    /**
+     * Stops the writer thread and waits until it has written all points which are still queued. Points which cannot
+     * be written are kept in the spill file for the next start.
+     */
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            stopping = true;
+            thread = writerThread;
+            writerThread = null;
+        }
+        if (thread != null) {
+            try {
+                // writes are bounded by the timeouts of the client, and once the server is unavailable the remaining
+                // points are spilled without trying to write them
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            drainQueue();
+        }
+        synchronized (this) {
+            stopping = false;
+        }
+        logger.debug("Write buffer stopped");
+    }
+
+    /**
+     * Queues a point. Blocks while the queue is full.
+     *
+     * @return false if the buffer is not running and the point has not been queued
+     */
+    public boolean add(InfluxPoint point) {
+        try {
+            while (running) {
+                if (queue.offer(point, flushInterval, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+                logger.debug("Write queue is full, waiting for the writer to catch up");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<InfluxPoint> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                InfluxPoint first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // nothing new, use the time to catch up with spilled points
+                    if (Files.exists(spillFile) && isRetryDue()) {
+                        replaySpillFile();
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    InfluxPoint next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+        // the points added before stop() are written by this thread, so they cannot overtake the last batch
+        drainQueue();
+    }
+
+    private void drainQueue() {
+        List<InfluxPoint> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private synchronized void flush(List<InfluxPoint> batch) {
+        records.setLength(0);
+        for (InfluxPoint point : batch) {
+            appendLineProtocol(point, records);
+        }
+        if (records.length() == 0) {
+            return;
+        }
+        // don't wait for another timeout before the next retry is due, or while stopping
+        if (unavailable && (stopping || !isRetryDue())) {
+            spill(records);
+            return;
+        }
+        // newer points must not overtake spilled ones
+        if (Files.exists(spillFile) && !replaySpillFile()) {
+            spill(records);
+            return;
+        }
+        switch (write(records)) {
+            case WRITTEN:
+                logger.trace("Wrote {} points", batch.size());
+                break;
+            case REJECTED:
+                logger.warn("Dropped a batch of {} points which was rejected by InfluxDB", batch.size());
+                break;
+            case FAILED:
+                spill(records);
+                break;
+        }
+    }
+
+    private WriteResult write(CharSequence lines) {
+        WriteResult result;
+        try {
+            result = repository.write(lines.toString());
+        } catch (RuntimeException e) {
+            logger.debug("Writing points failed: {}", e.getMessage());
+            result = WriteResult.FAILED;
+        }
+        if (result == WriteResult.FAILED) {
+            if (!unavailable) {
+                logger.info("InfluxDB is not reachable, points are spilled to '{}' until it is back", spillFile);
+            }
+            unavailable = true;
+            nextRetryNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryDelayMillis);
+            logger.debug("Retrying to write to InfluxDB in {} ms", retryDelayMillis);
+            retryDelayMillis = Math.min(MAX_RETRY_DELAY_MS, retryDelayMillis * 2);
+        } else {
+            unavailable = false;
+            retryDelayMillis = MIN_RETRY_DELAY_MS;
+        }
+        return result;
+    }
+
+    private synchronized boolean isRetryDue() {
+        return !unavailable || System.nanoTime() - nextRetryNanos >= 0;
+    }
+
+    private void spill(CharSequence lines) {
+        try {
+            if (spillMaxSize <= 0 || (Files.exists(spillFile) && Files.size(spillFile) >= spillMaxSize)) {
+                if (!spillFull) {
+                    spillFull = true;
+                    logger.warn("InfluxDB is not reachable and the spill file '{}' is full, points are dropped",
+                            spillFile);
+                }
+                return;
+            }
+            Files.createDirectories(spillFile.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.append(lines);
+            }
+            logger.debug("InfluxDB is not reachable, points spilled to '{}'", spillFile);
+        } catch (IOException e) {
+            logger.warn("Couldn't spill points to '{}', points are dropped: {}", spillFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the spill file in chunks of {@code batchSize} points. Chunks the server rejects are dropped.
+     *
+     * @return true if the spill file has been written completely and removed
+     */
+    private synchronized boolean replaySpillFile() {
+        StringBuilder chunk = new StringBuilder();
+        long replayed = 0;
+        long rejected = 0;
+        try (BufferedReader reader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                chunk.setLength(0);
+                int lines = 0;
+                while (line != null && lines < batchSize) {
+                    chunk.append(line).append('\n');
+                    lines++;
+                    line = reader.readLine();
+                }
+                WriteResult result = write(chunk);
+                if (result == WriteResult.FAILED) {
+                    if (replayed + rejected > 0) {
+                        keepRemainder(chunk, line, reader);
+                    }
+                    return false;
+                } else if (result == WriteResult.REJECTED) {
+                    logger.warn("Dropped {} spilled points which were rejected by InfluxDB", lines);
+                    rejected += lines;
+                } else {
+                    replayed += lines;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Couldn't read spill file '{}': {}", spillFile, e.getMessage());
+            return false;
+        }
+        try {
+            Files.delete(spillFile);
+        } catch (IOException e) {
+            logger.warn("Couldn't delete replayed spill file '{}': {}", spillFile, e.getMessage());
+            return false;
+        }
+        spillFull = false;
+        logger.info("Replayed {} spilled points to InfluxDB", replayed);
+        return true;
+    }
+
+    private void keepRemainder(CharSequence chunk, @Nullable String nextLine, BufferedReader reader)
+            throws IOException {
+        Path remainder = spillFile.resolveSibling(spillFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(remainder, StandardCharsets.UTF_8)) {
+            writer.append(chunk);
+            String line = nextLine;
+            while (line != null) {
+                writer.append(line).append('\n');
+                line = reader.readLine();
+            }
+        }
+        Files.move(remainder, spillFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Appends a point in InfluxDB line protocol with millisecond precision, followed by a new line.
+     */
+    static void appendLineProtocol(InfluxPoint point, StringBuilder sb) {
+        int start = sb.length();
+        escape(point.getMeasurementName(), sb, false);
+        for (Map.Entry<String, String> tag : point.getTags().entrySet()) {
+            // empty tag values are not allowed
+            if (!tag.getValue().isEmpty()) {
+                sb.append(',');
+                escape(tag.getKey(), sb, true);
+                sb.append('=');
+                escape(tag.getValue(), sb, true);
+            }
+        }
+        sb.append(' ').append(FIELD_VALUE_NAME).append('=');
+        if (!appendFieldValue(point.getValue(), sb)) {
+            sb.setLength(start);
+            return;
+        }
+        sb.append(' ').append(point.getTime().toEpochMilli()).append('\n');
+    }
+
+    private static boolean appendFieldValue(@Nullable Object value, StringBuilder sb) {
+        if (value instanceof String) {
+            String string = (String) value;
+            sb.append('"');
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                if (c == '"' || c == '\\') {
+                    sb.append('\\').append(c);
+                } else if (c == '\n') {
+                    // line protocol has no representation for new lines
+                    sb.append("\\n");
+                } else {
+                    sb.append(c);
+                }
+            }
+            sb.append('"');
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger) {
+            sb.append(value).append('i');
+        } else if (value instanceof BigDecimal) {
+            sb.append(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                return false;
+            }
+            sb.append(d);
+        } else if (value instanceof Boolean) {
+            sb.append(value);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static void escape(String value, StringBuilder sb, boolean escapeEquals) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == ' ' || (escapeEquals && c == '=')) {
+                sb.append('\\');
+            } else if (c == '\n') {
+                sb.append("\\n");
+                continue;
+            }
+            sb.append(c);
+        }
+    }
+}
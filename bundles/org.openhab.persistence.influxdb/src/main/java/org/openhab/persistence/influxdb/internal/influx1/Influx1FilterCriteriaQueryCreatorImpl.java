@@ -16,6 +16,8 @@ import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.*;
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 import static org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils.stateToObject;
 
+import java.time.Duration;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.influxdb.dto.Query;
 import org.influxdb.querybuilder.Appender;
@@ -25,6 +27,7 @@ import org.influxdb.querybuilder.Where;
 import org.influxdb.querybuilder.clauses.SimpleClause;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
+import org.openhab.persistence.influxdb.internal.InfluxDBAggregationFunction;
 import org.openhab.persistence.influxdb.internal.InfluxDBVersion;
 
 /**
@@ -82,6 +85,31 @@ public class Influx1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
         return query.getCommand();
     }
 
+    @Override
+    public String createAggregationQuery(FilterCriteria criteria, String retentionPolicy, Duration window,
+            InfluxDBAggregationFunction function) {
+        String functionName = function == InfluxDBAggregationFunction.AVG ? "MEAN" : function.name();
+        StringBuilder sb = new StringBuilder("SELECT ");
+        sb.append(functionName).append('(').append(COLUMN_VALUE_NAME_V1).append(") AS ").append(COLUMN_VALUE_NAME_V1);
+        sb.append(" FROM ").append(fullQualifiedTableName(retentionPolicy, criteria.getItemName(), true));
+        sb.append(" WHERE ").append(COLUMN_TIME_NAME_V1).append(" >= '").append(criteria.getBeginDate().toInstant());
+        sb.append("' AND ").append(COLUMN_TIME_NAME_V1).append(" <= '").append(criteria.getEndDate().toInstant());
+        sb.append('\'');
+        if (criteria.getState() != null && criteria.getOperator() != null) {
+            sb.append(" AND ").append(COLUMN_VALUE_NAME_V1).append(' ')
+                    .append(getOperationSymbol(criteria.getOperator(), InfluxDBVersion.V1)).append(' ');
+            Appender.appendValue(stateToObject(criteria.getState()), sb);
+        }
+        // the query builder of the client has no support for GROUP BY time()
+        sb.append(" GROUP BY time(").append(window.getSeconds()).append("s) fill(none)");
+        if (criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING) {
+            sb.append(" ORDER BY time DESC");
+        } else if (criteria.getOrdering() == FilterCriteria.Ordering.ASCENDING) {
+            sb.append(" ORDER BY time ASC");
+        }
+        return sb.append(';').toString();
+    }
+
     private String fullQualifiedTableName(String retentionPolicy, String tableName, boolean escapeTableName) {
         StringBuilder sb = new StringBuilder();
         Appender.appendName(retentionPolicy, sb);
@@ -14,28 +14,30 @@ package org.openhab.persistence.influxdb.internal.influx1;
 
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.COLUMN_TIME_NAME_V1;
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.COLUMN_VALUE_NAME_V1;
-import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.FIELD_VALUE_NAME;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.influxdb.Cancellable;
 import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException.FieldTypeConflictException;
+import org.influxdb.InfluxDBException.PointsBeyondRetentionPolicyException;
+import org.influxdb.InfluxDBException.UnableToParseException;
 import org.influxdb.InfluxDBFactory;
-import org.influxdb.dto.Point;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
-import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
-import org.openhab.persistence.influxdb.internal.UnnexpectedConditionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +49,9 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
+    private static final int QUERY_CHUNK_SIZE = 10000;
+    private static final String QUERY_END_OF_STREAM = "DONE";
+
     private final Logger logger = LoggerFactory.getLogger(InfluxDB1RepositoryImpl.class);
     private InfluxDBConfiguration configuration;
     @Nullable
@@ -67,7 +72,6 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                 configuration.getPassword());
         createdClient.setDatabase(configuration.getDatabaseName());
         createdClient.setRetentionPolicy(configuration.getRetentionPolicy());
-        createdClient.enableBatch(200, 100, TimeUnit.MILLISECONDS);
         this.client = createdClient;
         return checkConnectionStatus();
     }
@@ -110,53 +114,65 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
     }
 
     @Override
-    public void write(InfluxPoint point) {
+    public WriteResult write(String records) {
         final InfluxDB currentClient = this.client;
         if (currentClient != null) {
-            Point clientPoint = convertPointToClientFormat(point);
-            currentClient.write(configuration.getDatabaseName(), configuration.getRetentionPolicy(), clientPoint);
-        } else {
-            logger.warn("Write point {} ignored due to client isn't connected", point);
-        }
-    }
-
-    private Point convertPointToClientFormat(InfluxPoint point) {
-        Point.Builder clientPoint = Point.measurement(point.getMeasurementName()).time(point.getTime().toEpochMilli(),
-                TimeUnit.MILLISECONDS);
-        setPointValue(point.getValue(), clientPoint);
-        point.getTags().entrySet().forEach(e -> clientPoint.tag(e.getKey(), e.getValue()));
-        return clientPoint.build();
-    }
-
-    private void setPointValue(@Nullable Object value, Point.Builder point) {
-        if (value instanceof String) {
-            point.addField(FIELD_VALUE_NAME, (String) value);
-        } else if (value instanceof Number) {
-            point.addField(FIELD_VALUE_NAME, (Number) value);
-        } else if (value instanceof Boolean) {
-            point.addField(FIELD_VALUE_NAME, (Boolean) value);
-        } else if (value == null) {
-            point.addField(FIELD_VALUE_NAME, (String) null);
+            try {
+                currentClient.write(configuration.getDatabaseName(), configuration.getRetentionPolicy(),
+                        InfluxDB.ConsistencyLevel.ONE, TimeUnit.MILLISECONDS, records);
+                return WriteResult.WRITTEN;
+            } catch (FieldTypeConflictException | PointsBeyondRetentionPolicyException | UnableToParseException e) {
+                // the server has written all other points of a partial write, writing them again won't help
+                logger.warn("InfluxDB rejected points: {}", e.getMessage());
+                return WriteResult.REJECTED;
+            } catch (RuntimeException e) {
+                logger.debug("Writing points failed: {}", e.getMessage());
+            }
         } else {
-            throw new UnnexpectedConditionException("Not expected value type");
+            logger.warn("Write points ignored due to client isn't connected");
         }
+        return WriteResult.FAILED;
     }
 
     @Override
-    public List<InfluxRow> query(String query) {
+    public void query(String query, Consumer<InfluxRow> consumer) {
         final InfluxDB currentClient = client;
         if (currentClient != null) {
             Query parsedQuery = new Query(query, configuration.getDatabaseName());
-            List<QueryResult.Result> results = currentClient.query(parsedQuery, TimeUnit.MILLISECONDS).getResults();
-            return convertClientResutToRepository(results);
+            CountDownLatch done = new CountDownLatch(1);
+            AtomicReference<@Nullable Cancellable> running = new AtomicReference<>();
+            // chunked queries pass the results on while the server is still sending them
+            currentClient.query(parsedQuery, QUERY_CHUNK_SIZE, (cancellable, result) -> {
+                running.set(cancellable);
+                List<QueryResult.Result> results = result.getResults();
+                String error = result.getError();
+                if (QUERY_END_OF_STREAM.equals(error)) {
+                    // the client marks the end of a chunked response with this error, onComplete follows
+                    return;
+                } else if (error != null) {
+                    logger.warn("{}", error);
+                } else if (results != null) {
+                    convertClientResutToRepository(results, consumer);
+                }
+            }, done::countDown, e -> {
+                logger.warn("Query failed: {}", e.getMessage());
+                done.countDown();
+            });
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Cancellable cancellable = running.get();
+                if (cancellable != null) {
+                    cancellable.cancel();
+                }
+                Thread.currentThread().interrupt();
+            }
         } else {
-            logger.warn("Returning empty list because queryAPI isn't present");
-            return Collections.emptyList();
+            logger.warn("Returning no results because client isn't connected");
         }
     }
 
-    private List<InfluxRow> convertClientResutToRepository(List<QueryResult.Result> results) {
-        List<InfluxRow> rows = new ArrayList<>();
+    private void convertClientResutToRepository(List<QueryResult.Result> results, Consumer<InfluxRow> consumer) {
         for (QueryResult.Result result : results) {
             List<QueryResult.Series> seriess = result.getSeries();
             if (result.getError() != null) {
@@ -190,18 +206,25 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                                 throw new IllegalStateException("missing column");
                             }
                             for (int i = 0; i < valuess.size(); i++) {
-                                Double rawTime = (Double) valuess.get(i).get(timestampColumn);
-                                Instant time = Instant.ofEpochMilli(rawTime.longValue());
+                                Instant time = parseTime(valuess.get(i).get(timestampColumn));
                                 Object value = valuess.get(i).get(valueColumn);
                                 logger.trace("adding historic item {}: time {} value {}", itemName, time, value);
-                                rows.add(new InfluxRow(time, itemName, value));
+                                consumer.accept(new InfluxRow(time, itemName, value));
                             }
                         }
                     }
                 }
             }
         }
-        return rows;
+    }
+
+    // chunked queries return RFC3339 timestamps instead of epoch values
+    private Instant parseTime(Object rawTime) {
+        if (rawTime instanceof Number) {
+            return Instant.ofEpochMilli(((Number) rawTime).longValue());
+        } else {
+            return Instant.parse(rawTime.toString());
+        }
     }
 
     @Override
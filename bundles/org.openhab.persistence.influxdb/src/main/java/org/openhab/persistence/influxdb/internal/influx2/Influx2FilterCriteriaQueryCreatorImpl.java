@@ -16,11 +16,14 @@ import static com.influxdb.query.dsl.functions.restriction.Restrictions.measurem
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 import static org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils.stateToObject;
 
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.Locale;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
+import org.openhab.persistence.influxdb.internal.InfluxDBAggregationFunction;
 import org.openhab.persistence.influxdb.internal.InfluxDBVersion;
 
 import com.influxdb.query.dsl.Flux;
@@ -36,6 +39,41 @@ import com.influxdb.query.dsl.functions.restriction.Restrictions;
 public class Influx2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQueryCreator {
     @Override
     public String createQuery(FilterCriteria criteria, String retentionPolicy) {
+        Flux flux = createFilteredQuery(criteria, retentionPolicy);
+
+        if (criteria.getOrdering() != null) {
+            boolean desc = criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING;
+            flux = flux.sort().withDesc(desc).withColumns(new String[] { COLUMN_TIME_NAME_V2 });
+        }
+
+        if (criteria.getPageSize() != Integer.MAX_VALUE) {
+            flux = flux.limit(criteria.getPageSize()).withPropertyValue("offset",
+                    criteria.getPageNumber() * criteria.getPageSize());
+        }
+
+        return flux.toString();
+    }
+
+    @Override
+    public String createAggregationQuery(FilterCriteria criteria, String retentionPolicy, Duration window,
+            InfluxDBAggregationFunction function) {
+        Flux flux = createFilteredQuery(criteria, retentionPolicy);
+
+        String functionName = function == InfluxDBAggregationFunction.AVG ? "mean"
+                : function.name().toLowerCase(Locale.ROOT);
+        // windows are stamped with their start like GROUP BY time() does for InfluxDB 1.0
+        flux = flux.expression("aggregateWindow(every: " + window.getSeconds() + "s, fn: " + functionName
+                + ", timeSrc: \"" + COLUMN_START_NAME_V2 + "\", createEmpty: false)");
+
+        if (criteria.getOrdering() != null) {
+            boolean desc = criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING;
+            flux = flux.sort().withDesc(desc).withColumns(new String[] { COLUMN_TIME_NAME_V2 });
+        }
+
+        return flux.toString();
+    }
+
+    private Flux createFilteredQuery(FilterCriteria criteria, String retentionPolicy) {
         Flux flux = Flux.from(retentionPolicy);
 
         RangeFlux range = flux.range();
@@ -60,16 +98,6 @@ public class Influx2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
             flux = flux.filter(restrictions);
         }
 
-        if (criteria.getOrdering() != null) {
-            boolean desc = criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING;
-            flux = flux.sort().withDesc(desc).withColumns(new String[] { COLUMN_TIME_NAME_V2 });
-        }
-
-        if (criteria.getPageSize() != Integer.MAX_VALUE) {
-            flux = flux.limit(criteria.getPageSize()).withPropertyValue("offset",
-                    criteria.getPageNumber() * criteria.getPageSize());
-        }
-
-        return flux.toString();
+        return flux;
     }
 }
@@ -19,28 +19,29 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBConstants;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
-import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
-import org.openhab.persistence.influxdb.internal.UnnexpectedConditionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.influxdb.Cancellable;
 import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.InfluxDBClientOptions;
 import com.influxdb.client.QueryApi;
-import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteApiBlocking;
 import com.influxdb.client.domain.Ready;
 import com.influxdb.client.domain.WritePrecision;
-import com.influxdb.client.write.Point;
+import com.influxdb.exceptions.InfluxException;
+import com.influxdb.query.FluxRecord;
 import com.influxdb.query.FluxTable;
 
 /**
@@ -57,7 +58,7 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     @Nullable
     private QueryApi queryAPI;
     @Nullable
-    private WriteApi writeAPI;
+    private WriteApiBlocking writeAPI;
 
     public InfluxDB2RepositoryImpl(InfluxDBConfiguration configuration) {
         this.configuration = configuration;
@@ -94,7 +95,7 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
         this.client = createdClient;
         logger.debug("Succesfully connected to InfluxDB. Instance ready={}", createdClient.ready());
         queryAPI = createdClient.getQueryApi();
-        writeAPI = createdClient.getWriteApi();
+        writeAPI = createdClient.getWriteApiBlocking();
         return checkConnectionStatus();
     }
 
@@ -134,70 +135,72 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     }
 
     /**
-     * Write point to database
+     * Write points to database
      *
-     * @param point
+     * @param records Points in line protocol
+     * @return whether the points have been written, can be written again later or have been rejected
      */
     @Override
-    public void write(InfluxPoint point) {
-        final WriteApi currentWriteAPI = writeAPI;
+    public WriteResult write(String records) {
+        final WriteApiBlocking currentWriteAPI = writeAPI;
         if (currentWriteAPI != null) {
-            currentWriteAPI.writePoint(convertPointToClientFormat(point));
-        } else {
-            logger.warn("Write point {} ignored due to writeAPI isn't present", point);
-        }
-    }
-
-    private Point convertPointToClientFormat(InfluxPoint point) {
-        Point clientPoint = Point.measurement(point.getMeasurementName()).time(point.getTime(), WritePrecision.MS);
-        setPointValue(point.getValue(), clientPoint);
-        point.getTags().entrySet().forEach(e -> clientPoint.addTag(e.getKey(), e.getValue()));
-        return clientPoint;
-    }
-
-    private void setPointValue(@Nullable Object value, Point point) {
-        if (value instanceof String) {
-            point.addField(FIELD_VALUE_NAME, (String) value);
-        } else if (value instanceof Number) {
-            point.addField(FIELD_VALUE_NAME, (Number) value);
-        } else if (value instanceof Boolean) {
-            point.addField(FIELD_VALUE_NAME, (Boolean) value);
-        } else if (value == null) {
-            point.addField(FIELD_VALUE_NAME, (String) null);
+            try {
+                currentWriteAPI.writeRecord(WritePrecision.MS, records);
+                return WriteResult.WRITTEN;
+            } catch (InfluxException e) {
+                // bad request or unprocessable entity: invalid points, field type conflicts or partial writes
+                if (e.status() == 400 || e.status() == 422) {
+                    logger.warn("InfluxDB rejected points: {}", e.getMessage());
+                    return WriteResult.REJECTED;
+                }
+                logger.debug("Writing points failed: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                logger.debug("Writing points failed: {}", e.getMessage());
+            }
         } else {
-            throw new UnnexpectedConditionException("Not expected value type");
+            logger.warn("Write points ignored due to writeAPI isn't present");
         }
+        return WriteResult.FAILED;
     }
 
     /**
-     * Executes Flux query
+     * Executes Flux query and passes the records to the consumer while they are received from the server
      *
      * @param query Query
-     * @return Query results
+     * @param consumer Consumer for the query results
      */
     @Override
-    public List<InfluxRow> query(String query) {
+    public void query(String query, Consumer<InfluxRow> consumer) {
         final QueryApi currentQueryAPI = queryAPI;
         if (currentQueryAPI != null) {
-            List<FluxTable> clientResult = currentQueryAPI.query(query);
-            return convertClientResutToRepository(clientResult);
+            CountDownLatch done = new CountDownLatch(1);
+            AtomicReference<@Nullable Cancellable> running = new AtomicReference<>();
+            currentQueryAPI.query(query, (cancellable, record) -> {
+                running.set(cancellable);
+                consumer.accept(mapRecordToRow(record));
+            }, e -> {
+                logger.warn("Query failed: {}", e.getMessage());
+                done.countDown();
+            }, done::countDown);
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Cancellable cancellable = running.get();
+                if (cancellable != null) {
+                    cancellable.cancel();
+                }
+                Thread.currentThread().interrupt();
+            }
         } else {
-            logger.warn("Returning empty list because queryAPI isn't present");
-            return Collections.emptyList();
+            logger.warn("Returning no results because queryAPI isn't present");
         }
     }
 
-    private List<InfluxRow> convertClientResutToRepository(List<FluxTable> clientResult) {
-        return clientResult.stream().flatMap(this::mapRawResultToHistoric).collect(Collectors.toList());
-    }
-
-    private Stream<InfluxRow> mapRawResultToHistoric(FluxTable rawRow) {
-        return rawRow.getRecords().stream().map(r -> {
-            String itemName = (String) r.getValueByKey(InfluxDBConstants.TAG_ITEM_NAME);
-            Object value = r.getValueByKey(COLUMN_VALUE_NAME_V2);
-            Instant time = (Instant) r.getValueByKey(COLUMN_TIME_NAME_V2);
-            return new InfluxRow(time, itemName, value);
-        });
+    private InfluxRow mapRecordToRow(FluxRecord record) {
+        String itemName = (String) record.getValueByKey(InfluxDBConstants.TAG_ITEM_NAME);
+        Object value = record.getValueByKey(COLUMN_VALUE_NAME_V2);
+        Instant time = (Instant) record.getValueByKey(COLUMN_TIME_NAME_V2);
+        return new InfluxRow(time, itemName, value);
     }
 
     /**
@@ -15,6 +15,7 @@ package org.openhab.persistence.influxdb.internal;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import java.nio.file.Path;
 import java.util.Map;
 
 import org.eclipse.jdt.annotation.DefaultLocation;
@@ -23,11 +24,13 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.items.MetadataRegistry;
 import org.openhab.persistence.influxdb.InfluxDBPersistenceService;
+import org.openhab.persistence.influxdb.internal.InfluxDBRepository.WriteResult;
 
 /**
  * @author Joan Pujol Espinar - Initial contribution
@@ -39,6 +42,8 @@ public class InfluxDBPersistenceServiceTest {
 
     private @Mock InfluxDBRepository influxDBRepository;
 
+    private @TempDir Path tempDir;
+
     private Map<String, Object> validConfig;
     private Map<String, Object> invalidConfig;
 
@@ -49,6 +54,11 @@ public class InfluxDBPersistenceServiceTest {
             protected InfluxDBRepository createInfluxDBRepository() {
                 return influxDBRepository;
             }
+
+            @Override
+            protected Path getSpillFile() {
+                return tempDir.resolve("spill.lp");
+            }
         };
 
         validConfig = ConfigurationTestHelper.createValidConfigurationParameters();
@@ -92,8 +102,10 @@ public class InfluxDBPersistenceServiceTest {
     public void storeItemWithConnectedRepository() {
         instance.activate(validConfig);
         when(influxDBRepository.isConnected()).thenReturn(true);
+        when(influxDBRepository.write(any())).thenReturn(WriteResult.WRITTEN);
         instance.store(ItemTestHelper.createNumberItem("number", 5));
-        verify(influxDBRepository).write(any());
+        verify(influxDBRepository, timeout(5000)).write(any());
+        instance.deactivate();
     }
 
     @Test
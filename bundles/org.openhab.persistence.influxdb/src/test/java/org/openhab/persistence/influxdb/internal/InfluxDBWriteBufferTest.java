@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.openhab.persistence.influxdb.internal.InfluxDBRepository.WriteResult;
+
+/**
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class InfluxDBWriteBufferTest {
+    private @Mock InfluxDBRepository influxDBRepository;
+
+    private @TempDir Path tempDir;
+
+    @Test
+    public void lineProtocolEscapesNamesTagsAndStrings() {
+        InfluxPoint point = InfluxPoint.newBuilder("my measurement,1").withTime(Instant.ofEpochMilli(1000))
+                .withValue("say \"hi\"\\").withTag("item", "a,b=c d").build();
+
+        StringBuilder sb = new StringBuilder();
+        InfluxDBWriteBuffer.appendLineProtocol(point, sb);
+
+        assertThat(sb.toString(),
+                is("my\\ measurement\\,1,item=a\\,b\\=c\\ d value=\"say \\\"hi\\\"\\\\\" 1000\n"));
+    }
+
+    @Test
+    public void lineProtocolWritesNumberTypes() {
+        StringBuilder sb = new StringBuilder();
+        InfluxDBWriteBuffer.appendLineProtocol(
+                InfluxPoint.newBuilder("m").withTime(Instant.ofEpochMilli(1)).withValue(1).build(), sb);
+        InfluxDBWriteBuffer.appendLineProtocol(
+                InfluxPoint.newBuilder("m").withTime(Instant.ofEpochMilli(2)).withValue(123456789L).build(), sb);
+        InfluxDBWriteBuffer.appendLineProtocol(InfluxPoint.newBuilder("m").withTime(Instant.ofEpochMilli(3))
+                .withValue(new BigDecimal("1E+3")).build(), sb);
+        InfluxDBWriteBuffer.appendLineProtocol(
+                InfluxPoint.newBuilder("m").withTime(Instant.ofEpochMilli(4)).withValue(Double.NaN).build(), sb);
+
+        assertThat(sb.toString(), is("m value=1i 1\nm value=123456789i 2\nm value=1000 3\n"));
+    }
+
+    @Test
+    public void failedWritesAreSpilledAndReplayedInOrder() throws InterruptedException {
+        AtomicBoolean available = new AtomicBoolean(false);
+        List<String> written = new CopyOnWriteArrayList<>();
+        when(influxDBRepository.write(anyString())).thenAnswer(invocation -> {
+            if (!available.get()) {
+                return WriteResult.FAILED;
+            }
+            written.add(invocation.getArgument(0));
+            return WriteResult.WRITTEN;
+        });
+        Path spillFile = tempDir.resolve("spill.lp");
+        InfluxDBConfiguration configuration = new InfluxDBConfiguration(
+                Map.of(InfluxDBConfiguration.BATCH_SIZE_PARAM, 10, InfluxDBConfiguration.FLUSH_INTERVAL_PARAM, 50));
+        InfluxDBWriteBuffer instance = new InfluxDBWriteBuffer(influxDBRepository, configuration, spillFile);
+        instance.start();
+
+        instance.add(InfluxPoint.newBuilder("m").withTime(Instant.ofEpochMilli(1)).withValue(1).build());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Files.exists(spillFile) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(Files.exists(spillFile), is(true));
+
+        // the spilled point is replayed by the next retry, before newer points
+        available.set(true);
+        deadline = System.currentTimeMillis() + 5000;
+        while (Files.exists(spillFile) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        instance.add(InfluxPoint.newBuilder("m").withTime(Instant.ofEpochMilli(2)).withValue(2).build());
+        instance.stop();
+
+        assertThat(String.join("", written), is("m value=1i 1\nm value=2i 2\n"));
+        assertThat(Files.exists(spillFile), is(false));
+    }
+
+    @Test
+    public void batchesAreSpilledWithoutWaitingDuringAnOutage() throws Exception {
+        when(influxDBRepository.write(anyString())).thenReturn(WriteResult.FAILED);
+        Path spillFile = tempDir.resolve("spill.lp");
+        InfluxDBConfiguration configuration = new InfluxDBConfiguration(
+                Map.of(InfluxDBConfiguration.BATCH_SIZE_PARAM, 1, InfluxDBConfiguration.FLUSH_INTERVAL_PARAM, 10));
+        InfluxDBWriteBuffer instance = new InfluxDBWriteBuffer(influxDBRepository, configuration, spillFile);
+        instance.start();
+
+        for (int i = 1; i <= 5; i++) {
+            instance.add(InfluxPoint.newBuilder("m").withTime(Instant.ofEpochMilli(i)).withValue(i).build());
+        }
+        instance.stop();
+
+        // only the first batch has been tried, the next retry is not due yet
+        verify(influxDBRepository, times(1)).write(anyString());
+        assertThat(Files.readString(spillFile),
+                is("m value=1i 1\nm value=2i 2\nm value=3i 3\nm value=4i 4\nm value=5i 5\n"));
+    }
+
+    @Test
+    public void rejectedWritesAreDroppedAndDoNotBlockLaterPoints() throws Exception {
+        List<String> written = new CopyOnWriteArrayList<>();
+        when(influxDBRepository.write(anyString())).thenAnswer(invocation -> {
+            String records = invocation.getArgument(0);
+            if (records.contains("value=\"text\"")) {
+                return WriteResult.REJECTED;
+            }
+            written.add(records);
+            return WriteResult.WRITTEN;
+        });
+        Path spillFile = tempDir.resolve("spill.lp");
+        // a rejected point which has been spilled by a previous version
+        Files.writeString(spillFile, "m value=\"text\" 1\n");
+        InfluxDBConfiguration configuration = new InfluxDBConfiguration(
+                Map.of(InfluxDBConfiguration.BATCH_SIZE_PARAM, 1, InfluxDBConfiguration.FLUSH_INTERVAL_PARAM, 50));
+        InfluxDBWriteBuffer instance = new InfluxDBWriteBuffer(influxDBRepository, configuration, spillFile);
+        instance.start();
+
+        instance.add(InfluxPoint.newBuilder("m").withTime(Instant.ofEpochMilli(2)).withValue("text").build());
+        instance.add(InfluxPoint.newBuilder("m").withTime(Instant.ofEpochMilli(3)).withValue(3).build());
+        instance.stop();
+
+        assertThat(String.join("", written), is("m value=3i 3\n"));
+        assertThat(Files.exists(spillFile), is(false));
+    }
+}
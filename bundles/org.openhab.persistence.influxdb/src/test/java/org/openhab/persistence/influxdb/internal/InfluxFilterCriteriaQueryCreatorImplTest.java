@@ -15,6 +15,7 @@ package org.openhab.persistence.influxdb.internal;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -159,6 +160,32 @@ public class InfluxFilterCriteriaQueryCreatorImplTest {
                         + "|> sort(desc:false, columns:[\"_time\"])"));
     }
 
+    @Test
+    public void testAggregationQuery() {
+        FilterCriteria criteria = createBaseCriteria();
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime tomorrow = now.plus(1, ChronoUnit.DAYS);
+        criteria.setBeginDate(now);
+        criteria.setEndDate(tomorrow);
+        criteria.setOrdering(FilterCriteria.Ordering.ASCENDING);
+
+        String queryV1 = instanceV1.createAggregationQuery(criteria, RETENTION_POLICY, Duration.ofMinutes(5),
+                InfluxDBAggregationFunction.AVG);
+        String expectedQueryV1 = String.format(
+                "SELECT MEAN(value) AS value FROM origin.sampleItem WHERE time >= '%s' AND time <= '%s' GROUP BY time(300s) fill(none) ORDER BY time ASC;",
+                now.toInstant(), tomorrow.toInstant());
+        assertThat(queryV1, equalTo(expectedQueryV1));
+
+        String queryV2 = instanceV2.createAggregationQuery(criteria, RETENTION_POLICY, Duration.ofMinutes(5),
+                InfluxDBAggregationFunction.MAX);
+        String expectedQueryV2 = String.format("from(bucket:\"origin\")\n\t" + "|> range(start:%s, stop:%s)\n\t"
+                + "|> filter(fn: (r) => r[\"_measurement\"] == \"sampleItem\")\n\t"
+                + "|> aggregateWindow(every: 300s, fn: max, timeSrc: \"_start\", createEmpty: false)\n\t"
+                + "|> sort(desc:false, columns:[\"_time\"])", INFLUX2_DATE_FORMATTER.format(now.toInstant()),
+                INFLUX2_DATE_FORMATTER.format(tomorrow.toInstant()));
+        assertThat(queryV2, equalTo(expectedQueryV2));
+    }
+
     private FilterCriteria createBaseCriteria() {
         return createBaseCriteria(ITEM_NAME);
     }
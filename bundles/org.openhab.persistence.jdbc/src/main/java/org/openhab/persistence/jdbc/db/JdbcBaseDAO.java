@@ -13,16 +13,22 @@
 package org.openhab.persistence.jdbc.db;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import javax.measure.Quantity;
 import javax.measure.Unit;
@@ -72,6 +78,9 @@ public class JdbcBaseDAO {
     protected String urlSuffix = "";
     public final Map<String, String> sqlTypes = new HashMap<>();
 
+    // SQL texts already generated per item table, so that the database and driver statement caches can reuse them
+    private final Map<String, String> sqlCache = new ConcurrentHashMap<>();
+
     // Get Database Meta data
     protected DbMetaData dbMeta;
 
@@ -85,6 +94,12 @@ public class JdbcBaseDAO {
     protected String sqlGetItemTables;
     protected String sqlCreateItemTable;
     protected String sqlInsertItemValue;
+    protected String sqlInsertItemValues;
+    protected String sqlInsertItemValuesRow;
+    protected String sqlAggregationBucket;
+
+    // Maximum number of rows written by one multi-row INSERT statement
+    protected int maxRowsPerInsert = 500;
 
     /********
      * INIT *
@@ -144,6 +159,9 @@ public class JdbcBaseDAO {
         sqlGetItemTables = "SELECT table_name FROM information_schema.tables WHERE table_type='BASE TABLE' AND table_schema='#jdbcUriDatabaseName#' AND NOT table_name='#itemsManageTable#'";
         sqlCreateItemTable = "CREATE TABLE IF NOT EXISTS #tableName# (time #tablePrimaryKey# NOT NULL, value #dbType#, PRIMARY KEY(time))";
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, ? ) ON DUPLICATE KEY UPDATE VALUE= ?";
+        sqlInsertItemValues = "INSERT INTO #tableName# (TIME, VALUE) VALUES #valueRows# ON DUPLICATE KEY UPDATE VALUE=VALUES(VALUE)";
+        sqlInsertItemValuesRow = "( ?, ? )";
+        sqlAggregationBucket = "FLOOR(UNIX_TIMESTAMP(time)/#bucketSeconds#)";
     }
 
     /**
@@ -327,24 +345,90 @@ public class JdbcBaseDAO {
 
     public void doStoreItemValue(Item item, ItemVO vo) {
         ItemVO storedVO = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#tablePrimaryValue#" },
-                new String[] { storedVO.getTableName(), sqlTypes.get("tablePrimaryValue") });
+        String sql = cachedSql("insert#" + storedVO.getTableName(),
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#tablePrimaryValue#" },
+                        new String[] { storedVO.getTableName(), sqlTypes.get("tablePrimaryValue") }));
         Object[] params = new Object[] { storedVO.getValue(), storedVO.getValue() };
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
+    /**
+     * Writes multiple values into one item table. Every {@link ItemVO} needs to carry its time, value and dbType
+     * (see {@link #createItemValue(Item, ItemVO)}). The values are written with as few multi-row INSERT statements as
+     * {@link #maxRowsPerInsert} allows.
+     */
+    public void doStoreItemValues(String tableName, List<ItemVO> vol) {
+        for (int from = 0; from < vol.size(); from += maxRowsPerInsert) {
+            List<ItemVO> rows = vol.subList(from, Math.min(from + maxRowsPerInsert, vol.size()));
+            if (rows.size() == 1) {
+                storeItemValueRows(tableName, rows);
+                continue;
+            }
+            boolean stored;
+            try {
+                // Yank logs SQL errors and returns 0 rows instead of throwing them
+                stored = storeItemValueRows(tableName, rows) > 0;
+            } catch (RuntimeException e) {
+                stored = false;
+            }
+            if (!stored) {
+                // a single duplicate or invalid row fails the whole statement, so retry the rows one by one
+                logger.debug("JDBC::doStoreItemValues: multi-row insert into '{}' failed, storing {} rows one by one",
+                        tableName, rows.size());
+                for (ItemVO vo : rows) {
+                    try {
+                        storeItemValueRows(tableName, List.of(vo));
+                    } catch (RuntimeException e) {
+                        logger.warn("JDBC::doStoreItemValues: failed to store value '{}' into table '{}': {}",
+                                vo.getValue(), tableName, e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private int storeItemValueRows(String tableName, List<ItemVO> rows) {
+        String sql = storeItemValuesProvider(tableName, rows);
+        Object[] params = new Object[rows.size() * 2];
+        int i = 0;
+        for (ItemVO vo : rows) {
+            params[i++] = timeAsObject(vo.getTime());
+            params[i++] = vo.getValue();
+        }
+        logger.debug("JDBC::doStoreItemValues sql={} rows={}", sql, rows.size());
+        return Yank.execute(sql, params);
+    }
+
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name, ZoneId timeZone) {
         String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
         logger.debug("JDBC::doGetHistItemFilterQuery sql={}", sql);
-        List<Object[]> m = Yank.queryObjectArrays(sql, null);
-        // we already retrieve the unit here once as it is a very costly operation
-        String itemName = item.getName();
-        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
-        return m.stream().map(o -> new JdbcHistoricItem(itemName, getState(item, unit, o[1]), objectAsDate(o[0])))
-                .collect(Collectors.<HistoricItem> toList());
+        List<Object[]> m = Yank.queryObjectArrays(sql, histItemFilterQueryParams(filter, timeZone));
+        return historicItemsProvider(item, m);
+    }
+
+    /**
+     * Queries at most about maxPoints values by grouping the rows of the filter range into time buckets of equal
+     * length, each bucket is reduced to one value by the aggregate function (AVG, MIN, MAX or LAST).
+     * The filter needs both a begin and an end date. Like the values of the filter query, the aggregated values are
+     * rounded to numberDecimalcount decimals, unless it is -1.
+     */
+    public List<HistoricItem> doGetHistItemAggregateQuery(Item item, FilterCriteria filter, int numberDecimalcount,
+            String table, String function, int maxPoints, ZoneId timeZone) {
+        long rangeSeconds = filter.getEndDate().toEpochSecond() - filter.getBeginDate().toEpochSecond();
+        long bucketSeconds = Math.max(1, (rangeSeconds + maxPoints - 1) / maxPoints);
+        String sql = histItemAggregateQueryProvider(filter, table, function, bucketSeconds);
+        logger.debug("JDBC::doGetHistItemAggregateQuery sql={}", sql);
+        List<Object[]> m = Yank.queryObjectArrays(sql, histItemFilterQueryParams(filter, timeZone));
+        if (numberDecimalcount > -1) {
+            // rounded here instead of in SQL, as every database needs its own syntax for rounding an aggregate
+            for (Object[] row : m) {
+                row[1] = roundValue(row[1], numberDecimalcount);
+            }
+        }
+        return historicItemsProvider(item, m);
     }
 
     /*************
@@ -361,13 +445,11 @@ public class JdbcBaseDAO {
         String filterString = "";
         if (filter.getBeginDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME>?";
         }
         if (filter.getEndDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME<?";
         }
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC ";
         if (filter.getPageSize() != 0x7fffffff) {
@@ -385,6 +467,37 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    protected String histItemAggregateQueryProvider(FilterCriteria filter, String table, String function,
+            long bucketSeconds) {
+        String bucket = sqlAggregationBucket.replace("#bucketSeconds#", String.valueOf(bucketSeconds));
+        String filterString = " WHERE TIME>? AND TIME<? AND VALUE IS NOT NULL";
+        String orderString = (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY 1 ASC" : " ORDER BY 1 DESC";
+        String queryString;
+        if ("LAST".equals(function)) {
+            queryString = "SELECT time, value FROM " + table + " WHERE time IN (SELECT MAX(time) FROM " + table
+                    + filterString + " GROUP BY " + bucket + ")" + orderString;
+        } else {
+            queryString = "SELECT MIN(time), " + function + "(value) FROM " + table + filterString + " GROUP BY "
+                    + bucket + orderString;
+        }
+        logger.debug("JDBC::query queryString = {}", queryString);
+        return queryString;
+    }
+
+    /**
+     * Returns the parameters for the placeholders of {@link #histItemFilterQueryProvider}: begin and end date, if set.
+     */
+    protected Object[] histItemFilterQueryParams(FilterCriteria filter, ZoneId timeZone) {
+        List<Object> params = new ArrayList<>(2);
+        if (filter.getBeginDate() != null) {
+            params.add(filterDateAsObject(filter.getBeginDate(), timeZone));
+        }
+        if (filter.getEndDate() != null) {
+            params.add(filterDateAsObject(filter.getEndDate(), timeZone));
+        }
+        return params.toArray();
+    }
+
     private String updateItemTableNamesProvider(List<ItemVO> namesList) {
         logger.debug("JDBC::updateItemTableNamesProvider namesList.size = {}", namesList.size());
         String queryString = "";
@@ -396,6 +509,24 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    protected String storeItemValuesProvider(String tableName, List<ItemVO> vol) {
+        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValues,
+                new String[] { "#tableName#", "#valueRows#" }, new String[] { tableName, valueRowsProvider(vol) });
+        logger.debug("JDBC::storeItemValuesProvider sql = {}", sql);
+        return sql;
+    }
+
+    protected String valueRowsProvider(List<ItemVO> vol) {
+        StringBuilder valueRows = new StringBuilder();
+        for (ItemVO vo : vol) {
+            if (valueRows.length() > 0) {
+                valueRows.append(", ");
+            }
+            valueRows.append(sqlInsertItemValuesRow.replace("#dbType#", vo.getDbType()));
+        }
+        return valueRows.toString();
+    }
+
     protected ItemVO storeItemValueProvider(Item item, ItemVO vo) {
         String itemType = getItemType(item);
 
@@ -487,6 +618,41 @@ public class JdbcBaseDAO {
     /*****************
      * H E L P E R S *
      *****************/
+
+    /**
+     * Wraps the queried rows in a list which creates the {@link HistoricItem}s only when they are accessed.
+     */
+    protected List<HistoricItem> historicItemsProvider(Item item, List<Object[]> rows) {
+        // we already retrieve the unit here once as it is a very costly operation
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
+        return new AbstractList<HistoricItem>() {
+            @Override
+            public HistoricItem get(int index) {
+                Object[] o = rows.get(index);
+                return new JdbcHistoricItem(itemName, getState(item, unit, o[1]), objectAsDate(o[0]));
+            }
+
+            @Override
+            public int size() {
+                return rows.size();
+            }
+        };
+    }
+
+    /**
+     * Rounds HALF UP like the ROUND of the filter query, keeping the type of the value for {@link #getState}.
+     */
+    private Object roundValue(Object v, int numberDecimalcount) {
+        if (v instanceof BigDecimal) {
+            return ((BigDecimal) v).setScale(numberDecimalcount, RoundingMode.HALF_UP);
+        } else if (v instanceof Double || v instanceof Float) {
+            return BigDecimal.valueOf(((Number) v).doubleValue()).setScale(numberDecimalcount, RoundingMode.HALF_UP)
+                    .doubleValue();
+        }
+        return v;
+    }
+
     protected State getState(Item item, @Nullable Unit<? extends Quantity<?>> unit, Object v) {
         logger.debug(
                 "JDBC::ItemResultHandler::handleResult getState value = '{}', unit = '{}', getClass = '{}', clazz = '{}'",
@@ -500,8 +666,8 @@ public class JdbcBaseDAO {
                 return unit == null ? new DecimalType((BigDecimal) v)
                         : QuantityType.valueOf(((BigDecimal) v).doubleValue(), unit);
             } else if (it.toUpperCase().contains("INT")) {
-                return unit == null ? new DecimalType(((Integer) v).intValue())
-                        : QuantityType.valueOf(((Integer) v).doubleValue(), unit);
+                return unit == null ? new DecimalType(((Number) v).intValue())
+                        : QuantityType.valueOf(((Number) v).doubleValue(), unit);
             }
             return unit == null ? DecimalType.valueOf(((String) v).toString())
                     : QuantityType.valueOf(((String) v).toString());
@@ -541,6 +707,34 @@ public class JdbcBaseDAO {
         return ((java.sql.Timestamp) v).getTime();
     }
 
+    /**
+     * Converts a date of a {@link FilterCriteria} into the local date time of the given zone, truncated to seconds.
+     */
+    protected Object filterDateAsObject(ZonedDateTime date, ZoneId timeZone) {
+        return Timestamp.valueOf(date.withZoneSameInstant(timeZone).toLocalDateTime().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Returns the SQL text stored for the key, the provider is only called if there is none yet.
+     */
+    protected String cachedSql(String key, Supplier<String> provider) {
+        return sqlCache.computeIfAbsent(key, k -> provider.get());
+    }
+
+    /**
+     * Drops all cached SQL texts, e.g. after sqlTypes have changed.
+     */
+    public void clearSqlCache() {
+        sqlCache.clear();
+    }
+
+    /**
+     * Converts the time of a queued value into the object bound to the TIME column of an item table.
+     */
+    protected Object timeAsObject(Date time) {
+        return new Timestamp(time.getTime());
+    }
+
     protected Integer objectAsInteger(Object v) {
         if (v instanceof Byte) {
             return ((Byte) v).intValue();
@@ -581,6 +775,16 @@ public class JdbcBaseDAO {
     /******************************
      * public Getters and Setters *
      ******************************/
+    /**
+     * Converts the current state of an item into a value object which can be written later on with
+     * {@link #doStoreItemValues(String, List)}. The time of the value is taken when this method is called.
+     */
+    public ItemVO createItemValue(Item item, ItemVO vo) {
+        ItemVO storedVO = storeItemValueProvider(item, vo);
+        storedVO.setTime(new Date());
+        return storedVO;
+    }
+
     public Map<String, String> getSqlTypes() {
         return sqlTypes;
     }
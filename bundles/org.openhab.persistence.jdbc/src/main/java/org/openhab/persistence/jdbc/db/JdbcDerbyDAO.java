@@ -14,20 +14,14 @@ package org.openhab.persistence.jdbc.db;
 
 import java.time.ZoneId;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import javax.measure.Quantity;
-import javax.measure.Unit;
 
 import org.knowm.yank.Yank;
 import org.openhab.core.items.Item;
-import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.FilterCriteria.Ordering;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.persistence.jdbc.model.ItemVO;
 import org.openhab.persistence.jdbc.model.ItemsVO;
-import org.openhab.persistence.jdbc.model.JdbcHistoricItem;
 import org.openhab.persistence.jdbc.utils.StringUtilsExt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +56,9 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         // Prevent error against duplicate time value (seldom): No powerful Merge found:
         // http://www.codeproject.com/Questions/162627/how-to-insert-new-record-in-my-table-if-not-exists
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        sqlInsertItemValues = "INSERT INTO #tableName# (TIME, VALUE) VALUES #valueRows#";
+        sqlInsertItemValuesRow = "( ?, CAST( ? as #dbType#) )";
+        sqlAggregationBucket = "{fn TIMESTAMPDIFF(SQL_TSI_SECOND, TIMESTAMP('1970-01-01 00:00:00'), time)}/#bucketSeconds#";
     }
 
     private void initSqlTypes() {
@@ -149,28 +146,29 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
 
     @Override
     public void doStoreItemValue(Item item, ItemVO vo) {
-        vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName().toUpperCase(), vo.getDbType(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { vo.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
+        ItemVO storedVO = storeItemValueProvider(item, vo);
+        String sql = cachedSql("insert#" + storedVO.getTableName(),
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
+                        new String[] { storedVO.getTableName().toUpperCase(), storedVO.getDbType(),
+                                sqlTypes.get("tablePrimaryValue") }));
+        Object[] params = new Object[] { storedVO.getValue() };
+        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
+    @Override
+    public void doStoreItemValues(String tableName, List<ItemVO> vol) {
+        super.doStoreItemValues(tableName.toUpperCase(), vol);
+    }
+
     @Override
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name, ZoneId timeZone) {
         String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
-        List<Object[]> m = Yank.queryObjectArrays(sql, null);
+        List<Object[]> m = Yank.queryObjectArrays(sql, histItemFilterQueryParams(filter, timeZone));
         logger.debug("JDBC::doGetHistItemFilterQuery got Array length={}", m.size());
-        // we already retrieve the unit here once as it is a very costly operation
-        String itemName = item.getName();
-        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
-        return m.stream().map(o -> {
-            logger.debug("JDBC::doGetHistItemFilterQuery 0='{}' 1='{}'", o[0], o[1]);
-            return new JdbcHistoricItem(itemName, getState(item, unit, o[1]), objectAsDate(o[0]));
-        }).collect(Collectors.<HistoricItem> toList());
+        return historicItemsProvider(item, m);
     }
 
     /****************************
@@ -187,13 +185,11 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         String filterString = "";
         if (filter.getBeginDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME>?";
         }
         if (filter.getEndDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME<?";
         }
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC";
         if (filter.getPageSize() != 0x7fffffff) {
@@ -233,6 +229,12 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         return queryString;
     }
 
+    @Override
+    protected String histItemAggregateQueryProvider(FilterCriteria filter, String table, String function,
+            long bucketSeconds) {
+        return super.histItemAggregateQueryProvider(filter, table.toUpperCase(), function, bucketSeconds);
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
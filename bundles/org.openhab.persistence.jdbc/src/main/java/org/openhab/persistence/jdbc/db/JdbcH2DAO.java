@@ -45,6 +45,9 @@ public class JdbcH2DAO extends JdbcBaseDAO {
         // SQL_INSERT_ITEM_VALUE = "INSERT INTO #tableName# (TIME, VALUE) VALUES( NOW(), CAST( ? as #dbType#) )";
         // http://stackoverflow.com/questions/19768051/h2-sql-database-insert-if-the-record-does-not-exist
         sqlInsertItemValue = "MERGE INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        sqlInsertItemValues = "MERGE INTO #tableName# (TIME, VALUE) VALUES #valueRows#";
+        sqlInsertItemValuesRow = "( ?, CAST( ? as #dbType#) )";
+        sqlAggregationBucket = "DATEDIFF('SECOND', TIMESTAMP '1970-01-01 00:00:00', time)/#bucketSeconds#";
     }
 
     /**
@@ -72,12 +75,14 @@ public class JdbcH2DAO extends JdbcBaseDAO {
      *************/
     @Override
     public void doStoreItemValue(Item item, ItemVO vo) {
-        vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName(), vo.getDbType(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { vo.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
+        ItemVO storedVO = storeItemValueProvider(item, vo);
+        String sql = cachedSql("insert#" + storedVO.getTableName(),
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
+                        new String[] { storedVO.getTableName(), storedVO.getDbType(),
+                                sqlTypes.get("tablePrimaryValue") }));
+        Object[] params = new Object[] { storedVO.getValue() };
+        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
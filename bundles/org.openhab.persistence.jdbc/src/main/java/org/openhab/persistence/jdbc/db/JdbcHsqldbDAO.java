@@ -12,6 +12,8 @@
  */
 package org.openhab.persistence.jdbc.db;
 
+import java.util.List;
+
 import org.knowm.yank.Yank;
 import org.openhab.core.items.Item;
 import org.openhab.persistence.jdbc.model.ItemVO;
@@ -54,6 +56,11 @@ public class JdbcHsqldbDAO extends JdbcBaseDAO {
         sqlInsertItemValue = "MERGE INTO #tableName# "
                 + "USING (VALUES #tablePrimaryValue#, CAST( ? as #dbType#)) temp (TIME, VALUE) ON (#tableName#.TIME=temp.TIME) "
                 + "WHEN NOT MATCHED THEN INSERT (TIME, VALUE) VALUES (temp.TIME, temp.VALUE)";
+        sqlInsertItemValues = "MERGE INTO #tableName# "
+                + "USING (VALUES #valueRows#) temp (TIME, VALUE) ON (#tableName#.TIME=temp.TIME) "
+                + "WHEN NOT MATCHED THEN INSERT (TIME, VALUE) VALUES (temp.TIME, temp.VALUE)";
+        sqlInsertItemValuesRow = "( CAST( ? as TIMESTAMP), CAST( ? as #dbType#) )";
+        sqlAggregationBucket = "DATEDIFF('SECOND', TIMESTAMP '1970-01-01 00:00:00', time)/#bucketSeconds#";
     }
 
     /**
@@ -102,12 +109,14 @@ public class JdbcHsqldbDAO extends JdbcBaseDAO {
      *************/
     @Override
     public void doStoreItemValue(Item item, ItemVO vo) {
-        vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tableName#", "#tablePrimaryValue#" }, new String[] {
-                        vo.getTableName(), vo.getDbType(), vo.getTableName(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { vo.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
+        ItemVO storedVO = storeItemValueProvider(item, vo);
+        String sql = cachedSql("insert#" + storedVO.getTableName(),
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#dbType#", "#tableName#", "#tablePrimaryValue#" },
+                        new String[] { storedVO.getTableName(), storedVO.getDbType(), storedVO.getTableName(),
+                                sqlTypes.get("tablePrimaryValue") }));
+        Object[] params = new Object[] { storedVO.getValue() };
+        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
@@ -115,6 +124,13 @@ public class JdbcHsqldbDAO extends JdbcBaseDAO {
      * SQL generation Providers *
      ****************************/
 
+    @Override
+    protected String storeItemValuesProvider(String tableName, List<ItemVO> vol) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValues,
+                new String[] { "#tableName#", "#valueRows#", "#tableName#" },
+                new String[] { tableName, valueRowsProvider(vol), tableName });
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
@@ -63,6 +63,7 @@ public class JdbcMysqlDAO extends JdbcBaseDAO {
         databaseProps.setProperty("dataSource.cachePrepStmts", "true");
         databaseProps.setProperty("dataSource.prepStmtCacheSize", "250");
         databaseProps.setProperty("dataSource.prepStmtCacheSqlLimit", "2048");
+        databaseProps.setProperty("dataSource.useServerPrepStmts", "true");
         databaseProps.setProperty("dataSource.jdbcCompliantTruncation", "false");// jdbc standard max varchar max length
                                                                                  // of 21845
 
@@ -58,6 +58,9 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
         // SQL_INSERT_ITEM_VALUE = "INSERT INTO #tableName# (TIME, VALUE) VALUES( NOW(), CAST( ? as #dbType#) ) ON
         // CONFLICT DO NOTHING";
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        sqlInsertItemValues = "INSERT INTO #tableName# (TIME, VALUE) VALUES #valueRows#";
+        sqlInsertItemValuesRow = "( ?, CAST( ? as #dbType#) )";
+        sqlAggregationBucket = "FLOOR(EXTRACT(EPOCH FROM time)/#bucketSeconds#)";
     }
 
     /**
@@ -132,12 +135,14 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
      *************/
     @Override
     public void doStoreItemValue(Item item, ItemVO vo) {
-        vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName(), vo.getDbType(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { vo.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
+        ItemVO storedVO = storeItemValueProvider(item, vo);
+        String sql = cachedSql("insert#" + storedVO.getTableName(),
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
+                        new String[] { storedVO.getTableName(), storedVO.getDbType(),
+                                sqlTypes.get("tablePrimaryValue") }));
+        Object[] params = new Object[] { storedVO.getValue() };
+        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
@@ -155,13 +160,11 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
         String filterString = "";
         if (filter.getBeginDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME>'" + JDBC_DATE_FORMAT.format(filter.getBeginDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME>?";
         }
         if (filter.getEndDate() != null) {
             filterString += filterString.isEmpty() ? " WHERE" : " AND";
-            filterString += " TIME<'" + JDBC_DATE_FORMAT.format(filter.getEndDate().withZoneSameInstant(timeZone))
-                    + "'";
+            filterString += " TIME<?";
         }
         filterString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY time ASC" : " ORDER BY time DESC";
         if (filter.getPageSize() != 0x7fffffff) {
@@ -12,6 +12,11 @@
  */
 package org.openhab.persistence.jdbc.db;
 
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
 import org.knowm.yank.Yank;
 import org.openhab.core.items.Item;
 import org.openhab.persistence.jdbc.model.ItemVO;
@@ -30,6 +35,8 @@ import org.slf4j.LoggerFactory;
 public class JdbcSqliteDAO extends JdbcBaseDAO {
     private final Logger logger = LoggerFactory.getLogger(JdbcSqliteDAO.class);
 
+    private static final DateTimeFormatter SQLITE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
     /********
      * INIT *
      ********/
@@ -47,6 +54,11 @@ public class JdbcSqliteDAO extends JdbcBaseDAO {
         sqlIfTableExists = "SELECT name FROM sqlite_master WHERE type='table' AND name='#searchTable#'";
         sqlCreateItemsTableIfNot = "CREATE TABLE IF NOT EXISTS #itemsManageTable# (ItemId INTEGER PRIMARY KEY AUTOINCREMENT, #colname# #coltype# NOT NULL)";
         sqlInsertItemValue = "INSERT OR IGNORE INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        sqlInsertItemValues = "INSERT OR IGNORE INTO #tableName# (TIME, VALUE) VALUES #valueRows#";
+        sqlInsertItemValuesRow = "( ?, CAST( ? as #dbType#) )";
+        sqlAggregationBucket = "CAST(strftime('%s', time) AS INTEGER)/#bucketSeconds#";
+        // SQLite allows at most 999 host parameters per statement
+        maxRowsPerInsert = 450;
     }
 
     /**
@@ -91,12 +103,14 @@ public class JdbcSqliteDAO extends JdbcBaseDAO {
      *************/
     @Override
     public void doStoreItemValue(Item item, ItemVO vo) {
-        vo = storeItemValueProvider(item, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { vo.getTableName(), vo.getDbType(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { vo.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, vo.getValue());
+        ItemVO storedVO = storeItemValueProvider(item, vo);
+        String sql = cachedSql("insert#" + storedVO.getTableName(),
+                () -> StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                        new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
+                        new String[] { storedVO.getTableName(), storedVO.getDbType(),
+                                sqlTypes.get("tablePrimaryValue") }));
+        Object[] params = new Object[] { storedVO.getValue() };
+        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
@@ -108,6 +122,22 @@ public class JdbcSqliteDAO extends JdbcBaseDAO {
      * H E L P E R S *
      *****************/
 
+    /**
+     * The TIME column holds local time text, so dates are compared as text in the same format.
+     */
+    @Override
+    protected Object filterDateAsObject(ZonedDateTime date, ZoneId timeZone) {
+        return JDBC_DATE_FORMAT.format(date.withZoneSameInstant(timeZone));
+    }
+
+    /**
+     * The TIME column is written as local time text, the same way as by the 'tablePrimaryValue' strftime function.
+     */
+    @Override
+    protected Object timeAsObject(Date time) {
+        return SQLITE_DATE_FORMAT.format(time.toInstant().atZone(ZoneId.systemDefault()));
+    }
+
     /******************************
      * public Getters and Setters *
      ******************************/
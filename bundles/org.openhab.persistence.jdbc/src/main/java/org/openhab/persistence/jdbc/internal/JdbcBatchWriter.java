@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.model.ItemVO;
+import org.openhab.persistence.jdbc.utils.MovingAverage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind queue for item values. Values are collected in a bounded queue and written by a single writer thread,
+ * grouped per item table, as soon as {@code batchSize} values are pending or {@code flushInterval} ms have passed.
+ * If the queue is full, {@link #add(ItemVO)} blocks the caller until the writer thread has made room.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcBatchWriter {
+    private final Logger logger = LoggerFactory.getLogger(JdbcBatchWriter.class);
+
+    private final JdbcBaseDAO dao;
+    private final BlockingQueue<ItemVO> queue;
+    private final int batchSize;
+    private final long flushInterval;
+
+    private final AtomicLong storedCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final MovingAverage flushTimeAverage = new MovingAverage(50);
+    private volatile long lastFlushTime = 0;
+    private volatile long maxFlushTime = 0;
+
+    private volatile boolean running = false;
+    private @Nullable Thread writerThread;
+
+    public JdbcBatchWriter(JdbcBaseDAO dao, int batchSize, int queueSize, long flushInterval) {
+        this.dao = dao;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueSize, batchSize));
+        this.flushInterval = flushInterval;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::run, "OH-persistence-jdbc-writer");
+        thread.setDaemon(true);
+        thread.start();
+        writerThread = thread;
+        logger.debug("JDBC::JdbcBatchWriter: started with batchSize={} flushInterval={} ms queueSize={}", batchSize,
+                flushInterval, queue.remainingCapacity());
+    }
+
+    /**
+     * Stops the writer thread, which writes all values still queued before it ends, and waits for it. Only one thread
+     * ever writes, so the values are stored in the order they have been queued.
+     */
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = writerThread;
+            writerThread = null;
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("JDBC::JdbcBatchWriter: interrupted while waiting for {} queued values to be stored",
+                        queue.size());
+                return;
+            }
+        }
+        // values added while the writer thread was finishing, no other thread writes anymore
+        drain();
+        logger.debug("JDBC::JdbcBatchWriter: stopped after storing {} values in {} flushes", storedCount.get(),
+                flushCount.get());
+    }
+
+    /**
+     * Queues a value created by {@link JdbcBaseDAO#createItemValue}. Blocks while the queue is full.
+     *
+     * @return false if the writer is not running and the value has not been queued
+     */
+    public boolean add(ItemVO vo) {
+        try {
+            while (running) {
+                if (queue.offer(vo, flushInterval, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+                logger.debug("JDBC::JdbcBatchWriter: queue is full, waiting for the writer to catch up");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void run() {
+        List<ItemVO> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ItemVO first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    ItemVO next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        drain();
+    }
+
+    private void drain() {
+        List<ItemVO> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<ItemVO> batch) {
+        long timerStart = System.currentTimeMillis();
+        // group per table, a later value with the same time replaces an earlier one
+        Map<String, Map<Long, ItemVO>> tables = new LinkedHashMap<>();
+        for (ItemVO vo : batch) {
+            tables.computeIfAbsent(vo.getTableName(), t -> new LinkedHashMap<>()).put(vo.getTime().getTime(), vo);
+        }
+        for (Entry<String, Map<Long, ItemVO>> table : tables.entrySet()) {
+            try {
+                dao.doStoreItemValues(table.getKey(), new ArrayList<>(table.getValue().values()));
+            } catch (RuntimeException e) {
+                logger.warn("JDBC::JdbcBatchWriter: failed to store {} values into table '{}': {}",
+                        table.getValue().size(), table.getKey(), e.getMessage());
+            }
+        }
+        long flushTime = System.currentTimeMillis() - timerStart;
+        lastFlushTime = flushTime;
+        if (flushTime > maxFlushTime) {
+            maxFlushTime = flushTime;
+        }
+        synchronized (flushTimeAverage) {
+            flushTimeAverage.add(flushTime);
+        }
+        storedCount.addAndGet(batch.size());
+        flushCount.incrementAndGet();
+        logger.debug(
+                "JDBC::JdbcBatchWriter: stored {} values into {} tables in {} ms (average {} ms, max {} ms), {} values still queued",
+                batch.size(), tables.size(), flushTime, getAverageFlushTime(), maxFlushTime, queue.size());
+    }
+
+    /******************************
+     * public Getters and Setters *
+     ******************************/
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getStoredCount() {
+        return storedCount.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getLastFlushTime() {
+        return lastFlushTime;
+    }
+
+    public long getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public double getAverageFlushTime() {
+        synchronized (flushTimeAverage) {
+            return flushTimeAverage.getAverageDouble();
+        }
+    }
+}
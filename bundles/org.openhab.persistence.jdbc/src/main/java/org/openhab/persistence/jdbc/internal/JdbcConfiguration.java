@@ -60,6 +60,16 @@ public class JdbcConfiguration {
 
     private int errReconnectThreshold = 0;
 
+    // write-behind queue, disabled if batchSize is 0
+    private int batchSize = 0;
+    private int batchQueueSize = 10000;
+    private int batchFlushInterval = 1000;
+
+    // server side downsampling of range queries, disabled if aggregationMaxPoints is 0
+    private static final Set<String> AGGREGATION_FUNCTIONS = Set.of("AVG", "MIN", "MAX", "LAST");
+    private int aggregationMaxPoints = 0;
+    private String aggregationFunction = "AVG";
+
     public int timerCount = 0;
     public int time1000Statements = 0;
     public long timer1000 = 0;
@@ -173,6 +183,41 @@ public class JdbcConfiguration {
             logger.debug("JDBC::updateConfig: rebuildTableNames={}", rebuildTableNames);
         }
 
+        String bs = (String) configuration.get("batchSize");
+        if (bs != null && !bs.isBlank() && isNumericPattern.matcher(bs).matches()) {
+            batchSize = Integer.parseInt(bs);
+            logger.debug("JDBC::updateConfig: batchSize={}", batchSize);
+        }
+
+        String bq = (String) configuration.get("batchQueueSize");
+        if (bq != null && !bq.isBlank() && isNumericPattern.matcher(bq).matches()) {
+            batchQueueSize = Integer.parseInt(bq);
+            logger.debug("JDBC::updateConfig: batchQueueSize={}", batchQueueSize);
+        }
+
+        String bf = (String) configuration.get("batchFlushInterval");
+        if (bf != null && !bf.isBlank() && isNumericPattern.matcher(bf).matches()) {
+            batchFlushInterval = Math.max(Integer.parseInt(bf), 1);
+            logger.debug("JDBC::updateConfig: batchFlushInterval={}", batchFlushInterval);
+        }
+
+        String am = (String) configuration.get("aggregationMaxPoints");
+        if (am != null && !am.isBlank() && isNumericPattern.matcher(am).matches()) {
+            aggregationMaxPoints = Integer.parseInt(am);
+            logger.debug("JDBC::updateConfig: aggregationMaxPoints={}", aggregationMaxPoints);
+        }
+
+        String af = (String) configuration.get("aggregationFunction");
+        if (af != null && !af.isBlank()) {
+            if (AGGREGATION_FUNCTIONS.contains(af.trim().toUpperCase())) {
+                aggregationFunction = af.trim().toUpperCase();
+                logger.debug("JDBC::updateConfig: aggregationFunction={}", aggregationFunction);
+            } else {
+                logger.warn("JDBC::updateConfig: unknown aggregationFunction '{}', using '{}'", af,
+                        aggregationFunction);
+            }
+        }
+
         // undocumented
         String ac = (String) configuration.get("maximumPoolSize");
         if (ac != null && !ac.isBlank()) {
@@ -350,6 +395,26 @@ public class JdbcConfiguration {
         return tableIdDigitCount;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getBatchQueueSize() {
+        return batchQueueSize;
+    }
+
+    public int getBatchFlushInterval() {
+        return batchFlushInterval;
+    }
+
+    public int getAggregationMaxPoints() {
+        return aggregationMaxPoints;
+    }
+
+    public String getAggregationFunction() {
+        return aggregationFunction;
+    }
+
     public JdbcBaseDAO getDBDAO() {
         return dBDAO;
     }
@@ -373,6 +438,8 @@ public class JdbcConfiguration {
         dBDAO.initAfterFirstDbConnection();
         // Running once again to prior external configured SqlTypes!
         setSqlTypes();
+        // SQL texts generated so far may contain outdated sqlTypes
+        dBDAO.clearSqlCache();
         this.dbConnected = dbConnected;
     }
 
@@ -17,12 +17,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.knowm.yank.Yank;
 import org.openhab.core.i18n.TimeZoneProvider;
 import org.openhab.core.items.Item;
+import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
 import org.openhab.persistence.jdbc.model.ItemVO;
@@ -45,7 +48,9 @@ public class JdbcMapper {
     protected int errCnt;
     protected boolean initialized = false;
     protected JdbcConfiguration conf = null;
-    protected final Map<String, String> sqlTables = new HashMap<>();
+    // item name -> table name, loaded on startup and updated whenever an item table is created
+    protected final Map<String, String> sqlTables = new ConcurrentHashMap<>();
+    protected JdbcBatchWriter batchWriter = null;
     private long afterAccessMin = 10000;
     private long afterAccessMax = 0;
     private static final String ITEM_NAME_PATTERN = "[^a-zA-Z_0-9\\-]";
@@ -105,6 +110,7 @@ public class JdbcMapper {
         logger.debug("JDBC::deleteItemsEntry");
         long timerStart = System.currentTimeMillis();
         conf.getDBDAO().doDeleteItemsEntry(vo);
+        sqlTables.remove(vo.getItemname());
         logTime("deleteItemsEntry", timerStart, System.currentTimeMillis());
         return vo;
     }
@@ -153,7 +159,16 @@ public class JdbcMapper {
             return item;
         }
         long timerStart = System.currentTimeMillis();
-        conf.getDBDAO().doStoreItemValue(item, new ItemVO(tableName, null));
+        JdbcBatchWriter writer = batchWriter;
+        if (writer != null) {
+            ItemVO vo = conf.getDBDAO().createItemValue(item, new ItemVO(tableName, null));
+            if (!writer.add(vo)) {
+                logger.debug("JDBC::storeItemValue: batch writer stopped, storing item '{}' directly", item.getName());
+                conf.getDBDAO().doStoreItemValues(tableName, List.of(vo));
+            }
+        } else {
+            conf.getDBDAO().doStoreItemValue(item, new ItemVO(tableName, null));
+        }
         logTime("storeItemValue", timerStart, System.currentTimeMillis());
         errCnt = 0;
         return item;
@@ -166,8 +181,14 @@ public class JdbcMapper {
                 (filter != null), numberDecimalcount, table, item, item.getName());
         if (table != null) {
             long timerStart = System.currentTimeMillis();
-            List<HistoricItem> result = conf.getDBDAO().doGetHistItemFilterQuery(item, filter, numberDecimalcount,
-                    table, item.getName(), timeZoneProvider.getTimeZone());
+            List<HistoricItem> result;
+            if (isAggregationQuery(filter, item)) {
+                result = conf.getDBDAO().doGetHistItemAggregateQuery(item, filter, numberDecimalcount, table,
+                        conf.getAggregationFunction(), conf.getAggregationMaxPoints(), timeZoneProvider.getTimeZone());
+            } else {
+                result = conf.getDBDAO().doGetHistItemFilterQuery(item, filter, numberDecimalcount, table,
+                        item.getName(), timeZoneProvider.getTimeZone());
+            }
             logTime("getHistItemFilterQuery", timerStart, System.currentTimeMillis());
             errCnt = 0;
             return result;
@@ -177,6 +198,17 @@ public class JdbcMapper {
         return null;
     }
 
+    /**
+     * Range queries of number items are downsampled in the database if enabled. Only chart-like queries are
+     * downsampled: ascending, not paged and not filtered by state, so queries looking for single values still get the
+     * raw rows.
+     */
+    private boolean isAggregationQuery(FilterCriteria filter, Item item) {
+        return conf.getAggregationMaxPoints() > 0 && item instanceof NumberItem && filter.getBeginDate() != null
+                && filter.getEndDate() != null && filter.getPageSize() == Integer.MAX_VALUE
+                && filter.getOrdering() == Ordering.ASCENDING && filter.getState() == null;
+    }
+
     /***********************
      * DATABASE CONNECTION *
      ***********************/
@@ -220,6 +252,28 @@ public class JdbcMapper {
         }
     }
 
+    /**********************
+     * WRITE-BEHIND QUEUE *
+     **********************/
+    protected void startBatchWriter() {
+        if (conf.getBatchSize() > 0 && batchWriter == null) {
+            logger.debug("JDBC::startBatchWriter");
+            JdbcBatchWriter writer = new JdbcBatchWriter(conf.getDBDAO(), conf.getBatchSize(),
+                    conf.getBatchQueueSize(), conf.getBatchFlushInterval());
+            writer.start();
+            batchWriter = writer;
+        }
+    }
+
+    protected void stopBatchWriter() {
+        JdbcBatchWriter writer = batchWriter;
+        if (writer != null) {
+            logger.debug("JDBC::stopBatchWriter: writing {} queued values", writer.getQueueDepth());
+            batchWriter = null;
+            writer.stop();
+        }
+    }
+
     /**************************
      * DATABASE TABLEHANDLING *
      **************************/
@@ -240,6 +294,15 @@ public class JdbcMapper {
     }
 
     protected String getTable(Item item) {
+        // Table already exists - return the name
+        String tableName = sqlTables.get(item.getName());
+        if (tableName != null) {
+            return tableName;
+        }
+        return createTable(item);
+    }
+
+    private synchronized String createTable(Item item) {
         int rowId = 0;
         ItemsVO isvo;
         ItemVO ivo;
@@ -247,7 +310,7 @@ public class JdbcMapper {
         String itemName = item.getName();
         String tableName = sqlTables.get(itemName);
 
-        // Table already exists - return the name
+        // Table has been created by another thread in the meantime
         if (tableName != null) {
             return tableName;
         }
@@ -104,6 +104,7 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
     public void deactivate(final int reason) {
         logger.debug("JDBC::deactivate:  persistence bundle stopping. Disconnecting from database. reason={}", reason);
         // closeConnection();
+        stopBatchWriter();
         initialized = false;
     }
 
@@ -220,6 +221,7 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
             checkDBSchema();
             // connection has been established ... initialization completed!
             initialized = true;
+            startBatchWriter();
         } else {
             initialized = false;
         }
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind queue for {@link JpaPersistentItem}s. Items are collected in a bounded queue and persisted by a single
+ * writer thread in one transaction per batch, as soon as {@code batchSize} items are pending or {@code flushInterval}
+ * ms have passed. The writer thread keeps its {@link EntityManager} open between batches.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JpaBatchWriter {
+    private final Logger logger = LoggerFactory.getLogger(JpaBatchWriter.class);
+
+    private final JpaPersistenceService service;
+    private final BlockingQueue<JpaPersistentItem> queue;
+    private final int batchSize;
+    private final long flushInterval;
+
+    private volatile boolean running = false;
+    private @Nullable Thread writerThread;
+    // only used by the thread writing a batch, guarded by this
+    private @Nullable EntityManager em;
+
+    public JpaBatchWriter(JpaPersistenceService service, int batchSize, int queueSize, long flushInterval) {
+        this.service = service;
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueSize, this.batchSize));
+        this.flushInterval = Math.max(1, flushInterval);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::run, "OH-persistence-jpa-writer");
+        thread.setDaemon(true);
+        thread.start();
+        writerThread = thread;
+        logger.debug("Batch writer started with batchSize={} flushInterval={} ms", batchSize, flushInterval);
+    }
+
+    /**
+     * Stops the writer thread and waits until it has persisted the items which are still queued. Items added while
+     * the writer was finishing are persisted on the calling thread once the writer thread is gone.
+     */
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = writerThread;
+            writerThread = null;
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                // the writer thread still owns the queue, it persists the remaining items on its own
+                logger.warn("Interrupted while waiting for the writer to persist {} queued items", queue.size());
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        writeQueued();
+        closeEntityManager();
+        logger.debug("Batch writer stopped");
+    }
+
+    /**
+     * Queues an item. Blocks while the queue is full.
+     *
+     * @return false if the writer is not running and the item has not been queued
+     */
+    public boolean add(JpaPersistentItem item) {
+        try {
+            while (running) {
+                if (queue.offer(item, flushInterval, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+                logger.debug("Queue is full, waiting for the writer to catch up");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void run() {
+        List<JpaPersistentItem> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                JpaPersistentItem first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    JpaPersistentItem next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        // stopped: persist what is left before the thread ends, nobody else writes while it is alive
+        try {
+            writeQueued();
+        } finally {
+            closeEntityManager();
+        }
+    }
+
+    private void writeQueued() {
+        List<JpaPersistentItem> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private synchronized void closeEntityManager() {
+        EntityManager em = this.em;
+        if (em != null && em.isOpen()) {
+            em.close();
+        }
+        this.em = null;
+    }
+
+    private synchronized void write(List<JpaPersistentItem> batch) {
+        EntityManager em = this.em;
+        if (em == null || !em.isOpen()) {
+            EntityManagerFactory emf = service.getEntityManagerFactory();
+            if (emf == null) {
+                logger.warn("No EntityManagerFactory, dropping {} items", batch.size());
+                return;
+            }
+            em = emf.createEntityManager();
+            this.em = em;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
+            em.getTransaction().begin();
+            for (JpaPersistentItem item : batch) {
+                em.persist(item);
+            }
+            em.getTransaction().commit();
+            // the persisted items are not needed anymore
+            em.clear();
+            logger.debug("Persisted {} items in {} ms, {} items still queued", batch.size(),
+                    System.currentTimeMillis() - start, queue.size());
+        } catch (RuntimeException e) {
+            logger.error("Error on persisting {} items! Rolling back!", batch.size(), e);
+            try {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+            } finally {
+                // start over with a fresh EntityManager
+                em.close();
+                this.em = null;
+            }
+        }
+    }
+}
@@ -32,6 +32,13 @@ public class JpaConfiguration {
     private static final String CFG_USERNAME = "user";
     private static final String CFG_PASSWORD = "password";
     private static final String CFG_SYNCMAPPING = "syncmappings";
+    private static final String CFG_BATCH_SIZE = "batchSize";
+    private static final String CFG_FLUSH_INTERVAL = "flushInterval";
+    private static final String CFG_QUEUE_SIZE = "queueSize";
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_FLUSH_INTERVAL = 1000;
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
 
     public static boolean isInitialized = false;
 
@@ -40,6 +47,9 @@ public class JpaConfiguration {
     public final String dbUserName;
     public final String dbPassword;
     public final String dbSyncMapping;
+    public final int batchSize;
+    public final long flushInterval;
+    public final int queueSize;
 
     public JpaConfiguration(final Map<String, Object> properties) {
         logger.debug("Update config...");
@@ -77,7 +87,29 @@ public class JpaConfiguration {
         }
         dbSyncMapping = (String) properties.get(CFG_SYNCMAPPING);
 
+        batchSize = getInt(properties, CFG_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        flushInterval = getInt(properties, CFG_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL);
+        queueSize = getInt(properties, CFG_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        logger.debug("batchSize: {}, flushInterval: {}, queueSize: {}", batchSize, flushInterval, queueSize);
+
         isInitialized = true;
         logger.debug("Update config... done");
     }
+
+    private int getInt(final Map<String, Object> properties, String key, int defaultValue) {
+        Object param = properties.get(key);
+        if (param == null || param.toString().isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(param.toString().trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        logger.warn("Invalid {} '{}' in jpa.cfg, using {}", key, param, defaultValue);
+        return defaultValue;
+    }
 }
@@ -18,10 +18,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
+import javax.persistence.FlushModeType;
 import javax.persistence.Persistence;
 import javax.persistence.Query;
 
@@ -57,6 +60,9 @@ import org.slf4j.LoggerFactory;
 @Component(service = { PersistenceService.class,
         QueryablePersistenceService.class }, configurationPid = "org.openhab.jpa", configurationPolicy = ConfigurationPolicy.REQUIRE)
 public class JpaPersistenceService implements QueryablePersistenceService {
+    // number of idle EntityManagers kept for queries
+    private static final int MAX_QUERY_ENTITY_MANAGERS = 4;
+
     private final Logger logger = LoggerFactory.getLogger(JpaPersistenceService.class);
 
     private final ItemRegistry itemRegistry;
@@ -65,6 +71,9 @@ public class JpaPersistenceService implements QueryablePersistenceService {
 
     private @NonNullByDefault({}) JpaConfiguration config;
 
+    private @Nullable JpaBatchWriter batchWriter;
+    private final Queue<EntityManager> queryEntityManagers = new ConcurrentLinkedQueue<>();
+
     @Activate
     public JpaPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
@@ -86,6 +95,9 @@ public class JpaPersistenceService implements QueryablePersistenceService {
     public void activate(BundleContext context, Map<String, Object> properties) {
         logger.debug("Activating jpa persistence service");
         config = new JpaConfiguration(properties);
+        JpaBatchWriter writer = new JpaBatchWriter(this, config.batchSize, config.queueSize, config.flushInterval);
+        writer.start();
+        batchWriter = writer;
     }
 
     /**
@@ -94,6 +106,11 @@ public class JpaPersistenceService implements QueryablePersistenceService {
     @Deactivate
     public void deactivate() {
         logger.debug("Deactivating jpa persistence service");
+        JpaBatchWriter writer = batchWriter;
+        if (writer != null) {
+            writer.stop();
+            batchWriter = null;
+        }
         closeEntityManagerFactory();
     }
 
@@ -142,19 +159,10 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         pItem.setRealName(item.getName());
         pItem.setTimestamp(new Date());
 
-        EntityManager em = getEntityManagerFactory().createEntityManager();
-        try {
-            logger.debug("Persisting item...");
-            // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
-            em.getTransaction().begin();
-            em.persist(pItem);
-            em.getTransaction().commit();
-            logger.debug("Persisting item...done");
-        } catch (Exception e) {
-            logger.error("Error on persisting item! Rolling back!", e);
-            em.getTransaction().rollback();
-        } finally {
-            em.close();
+        JpaBatchWriter writer = batchWriter;
+        if (writer == null || !writer.add(pItem)) {
+            logger.debug("Batch writer not running, item {} not persisted", name);
+            return;
         }
 
         logger.debug("Storing item...done");
@@ -200,11 +208,12 @@ public class JpaPersistenceService implements QueryablePersistenceService {
 
         logger.debug("The query: {}", queryString);
 
-        EntityManager em = getEntityManagerFactory().createEntityManager();
+        EntityManager em = acquireQueryEntityManager();
+        if (em == null) {
+            return Collections.emptyList();
+        }
         try {
-            // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
-            em.getTransaction().begin();
-
+            // read-only, no transaction needed
             logger.debug("Creating query...");
             Query query = em.createQuery(queryString);
             query.setParameter("itemName", item.getName());
@@ -227,19 +236,48 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             List<HistoricItem> historicList = JpaHistoricItem.fromResultList(result, item);
             logger.debug("{}", String.format("Convert to HistoricItem: %d", historicList.size()));
 
-            em.getTransaction().commit();
-
+            releaseQueryEntityManager(em);
             return historicList;
         } catch (Exception e) {
             logger.error("Error on querying database!", e);
-            em.getTransaction().rollback();
-        } finally {
             em.close();
         }
 
         return Collections.emptyList();
     }
 
+    /**
+     * Takes an idle EntityManager for queries from the pool or creates a new one.
+     *
+     * @return EntityManager or null if the EntityManagerFactory couldn't be created
+     */
+    private @Nullable EntityManager acquireQueryEntityManager() {
+        EntityManager em;
+        while ((em = queryEntityManagers.poll()) != null) {
+            if (em.isOpen()) {
+                return em;
+            }
+        }
+        EntityManagerFactory fac = getEntityManagerFactory();
+        if (fac == null) {
+            return null;
+        }
+        em = fac.createEntityManager();
+        // nothing is ever written through this EntityManager, so there is nothing to flush before a query
+        em.setFlushMode(FlushModeType.COMMIT);
+        return em;
+    }
+
+    private void releaseQueryEntityManager(EntityManager em) {
+        // detach the results so they don't pile up in the persistence context
+        em.clear();
+        if (queryEntityManagers.size() < MAX_QUERY_ENTITY_MANAGERS && isEntityManagerFactoryOpen()) {
+            queryEntityManagers.offer(em);
+        } else {
+            em.close();
+        }
+    }
+
     /**
      * Creates a new EntityManagerFactory with properties read from openhab.cfg via JpaConfiguration.
      *
@@ -264,6 +302,8 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             logger.warn("You are settings openjpa.jdbc.SynchronizeMappings, I hope you know what you're doing!");
             properties.put("openjpa.jdbc.SynchronizeMappings", config.dbSyncMapping);
         }
+        // let the JDBC driver send the inserts of a batch together
+        properties.put("openjpa.jdbc.DBDictionary", "batchLimit=" + config.batchSize);
 
         EntityManagerFactory fac = Persistence.createEntityManagerFactory(getPersistenceUnitName(), properties);
         logger.debug("Creating EntityManagerFactory...done");
@@ -275,6 +315,12 @@ public class JpaPersistenceService implements QueryablePersistenceService {
      * Closes EntityManagerFactory
      */
     protected void closeEntityManagerFactory() {
+        EntityManager em;
+        while ((em = queryEntityManagers.poll()) != null) {
+            if (em.isOpen()) {
+                em.close();
+            }
+        }
         if (emf != null) {
             emf.close();
             emf = null;
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.types.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Moves the items of the JSON item store written by previous versions into the binary item store. Items which
+ * cannot be converted stay in the JSON item store, so they are not lost and are tried again on the next start.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JsonItemStoreMigration {
+
+    private final Logger logger = LoggerFactory.getLogger(JsonItemStoreMigration.class);
+
+    private final Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
+            .create();
+    private final MapDbItemSerializer serializer;
+
+    public JsonItemStoreMigration(MapDbItemSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Converts the items of the JSON item store and removes them from it. Items already in the binary item store have
+     * been stored by this version, so they are newer and their JSON items are only removed.
+     *
+     * @param jsonItemStore the JSON item store of previous versions
+     * @param itemStore the binary item store
+     * @return the number of items which could not be migrated and are still in the JSON item store
+     */
+    public int migrate(Map<String, String> jsonItemStore, Map<String, byte[]> itemStore) {
+        int total = jsonItemStore.size();
+        int migrated = 0;
+        List<String> done = new ArrayList<>();
+        for (Map.Entry<String, String> entry : jsonItemStore.entrySet()) {
+            if (itemStore.containsKey(entry.getKey())) {
+                done.add(entry.getKey());
+                continue;
+            }
+            byte[] bytes = convert(entry.getKey(), entry.getValue());
+            if (bytes != null) {
+                itemStore.put(entry.getKey(), bytes);
+                done.add(entry.getKey());
+                migrated++;
+            }
+        }
+        done.forEach(jsonItemStore::remove);
+
+        int remaining = jsonItemStore.size();
+        logger.info("Migrated {} of {} items from the JSON item store to the binary item store", migrated, total);
+        if (remaining > 0) {
+            logger.warn("{} items could not be migrated, they are kept in the JSON item store", remaining);
+        }
+        return remaining;
+    }
+
+    private byte @Nullable [] convert(String key, String json) {
+        MapDbItem item;
+        try {
+            item = mapper.fromJson(json, MapDbItem.class);
+        } catch (RuntimeException e) {
+            logger.warn("Couldn't deserialize item '{}' from '{}': {}", key, json, e.getMessage());
+            return null;
+        }
+        if (item == null || !item.isValid()) {
+            logger.warn("Deserialized invalid item '{}' from '{}'", key, json);
+            return null;
+        }
+        try {
+            return serializer.toBytes(item);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Couldn't serialize item '{}': {}", key, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.measure.Unit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.mapdb.Serializer;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.types.State;
+import org.openhab.core.types.TypeParser;
+import org.openhab.core.types.util.UnitUtils;
+
+/**
+ * A binary MapDB {@link Serializer} for {@link MapDbItem}s. The common state types are written with a one byte type
+ * tag followed by their raw values, all other states are written as class name and full string like the
+ * {@link StateTypeAdapter} does.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemSerializer implements Serializer<MapDbItem> {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte TYPE_OTHER = 0;
+    private static final byte TYPE_DECIMAL = 1;
+    private static final byte TYPE_PERCENT = 2;
+    private static final byte TYPE_QUANTITY = 3;
+    private static final byte TYPE_ON_OFF = 4;
+    private static final byte TYPE_OPEN_CLOSED = 5;
+    private static final byte TYPE_HSB = 6;
+    private static final byte TYPE_DATE_TIME = 7;
+    private static final byte TYPE_STRING = 8;
+
+    // parsing a unit symbol is costly and there are only a few different units in use
+    private final Map<String, Unit<?>> units = new ConcurrentHashMap<>();
+
+    /**
+     * Encodes an item into a byte array as stored in the item map.
+     */
+    public byte[] toBytes(MapDbItem item) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        serialize(new DataOutputStream(bytes), item);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes an item from a byte array created by {@link #toBytes(MapDbItem)}.
+     */
+    public MapDbItem fromBytes(byte[] bytes) throws IOException {
+        return deserialize(new DataInputStream(new ByteArrayInputStream(bytes)), bytes.length);
+    }
+
+    @Override
+    public void serialize(@Nullable DataOutput out, @Nullable MapDbItem item) throws IOException {
+        if (out == null || item == null) {
+            throw new IOException("Cannot serialize without output or item");
+        }
+        out.writeByte(FORMAT_VERSION);
+        writeString(out, item.getName());
+        out.writeLong(item.getTimestamp().toInstant().toEpochMilli());
+
+        State state = item.getState();
+        // HSBType extends PercentType which extends DecimalType, so the order of the checks matters
+        if (state instanceof HSBType) {
+            HSBType hsb = (HSBType) state;
+            out.writeByte(TYPE_HSB);
+            writeDecimal(out, hsb.getHue().toBigDecimal());
+            writeDecimal(out, hsb.getSaturation().toBigDecimal());
+            writeDecimal(out, hsb.getBrightness().toBigDecimal());
+        } else if (state instanceof PercentType) {
+            out.writeByte(TYPE_PERCENT);
+            writeDecimal(out, ((PercentType) state).toBigDecimal());
+        } else if (state instanceof DecimalType) {
+            out.writeByte(TYPE_DECIMAL);
+            writeDecimal(out, ((DecimalType) state).toBigDecimal());
+        } else if (state instanceof QuantityType) {
+            QuantityType<?> quantity = (QuantityType<?>) state;
+            out.writeByte(TYPE_QUANTITY);
+            writeDecimal(out, quantity.toBigDecimal());
+            writeString(out, quantity.getUnit().toString());
+        } else if (state instanceof OnOffType) {
+            out.writeByte(TYPE_ON_OFF);
+            out.writeBoolean(state == OnOffType.ON);
+        } else if (state instanceof OpenClosedType) {
+            out.writeByte(TYPE_OPEN_CLOSED);
+            out.writeBoolean(state == OpenClosedType.OPEN);
+        } else if (state instanceof DateTimeType) {
+            ZonedDateTime dateTime = ((DateTimeType) state).getZonedDateTime();
+            out.writeByte(TYPE_DATE_TIME);
+            out.writeLong(dateTime.toEpochSecond());
+            out.writeInt(dateTime.getNano());
+            writeString(out, dateTime.getZone().getId());
+        } else if (state instanceof StringType) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, state.toString());
+        } else {
+            out.writeByte(TYPE_OTHER);
+            writeString(out, state.getClass().getName());
+            writeString(out, state.toFullString());
+        }
+    }
+
+    @Override
+    public MapDbItem deserialize(@Nullable DataInput in, int available) throws IOException {
+        if (in == null) {
+            throw new IOException("Cannot deserialize without input");
+        }
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported format version " + version);
+        }
+        MapDbItem item = new MapDbItem();
+        item.setName(readString(in));
+        item.setTimestamp(new Date(in.readLong()));
+
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_HSB:
+                item.setState(new HSBType(new DecimalType(readDecimal(in)), new PercentType(readDecimal(in)),
+                        new PercentType(readDecimal(in))));
+                break;
+            case TYPE_PERCENT:
+                item.setState(new PercentType(readDecimal(in)));
+                break;
+            case TYPE_DECIMAL:
+                item.setState(new DecimalType(readDecimal(in)));
+                break;
+            case TYPE_QUANTITY:
+                item.setState(readQuantity(readDecimal(in), readString(in)));
+                break;
+            case TYPE_ON_OFF:
+                item.setState(in.readBoolean() ? OnOffType.ON : OnOffType.OFF);
+                break;
+            case TYPE_OPEN_CLOSED:
+                item.setState(in.readBoolean() ? OpenClosedType.OPEN : OpenClosedType.CLOSED);
+                break;
+            case TYPE_DATE_TIME:
+                Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+                item.setState(new DateTimeType(ZonedDateTime.ofInstant(instant, ZoneId.of(readString(in)))));
+                break;
+            case TYPE_STRING:
+                item.setState(new StringType(readString(in)));
+                break;
+            case TYPE_OTHER:
+                item.setState(readOther(readString(in), readString(in)));
+                break;
+            default:
+                throw new IOException("Unknown state type " + type);
+        }
+        return item;
+    }
+
+    @Override
+    public int fixedSize() {
+        return -1;
+    }
+
+    private QuantityType<?> readQuantity(BigDecimal value, String symbol) {
+        Unit<?> unit = units.get(symbol);
+        if (unit == null) {
+            unit = UnitUtils.parseUnit(symbol);
+            if (unit == null) {
+                return new QuantityType<>(value.toPlainString() + " " + symbol);
+            }
+            units.put(symbol, unit);
+        }
+        return new QuantityType<>(value, unit);
+    }
+
+    private State readOther(String typeName, String value) throws IOException {
+        try {
+            @SuppressWarnings("unchecked")
+            Class<? extends State> type = (Class<? extends State>) Class.forName(typeName);
+            State state = TypeParser.parseState(List.of(type), value);
+            if (state != null) {
+                return state;
+            }
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Couldn't deserialize state '" + value + "' of type '" + typeName + "'", e);
+        }
+        throw new IOException("Couldn't deserialize state '" + value + "' of type '" + typeName + "'");
+    }
+
+    private static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        out.writeInt(value.scale());
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            // fits into a long, which covers nearly all values
+            out.writeByte(0);
+            out.writeLong(unscaled.longValue());
+        } else {
+            byte[] bytes = unscaled.toByteArray();
+            if (bytes.length > 255) {
+                throw new IOException("Decimal value " + value + " is too large");
+            }
+            out.writeByte(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static BigDecimal readDecimal(DataInput in) throws IOException {
+        int scale = in.readInt();
+        int length = in.readUnsignedByte();
+        if (length == 0) {
+            return BigDecimal.valueOf(in.readLong(), scale);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    // DataOutput.writeUTF is limited to 64 kB, which is too short for string states
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
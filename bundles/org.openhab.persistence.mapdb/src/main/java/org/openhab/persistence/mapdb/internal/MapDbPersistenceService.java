@@ -24,7 +24,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -32,8 +35,10 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
 import org.openhab.core.OpenHAB;
 import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
@@ -43,15 +48,14 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
+import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-
 /**
  * This is the implementation of the MapDB {@link PersistenceService}. To learn more about MapDB please visit their
  * <a href="http://www.mapdb.org/">website</a>.
@@ -60,30 +64,48 @@ import com.google.gson.GsonBuilder;
  * @author Martin Kühl - Port to 3.x
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class, QueryablePersistenceService.class })
+@Component(service = { PersistenceService.class,
+        QueryablePersistenceService.class }, configurationPid = "org.openhab.mapdb", //
+        property = Constants.SERVICE_PID + "=org.openhab.mapdb")
+@ConfigurableService(category = "persistence", label = "MapDB Persistence Service", description_uri = MapDbPersistenceService.CONFIG_URI)
 public class MapDbPersistenceService implements QueryablePersistenceService {
 
+    protected static final String CONFIG_URI = "persistence:mapdb";
+
     private static final String SERVICE_ID = "mapdb";
     private static final String SERVICE_LABEL = "MapDB";
     private static final Path DB_DIR = new File(OpenHAB.getUserDataFolder(), "persistence").toPath().resolve("mapdb");
     private static final Path BACKUP_DIR = DB_DIR.resolve("backup");
     private static final String DB_FILE_NAME = "storage.mapdb";
+    private static final String ITEM_STORE = "binaryItemStore";
+    private static final String JSON_ITEM_STORE = "itemStore";
+    private static final int DEFAULT_COMMIT_INTERVAL = 0;
+    private static final int DEFAULT_COMMIT_SIZE = 100;
 
     private final Logger logger = LoggerFactory.getLogger(MapDbPersistenceService.class);
 
-    private final ExecutorService threadPool = ThreadPoolManager.getPool(getClass().getSimpleName());
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(getClass().getSimpleName());
 
     /** holds the local instance of the MapDB database */
 
     private @NonNullByDefault({}) DB db;
-    private @NonNullByDefault({}) Map<String, String> map;
+    private @NonNullByDefault({}) Map<String, byte[]> map;
 
-    private transient Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
-            .create();
+    private final MapDbItemSerializer serializer = new MapDbItemSerializer();
+
+    // with a commitInterval, stores are committed together, at most commitInterval ms or commitSize stores after the
+    // first pending store; by default every store is committed right away by a pool thread
+    private int commitInterval = DEFAULT_COMMIT_INTERVAL;
+    private int commitSize = DEFAULT_COMMIT_SIZE;
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+    private final AtomicBoolean commitScheduled = new AtomicBoolean();
+    private long storeCount;
+    private long commitCount;
 
     @Activate
-    public void activate() {
+    public void activate(final Map<String, Object> config) {
         logger.debug("MapDB persistence service is being activated");
+        modified(config);
 
         try {
             Files.createDirectories(DB_DIR);
@@ -96,7 +118,7 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         File dbFile = DB_DIR.resolve(DB_FILE_NAME).toFile();
         try {
             db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
-            map = db.createTreeMap("itemStore").makeOrGet();
+            map = openItemStore();
         } catch (RuntimeException re) {
             Throwable cause = re.getCause();
             if (cause instanceof ClassNotFoundException) {
@@ -129,7 +151,7 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
                 }
 
                 db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
-                map = db.createTreeMap("itemStore").makeOrGet();
+                map = openItemStore();
             } else {
                 logger.warn("Failed to create or open the MapDB: {}", re.getMessage());
                 logger.warn("MapDB persistence service activation has failed.");
@@ -138,10 +160,49 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         logger.debug("MapDB persistence service is now activated");
     }
 
+    /**
+     * Opens the binary item store and moves the items of a JSON item store written by previous versions into it. The
+     * JSON item store is only deleted when all of its items have been migrated.
+     */
+    private Map<String, byte[]> openItemStore() {
+        Map<String, byte[]> itemStore = db.createTreeMap(ITEM_STORE).valueSerializer(Serializer.BYTE_ARRAY)
+                .makeOrGet();
+        if (db.exists(JSON_ITEM_STORE)) {
+            Map<String, String> jsonItemStore = db.getTreeMap(JSON_ITEM_STORE);
+            if (new JsonItemStoreMigration(serializer).migrate(jsonItemStore, itemStore) == 0) {
+                db.delete(JSON_ITEM_STORE);
+            }
+            db.commit();
+        }
+        return itemStore;
+    }
+
+    @Modified
+    protected void modified(final Map<String, Object> config) {
+        commitInterval = getIntConfig(config, "commitInterval", DEFAULT_COMMIT_INTERVAL);
+        commitSize = getIntConfig(config, "commitSize", DEFAULT_COMMIT_SIZE);
+        logger.debug("MapDB commits at most every {} ms or every {} stores", commitInterval, commitSize);
+    }
+
+    private int getIntConfig(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.toString()));
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' for '{}', using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
     @Deactivate
     public void deactivate() {
         logger.debug("MapDB persistence service deactivated");
         if (db != null) {
+            // write everything that has not been committed yet
+            doCommit();
             db.close();
         }
     }
@@ -182,43 +243,76 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         mItem.setName(localAlias);
         mItem.setState(state);
         mItem.setTimestamp(new Date());
-        String json = serialize(mItem);
-        map.put(localAlias, json);
-        commit();
-        if (logger.isDebugEnabled()) {
-            logger.debug("Stored '{}' with state '{}' as '{}' in MapDB database", localAlias, state, json);
+        Optional<byte[]> bytes = serialize(mItem);
+        if (bytes.isEmpty()) {
+            return;
         }
+        map.put(localAlias, bytes.get());
+        commit();
+        logger.debug("Stored '{}' with state '{}' in MapDB database", localAlias, state);
     }
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
-        String json = map.get(filter.getItemName());
-        if (json == null) {
+        byte[] bytes = map.get(filter.getItemName());
+        if (bytes == null) {
             return List.of();
         }
-        Optional<MapDbItem> item = deserialize(json);
+        Optional<MapDbItem> item = deserialize(bytes);
         return item.isPresent() ? List.of(item.get()) : List.of();
     }
 
-    private String serialize(MapDbItem item) {
-        return mapper.toJson(item);
+    private Optional<byte[]> serialize(MapDbItem item) {
+        try {
+            return Optional.of(serializer.toBytes(item));
+        } catch (IOException e) {
+            logger.warn("Couldn't serialize item '{}': {}", item.getName(), e.getMessage());
+            return Optional.empty();
+        }
     }
 
-    @SuppressWarnings("null")
-    private Optional<MapDbItem> deserialize(String json) {
-        MapDbItem item = mapper.<MapDbItem> fromJson(json, MapDbItem.class);
-        if (item == null || !item.isValid()) {
+    private Optional<MapDbItem> deserialize(byte[] bytes) {
+        MapDbItem item;
+        try {
+            item = serializer.fromBytes(bytes);
+        } catch (IOException e) {
+            logger.warn("Couldn't deserialize item: {}", e.getMessage());
+            return Optional.empty();
+        }
+        if (!item.isValid()) {
             logger.warn("Deserialized invalid item: {}", item);
             return Optional.empty();
         } else if (logger.isDebugEnabled()) {
-            logger.debug("Deserialized '{}' with state '{}' from '{}'", item.getName(), item.getState(), json);
+            logger.debug("Deserialized '{}' with state '{}'", item.getName(), item.getState());
         }
 
         return Optional.of(item);
     }
 
     private void commit() {
-        threadPool.submit(() -> db.commit());
+        int pending = pendingWrites.incrementAndGet();
+        if (commitInterval <= 0) {
+            // a commit syncs to disk, so it must not block the thread persisting the item
+            scheduler.execute(this::doCommit);
+        } else if (pending == commitSize) {
+            scheduler.execute(this::doCommit);
+        } else if (!commitScheduled.getAndSet(true)) {
+            scheduler.schedule(this::doCommit, commitInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void doCommit() {
+        commitScheduled.set(false);
+        int pending = pendingWrites.getAndSet(0);
+        if (pending == 0 || db == null || db.isClosed()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        db.commit();
+        storeCount += pending;
+        commitCount++;
+        logger.debug("Committed {} stores in {} ms ({} stores in {} commits since activation)", pending,
+                System.currentTimeMillis() - start, storeCount, commitCount);
     }
 
     private static <T> Stream<T> streamOptional(Optional<T> opt) {
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.types.State;
+import org.openhab.persistence.mapdb.internal.JsonItemStoreMigration;
+import org.openhab.persistence.mapdb.internal.MapDbItem;
+import org.openhab.persistence.mapdb.internal.MapDbItemSerializer;
+import org.openhab.persistence.mapdb.internal.StateTypeAdapter;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JsonItemStoreMigrationTest {
+    private Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter()).create();
+    private MapDbItemSerializer serializer = new MapDbItemSerializer();
+    private JsonItemStoreMigration migration = new JsonItemStoreMigration(serializer);
+
+    private final Map<String, String> jsonItemStore = new HashMap<>();
+    private final Map<String, byte[]> itemStore = new HashMap<>();
+
+    private MapDbItem item(String name, State state) {
+        MapDbItem item = new MapDbItem();
+        item.setName(name);
+        item.setState(state);
+        item.setTimestamp(new Date(1614598496789L));
+        return item;
+    }
+
+    private MapDbItem read(String name) throws IOException {
+        return serializer.fromBytes(Objects.requireNonNull(itemStore.get(name)));
+    }
+
+    @Test
+    public void allItemsAreMigrated() throws IOException {
+        jsonItemStore.put("number", mapper.toJson(item("number", new DecimalType(1.5))));
+        jsonItemStore.put("switch", mapper.toJson(item("switch", OnOffType.ON)));
+
+        assertThat(migration.migrate(jsonItemStore, itemStore), is(0));
+
+        assertThat(jsonItemStore.isEmpty(), is(true));
+        assertThat(read("number").getState(), is(equalTo(new DecimalType(1.5))));
+        assertThat(read("switch").getState(), is(equalTo(OnOffType.ON)));
+    }
+
+    @Test
+    public void newerBinaryItemsAreKept() throws IOException {
+        jsonItemStore.put("string", mapper.toJson(item("string", StringType.valueOf("old"))));
+        itemStore.put("string", serializer.toBytes(item("string", StringType.valueOf("new"))));
+
+        assertThat(migration.migrate(jsonItemStore, itemStore), is(0));
+
+        assertThat(jsonItemStore.isEmpty(), is(true));
+        assertThat(read("string").getState(), is(equalTo(StringType.valueOf("new"))));
+    }
+
+    @Test
+    public void failedItemsStayInTheJsonItemStore() throws IOException {
+        // the state type of an uninstalled add-on cannot be parsed
+        String unknownState = mapper.toJson(item("unknown", OnOffType.ON)).replace(OnOffType.class.getName(),
+                "org.example.UnknownType");
+        jsonItemStore.put("number", mapper.toJson(item("number", new DecimalType(2))));
+        jsonItemStore.put("unknown", unknownState);
+        jsonItemStore.put("broken", "not json");
+
+        assertThat(migration.migrate(jsonItemStore, itemStore), is(2));
+
+        assertThat(read("number").getState(), is(equalTo(new DecimalType(2))));
+        assertThat(itemStore.containsKey("unknown"), is(false));
+        assertThat(itemStore.containsKey("broken"), is(false));
+        assertThat(jsonItemStore.keySet(), is(equalTo(Set.of("unknown", "broken"))));
+        assertThat(jsonItemStore.get("unknown"), is(unknownState));
+    }
+}
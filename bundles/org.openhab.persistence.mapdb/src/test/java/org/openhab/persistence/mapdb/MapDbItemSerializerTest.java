@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.PointType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.types.UpDownType;
+import org.openhab.core.library.unit.ImperialUnits;
+import org.openhab.core.library.unit.SIUnits;
+import org.openhab.core.library.unit.Units;
+import org.openhab.core.types.State;
+import org.openhab.persistence.mapdb.internal.MapDbItem;
+import org.openhab.persistence.mapdb.internal.MapDbItemSerializer;
+
+/**
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemSerializerTest {
+    private MapDbItemSerializer serializer = new MapDbItemSerializer();
+
+    private static final List<DecimalType> DECIMAL_TYPE_VALUES = List.of(DecimalType.ZERO, new DecimalType(1.123),
+            new DecimalType(10000000), new DecimalType(new BigDecimal("-12345678901234567890123.456789")));
+
+    private static final List<HSBType> HSB_TYPE_VALUES = List.of(HSBType.BLACK, HSBType.GREEN, HSBType.WHITE,
+            HSBType.fromRGB(1, 2, 3), HSBType.fromRGB(11, 22, 33), HSBType.fromRGB(0, 0, 255));
+
+    private static final List<State> ENUM_TYPE_VALUES = List.of(OnOffType.ON, OnOffType.OFF, OpenClosedType.OPEN,
+            OpenClosedType.CLOSED);
+
+    private static final List<PercentType> PERCENT_TYPE_VALUES = List.of(PercentType.ZERO, PercentType.HUNDRED,
+            PercentType.valueOf("0.0000001"), PercentType.valueOf("12"), PercentType.valueOf("99.999"));
+
+    private static final List<QuantityType<?>> QUANTITY_TYPE_VALUES = List.of(QuantityType.valueOf("0 W"),
+            QuantityType.valueOf("1 kW"), QuantityType.valueOf(20, Units.AMPERE),
+            new QuantityType<>(new BigDecimal("21.23"), SIUnits.CELSIUS),
+            new QuantityType<>(new BigDecimal("75"), ImperialUnits.MILES_PER_HOUR),
+            QuantityType.valueOf(1000, Units.KELVIN), QuantityType.valueOf(100, Units.METRE_PER_SQUARE_SECOND));
+
+    private static final List<State> DATE_TIME_TYPE_VALUES = List.of(new DateTimeType("2021-03-01T12:34:56.789+01:00"),
+            new DateTimeType("1970-01-01T00:00:00Z"));
+
+    private static final List<StringType> STRING_TYPE_VALUES = List.of(StringType.valueOf("test"),
+            StringType.valueOf("a b c 1 2 3"), StringType.valueOf(""), StringType.valueOf("@@@###   @@@"),
+            StringType.valueOf("x".repeat(70000)));
+
+    private static final List<State> OTHER_TYPE_VALUES = List.of(UpDownType.UP, new PointType("52.5,13.4"));
+
+    private static final List<State> VALUES = Stream
+            .of(DECIMAL_TYPE_VALUES, HSB_TYPE_VALUES, ENUM_TYPE_VALUES, PERCENT_TYPE_VALUES, QUANTITY_TYPE_VALUES,
+                    DATE_TIME_TYPE_VALUES, STRING_TYPE_VALUES, OTHER_TYPE_VALUES)
+            .flatMap(list -> list.stream()).collect(Collectors.toList());
+
+    @ParameterizedTest
+    @MethodSource
+    public void readWriteRoundtripShouldRecreateTheWrittenItem(State state) throws IOException {
+        MapDbItem item = new MapDbItem();
+        item.setName("item");
+        item.setState(state);
+        item.setTimestamp(new Date(1614598496789L));
+
+        MapDbItem actual = serializer.fromBytes(serializer.toBytes(item));
+
+        assertThat(actual.getName(), is(equalTo(item.getName())));
+        assertThat(actual.getTimestamp(), is(equalTo(item.getTimestamp())));
+        assertThat(actual.getState(), is(equalTo(state)));
+    }
+
+    public static Stream<State> readWriteRoundtripShouldRecreateTheWrittenItem() {
+        return VALUES.stream();
+    }
+}
@@ -14,17 +14,26 @@ package org.openhab.persistence.mongodb.internal;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.bson.types.ObjectId;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
@@ -60,15 +69,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.BulkWriteResult;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientURI;
+import com.mongodb.MongoException;
 
 /**
  * This is the implementation of the MongoDB {@link PersistenceService}.
  *
+ * Values are buffered and written every {@code flushInterval} ms with one unordered bulk write. With {@code timeSeries}
+ * enabled, the values of an item are stored in one document per hour, which holds the values in an array.
+ *
  * @author Thorsten Hoeger - Initial contribution
  */
 @NonNullByDefault
@@ -81,12 +97,22 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     private static final String FIELD_REALNAME = "realName";
     private static final String FIELD_TIMESTAMP = "timestamp";
     private static final String FIELD_VALUE = "value";
+    private static final String FIELD_BUCKET = "bucket";
+    private static final String FIELD_VALUES = "values";
+    private static final String FIELD_COUNT = "count";
+
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000;
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int MIN_QUEUE_SIZE = 10000;
 
     private final Logger logger = LoggerFactory.getLogger(MongoDBPersistenceService.class);
 
     private @NonNullByDefault({}) String url;
     private @NonNullByDefault({}) String db;
     private @NonNullByDefault({}) String collection;
+    private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private boolean timeSeries = false;
 
     private boolean initialized = false;
 
@@ -95,6 +121,14 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     private @NonNullByDefault({}) MongoClient cl;
     private @NonNullByDefault({}) DBCollection mongoCollection;
 
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(getClass().getSimpleName());
+    // one queue for the lifetime of the service, so that no value is lost when the configuration changes; a deque, so
+    // that a batch which failed to write can be put back in front of the newer values
+    private final BlockingDeque<DBObject> pendingValues = new LinkedBlockingDeque<>();
+    private volatile int maxPendingValues = MIN_QUEUE_SIZE;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private @Nullable ScheduledFuture<?> flushJob;
+
     @Activate
     public MongoDBPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
@@ -121,20 +155,60 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
                     "The MongoDB database collection is missing - please configure the mongodb:collection parameter.");
             return;
         }
+        try {
+            flushInterval = Long.parseLong(getConfigValue(config, "flushInterval", DEFAULT_FLUSH_INTERVAL));
+            batchSize = Math.max(1, Integer.parseInt(getConfigValue(config, "batchSize", DEFAULT_BATCH_SIZE)));
+        } catch (NumberFormatException e) {
+            logger.warn("The MongoDB flushInterval or batchSize is not a number - please fix the configuration.");
+            return;
+        }
+        timeSeries = Boolean.parseBoolean(getConfigValue(config, "timeSeries", false));
+        logger.debug("MongoDB flushInterval {} ms, batchSize {}, timeSeries {}", flushInterval, batchSize, timeSeries);
 
+        stopFlushJob();
+        if (isConnected()) {
+            flush();
+        }
         disconnectFromDatabase();
         connectToDatabase();
 
+        maxPendingValues = Math.max(MIN_QUEUE_SIZE, 10 * batchSize);
+        if (flushInterval > 0) {
+            flushJob = scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+
         // connection has been established... initialization completed!
         initialized = true;
     }
 
+    private static String getConfigValue(Map<String, Object> config, String key, Object defaultValue) {
+        Object value = config.get(key);
+        return value == null || value.toString().isBlank() ? defaultValue.toString() : value.toString().trim();
+    }
+
     @Deactivate
     public void deactivate(final int reason) {
         logger.debug("MongoDB persistence bundle stopping. Disconnecting from database.");
+        stopFlushJob();
+        if (isConnected()) {
+            flush();
+        }
+        if (!pendingValues.isEmpty()) {
+            logger.warn("MongoDB persistence stopped with {} values which could not be written", pendingValues.size());
+        }
+        initialized = false;
         disconnectFromDatabase();
     }
 
+    private void stopFlushJob() {
+        ScheduledFuture<?> job = flushJob;
+        if (job != null) {
+            job.cancel(false);
+            flushJob = null;
+        }
+    }
+
     @Override
     public String getId() {
         return "mongodb";
@@ -176,16 +250,113 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         Object value = this.convertValue(item.getState());
 
         DBObject obj = new BasicDBObject();
-        obj.put(FIELD_ID, new ObjectId());
         obj.put(FIELD_ITEM, name);
         obj.put(FIELD_REALNAME, realName);
         obj.put(FIELD_TIMESTAMP, new Date());
         obj.put(FIELD_VALUE, value);
-        this.mongoCollection.save(obj);
+
+        if (flushInterval <= 0) {
+            // buffering disabled, write on the calling thread
+            pendingValues.offer(obj);
+            flush();
+        } else if (pendingValues.size() >= maxPendingValues || !pendingValues.offer(obj)) {
+            logger.warn("MongoDB write buffer is full, dropping value of item '{}'", name);
+            return;
+        } else if (pendingValues.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
 
         logger.debug("MongoDB save {}={}", name, value);
     }
 
+    /**
+     * Writes all pending values in bulk writes of at most {@code batchSize} values. Values which could not be written
+     * because the database is not reachable stay queued for the next flush.
+     */
+    private synchronized void flush() {
+        flushScheduled.set(false);
+        if (!isConnected()) {
+            logger.debug("mongodb: No connection to database. Keeping {} values queued.", pendingValues.size());
+            return;
+        }
+        List<DBObject> batch = new ArrayList<>(Math.min(batchSize, pendingValues.size()));
+        while (pendingValues.drainTo(batch, batchSize) > 0) {
+            try {
+                BulkWriteResult result = timeSeries ? writeBuckets(batch) : writeDocuments(batch);
+                logger.debug("MongoDB wrote {} values: {}", batch.size(), result);
+            } catch (BulkWriteException e) {
+                // rejected documents, writing them again would fail again
+                logger.warn("MongoDB failed to write {} of {} values: {}", e.getWriteErrors().size(), batch.size(),
+                        e.getMessage());
+            } catch (MongoException | IllegalStateException e) {
+                requeue(batch, e);
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Puts a batch back in front of the queue, so that it is written before newer values by the next flush. If the
+     * queue would grow beyond {@code maxPendingValues}, the batch is dropped instead.
+     */
+    private void requeue(List<DBObject> batch, Exception e) {
+        if (pendingValues.size() + batch.size() > maxPendingValues) {
+            logger.warn("MongoDB failed to write {} values, dropping them as {} newer values are queued: {}",
+                    batch.size(), pendingValues.size(), e.getMessage());
+            return;
+        }
+        logger.warn("MongoDB failed to write {} values, retrying with the next flush: {}", batch.size(),
+                e.getMessage());
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            pendingValues.offerFirst(batch.get(i));
+        }
+    }
+
+    private BulkWriteResult writeDocuments(List<DBObject> batch) {
+        BulkWriteOperation bulk = mongoCollection.initializeUnorderedBulkOperation();
+        for (DBObject obj : batch) {
+            // keep the id of a retried value, so that a value written by a failed bulk write is not inserted twice
+            if (!obj.containsField(FIELD_ID)) {
+                obj.put(FIELD_ID, new ObjectId());
+            }
+            bulk.insert(obj);
+        }
+        return bulk.execute();
+    }
+
+    /**
+     * Appends the values to the hourly bucket documents of their items, creating the buckets as needed. All values of
+     * a bucket are appended with a single update.
+     */
+    private BulkWriteResult writeBuckets(List<DBObject> batch) {
+        Map<String, List<DBObject>> valuesPerBucket = new LinkedHashMap<>();
+        Map<String, DBObject> bucketKeys = new LinkedHashMap<>();
+        for (DBObject obj : batch) {
+            String name = (String) obj.get(FIELD_ITEM);
+            Date bucket = Date.from(((Date) obj.get(FIELD_TIMESTAMP)).toInstant().truncatedTo(ChronoUnit.HOURS));
+            String key = name + '@' + bucket.getTime();
+            bucketKeys.computeIfAbsent(key, k -> new BasicDBObject(FIELD_ITEM, name).append(FIELD_BUCKET, bucket)
+                    .append(FIELD_REALNAME, obj.get(FIELD_REALNAME)));
+            valuesPerBucket.computeIfAbsent(key, k -> new ArrayList<>()).add(new BasicDBObject(FIELD_TIMESTAMP,
+                    obj.get(FIELD_TIMESTAMP)).append(FIELD_VALUE, obj.get(FIELD_VALUE)));
+        }
+
+        BulkWriteOperation bulk = mongoCollection.initializeUnorderedBulkOperation();
+        for (Map.Entry<String, List<DBObject>> entry : valuesPerBucket.entrySet()) {
+            DBObject key = bucketKeys.get(entry.getKey());
+            List<DBObject> values = entry.getValue();
+            DBObject update = new BasicDBObject("$setOnInsert",
+                    new BasicDBObject(FIELD_REALNAME, key.get(FIELD_REALNAME)))
+                            .append("$inc", new BasicDBObject(FIELD_COUNT, values.size()))
+                            .append("$push", new BasicDBObject(FIELD_VALUES, new BasicDBObject("$each", values)
+                                    .append("$sort", new BasicDBObject(FIELD_TIMESTAMP, 1))));
+            bulk.find(new BasicDBObject(FIELD_ITEM, key.get(FIELD_ITEM)).append(FIELD_BUCKET, key.get(FIELD_BUCKET)))
+                    .upsert().updateOne(update);
+        }
+        return bulk.execute();
+    }
+
     private Object convertValue(State state) {
         Object value;
         if (state instanceof PercentType) {
@@ -231,9 +402,17 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             this.cl = new MongoClient(new MongoClientURI(this.url));
             mongoCollection = cl.getDB(this.db).getCollection(this.collection);
 
-            BasicDBObject idx = new BasicDBObject();
-            idx.append(FIELD_TIMESTAMP, 1).append(FIELD_ITEM, 1);
-            this.mongoCollection.createIndex(idx);
+            if (timeSeries) {
+                // one bucket per item and hour, also used to find the buckets of a time range
+                this.mongoCollection.createIndex(new BasicDBObject(FIELD_ITEM, 1).append(FIELD_BUCKET, 1),
+                        new BasicDBObject("unique", true));
+            } else {
+                BasicDBObject idx = new BasicDBObject();
+                idx.append(FIELD_TIMESTAMP, 1).append(FIELD_ITEM, 1);
+                this.mongoCollection.createIndex(idx);
+                // for the range queries of a single item
+                this.mongoCollection.createIndex(new BasicDBObject(FIELD_ITEM, 1).append(FIELD_TIMESTAMP, 1));
+            }
             logger.debug("Connect MongoDB ... done");
         } catch (Exception e) {
             logger.error("Failed to connect to database {}", this.url);
@@ -266,6 +445,10 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             return Collections.emptyList();
         }
 
+        if (timeSeries) {
+            return queryBuckets(filter);
+        }
+
         String name = filter.getItemName();
         Item item = getItem(name);
 
@@ -279,11 +462,15 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             Object value = convertValue(filter.getState());
             query.put(FIELD_VALUE, new BasicDBObject(op, value));
         }
+        BasicDBObject timestampQuery = new BasicDBObject();
         if (filter.getBeginDate() != null) {
-            query.put(FIELD_TIMESTAMP, new BasicDBObject("$gte", filter.getBeginDate()));
+            timestampQuery.put("$gte", Date.from(filter.getBeginDate().toInstant()));
         }
-        if (filter.getBeginDate() != null) {
-            query.put(FIELD_TIMESTAMP, new BasicDBObject("$lte", filter.getBeginDate()));
+        if (filter.getEndDate() != null) {
+            timestampQuery.put("$lte", Date.from(filter.getEndDate().toInstant()));
+        }
+        if (!timestampQuery.isEmpty()) {
+            query.put(FIELD_TIMESTAMP, timestampQuery);
         }
 
         Integer sortDir = (filter.getOrdering() == Ordering.ASCENDING) ? 1 : -1;
@@ -292,32 +479,117 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
 
         while (cursor.hasNext()) {
             BasicDBObject obj = (BasicDBObject) cursor.next();
+            items.add(new MongoDBItem(name, toState(item, obj),
+                    ZonedDateTime.ofInstant(obj.getDate(FIELD_TIMESTAMP).toInstant(), ZoneId.systemDefault())));
+        }
 
-            final State state;
-            if (item instanceof NumberItem) {
-                state = new DecimalType(obj.getDouble(FIELD_VALUE));
-            } else if (item instanceof DimmerItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof SwitchItem) {
-                state = OnOffType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof ContactItem) {
-                state = OpenClosedType.valueOf(obj.getString(FIELD_VALUE));
-            } else if (item instanceof RollershutterItem) {
-                state = new PercentType(obj.getInt(FIELD_VALUE));
-            } else if (item instanceof DateTimeItem) {
-                state = new DateTimeType(
-                        ZonedDateTime.ofInstant(obj.getDate(FIELD_VALUE).toInstant(), ZoneId.systemDefault()));
-            } else {
-                state = new StringType(obj.getString(FIELD_VALUE));
-            }
+        return items;
+    }
 
-            items.add(new MongoDBItem(name, state,
-                    ZonedDateTime.ofInstant(obj.getDate(FIELD_TIMESTAMP).toInstant(), ZoneId.systemDefault())));
+    /**
+     * Queries the hourly buckets overlapping the requested time range and filters their values.
+     */
+    private List<HistoricItem> queryBuckets(FilterCriteria filter) {
+        String name = filter.getItemName();
+        Item item = getItem(name);
+
+        DBObject query = new BasicDBObject(FIELD_ITEM, name);
+        Date begin = filter.getBeginDate() == null ? null : Date.from(filter.getBeginDate().toInstant());
+        Date end = filter.getEndDate() == null ? null : Date.from(filter.getEndDate().toInstant());
+        BasicDBObject bucketQuery = new BasicDBObject();
+        if (begin != null) {
+            bucketQuery.put("$gte", Date.from(begin.toInstant().truncatedTo(ChronoUnit.HOURS)));
+        }
+        if (end != null) {
+            bucketQuery.put("$lte", end);
+        }
+        if (!bucketQuery.isEmpty()) {
+            query.put(FIELD_BUCKET, bucketQuery);
         }
+        Operator operator = filter.getState() != null ? filter.getOperator() : null;
+        Object filterValue = operator != null ? convertValue(filter.getState()) : null;
+        boolean ascending = filter.getOrdering() == Ordering.ASCENDING;
 
+        long skip = (long) filter.getPageNumber() * filter.getPageSize();
+        List<HistoricItem> items = new ArrayList<>();
+        DBCursor cursor = this.mongoCollection.find(query).sort(new BasicDBObject(FIELD_BUCKET, ascending ? 1 : -1));
+        try {
+            while (cursor.hasNext() && items.size() < filter.getPageSize()) {
+                List<?> values = (List<?>) cursor.next().get(FIELD_VALUES);
+                if (values == null) {
+                    continue;
+                }
+                for (int i = 0; i < values.size() && items.size() < filter.getPageSize(); i++) {
+                    BasicDBObject value = (BasicDBObject) values.get(ascending ? i : values.size() - 1 - i);
+                    Date timestamp = value.getDate(FIELD_TIMESTAMP);
+                    if ((begin != null && timestamp.before(begin)) || (end != null && timestamp.after(end))
+                            || (operator != null && filterValue != null
+                                    && !matches(value.get(FIELD_VALUE), operator, filterValue))) {
+                        continue;
+                    }
+                    if (skip > 0) {
+                        skip--;
+                        continue;
+                    }
+                    items.add(new MongoDBItem(name, toState(item, value),
+                            ZonedDateTime.ofInstant(timestamp.toInstant(), ZoneId.systemDefault())));
+                }
+            }
+        } finally {
+            cursor.close();
+        }
         return items;
     }
 
+    private boolean matches(@Nullable Object value, Operator operator, Object filterValue) {
+        if (value == null) {
+            return false;
+        }
+        int comparison;
+        if (value instanceof Number && filterValue instanceof Number) {
+            comparison = Double.compare(((Number) value).doubleValue(), ((Number) filterValue).doubleValue());
+        } else if (value instanceof Date && filterValue instanceof Date) {
+            comparison = ((Date) value).compareTo((Date) filterValue);
+        } else {
+            comparison = value.toString().compareTo(filterValue.toString());
+        }
+        switch (operator) {
+            case EQ:
+                return comparison == 0;
+            case NEQ:
+                return comparison != 0;
+            case GT:
+                return comparison > 0;
+            case GTE:
+                return comparison >= 0;
+            case LT:
+                return comparison < 0;
+            case LTE:
+                return comparison <= 0;
+            default:
+                return false;
+        }
+    }
+
+    private State toState(@Nullable Item item, BasicDBObject obj) {
+        if (item instanceof NumberItem) {
+            return new DecimalType(obj.getDouble(FIELD_VALUE));
+        } else if (item instanceof DimmerItem) {
+            return new PercentType(obj.getInt(FIELD_VALUE));
+        } else if (item instanceof SwitchItem) {
+            return OnOffType.valueOf(obj.getString(FIELD_VALUE));
+        } else if (item instanceof ContactItem) {
+            return OpenClosedType.valueOf(obj.getString(FIELD_VALUE));
+        } else if (item instanceof RollershutterItem) {
+            return new PercentType(obj.getInt(FIELD_VALUE));
+        } else if (item instanceof DateTimeItem) {
+            return new DateTimeType(
+                    ZonedDateTime.ofInstant(obj.getDate(FIELD_VALUE).toInstant(), ZoneId.systemDefault()));
+        } else {
+            return new StringType(obj.getString(FIELD_VALUE));
+        }
+    }
+
     private @Nullable String convertOperator(Operator operator) {
         switch (operator) {
             case EQ:
@@ -18,8 +18,8 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -67,6 +67,7 @@ import org.openhab.core.types.State;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.rrd4j.ConsolFun;
@@ -74,6 +75,7 @@ import org.rrd4j.DsType;
 import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
 import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdDbPool;
 import org.rrd4j.core.RrdDef;
 import org.rrd4j.core.Sample;
 import org.slf4j.Logger;
@@ -100,18 +102,29 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     private static final Set<String> SUPPORTED_TYPES = Set.of(CoreItemFactory.SWITCH, CoreItemFactory.CONTACT,
             CoreItemFactory.DIMMER, CoreItemFactory.NUMBER, CoreItemFactory.ROLLERSHUTTER, CoreItemFactory.COLOR);
 
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(3,
-            new NamedThreadFactory("RRD4j"));
+    private final ScheduledExecutorService scheduler = Executors
+            .newSingleThreadScheduledExecutor(new NamedThreadFactory("RRD4j"));
 
     private final Map<String, RrdDefConfig> rrdDefs = new ConcurrentHashMap<>();
 
+    // reference counted, bounded pool of open databases, shared with the chart servlet
+    private final RrdDbPool pool = RrdDbPool.getInstance();
+
+    // the pool closes a database as soon as it is no longer referenced, so the recently used databases are kept open
+    // here by holding one reference each; half of the pool capacity stays free for queries and charts
+    private final int maxOpenDatabases = Math.max(1, pool.getCapacity() / 2);
+    private final Map<String, RrdDb> openDatabases = new LinkedHashMap<>(16, 0.75f, true);
+
     private static final String DATASOURCE_STATE = "state";
 
     public static final String DB_FOLDER = getUserPersistenceDataFolder() + File.separator + "rrd4j";
 
     private final Logger logger = LoggerFactory.getLogger(RRD4jPersistenceService.class);
 
-    private final Map<String, ScheduledFuture<?>> scheduledJobs = new HashMap<>();
+    // values stored since the last flush, merged per item
+    private final Map<String, PendingSample> pendingSamples = new ConcurrentHashMap<>();
+
+    private @Nullable ScheduledFuture<?> flushJob;
 
     protected final ItemRegistry itemRegistry;
 
@@ -131,16 +144,87 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     }
 
     @Override
-    public synchronized void store(final Item item, @Nullable final String alias) {
+    public void store(final Item item, @Nullable final String alias) {
         if (!isSupportedItemType(item)) {
             logger.trace("Ignoring item '{}' since its type {} is not supported", item.getName(), item.getType());
             return;
         }
         final String name = alias == null ? item.getName() : alias;
-        RrdDb db = getDB(name);
-        if (db != null) {
-            ConsolFun function = getConsolidationFunction(db);
+
+        Double value = null;
+
+        if (item instanceof NumberItem && item.getState() instanceof QuantityType) {
+            NumberItem nItem = (NumberItem) item;
+            QuantityType<?> qState = (QuantityType<?>) item.getState();
+            Unit<? extends Quantity<?>> unit = nItem.getUnit();
+            if (unit != null) {
+                QuantityType<?> convertedState = qState.toUnit(unit);
+                if (convertedState != null) {
+                    value = convertedState.doubleValue();
+                } else {
+                    logger.warn(
+                            "Failed to convert state '{}' to unit '{}'. Please check your item definition for correctness.",
+                            qState, unit);
+                }
+            } else {
+                value = qState.doubleValue();
+            }
+        } else {
+            DecimalType state = item.getStateAs(DecimalType.class);
+            if (state != null) {
+                value = state.toBigDecimal().doubleValue();
+            }
+        }
+        if (value != null) {
+            // the value is written by the next flush, values arriving before are merged
+            final double newValue = value;
+            pendingSamples.compute(name, (key, sample) -> {
+                PendingSample pendingSample = sample == null ? new PendingSample() : sample;
+                pendingSample.add(newValue);
+                return pendingSample;
+            });
+            logger.trace("Buffered '{}' as value '{}' for rrd4j database", name, newValue);
+        }
+    }
+
+    /**
+     * Writes all buffered samples, one sample per database. Samples which cannot be written yet because the database
+     * has already been updated within the current second are kept for the next flush.
+     */
+    private void flushPendingSamples() {
+        for (String name : pendingSamples.keySet()) {
+            PendingSample sample = pendingSamples.remove(name);
+            if (sample == null) {
+                continue;
+            }
+            RrdDb db = getDB(name);
+            if (db == null) {
+                continue;
+            }
+            try {
+                boolean written;
+                // the pool hands out one instance per database file, so locking it only affects this item
+                synchronized (db) {
+                    written = store(db, name, sample);
+                }
+                if (!written) {
+                    // samples arrived after the removal are newer than the ones which could not be written
+                    pendingSamples.merge(name, sample, (newer, older) -> older.add(newer));
+                }
+            } finally {
+                releaseDB(db);
+            }
+        }
+    }
+
+    private boolean store(RrdDb db, String name, PendingSample pendingSample) {
+        try {
             long now = System.currentTimeMillis() / 1000;
+            if (now <= db.getLastUpdateTime()) {
+                // at least one second step is required between two updates
+                return false;
+            }
+            ConsolFun function = getConsolidationFunction(db);
             if (function != ConsolFun.AVERAGE) {
                 try {
                     // we store the last value again, so that the value change
@@ -161,66 +245,21 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                     logger.debug("Error storing last value (again): {}", e.getMessage());
                 }
             }
-            try {
-                Sample sample = db.createSample();
-                sample.setTime(now);
-
-                Double value = null;
-
-                if (item instanceof NumberItem && item.getState() instanceof QuantityType) {
-                    NumberItem nItem = (NumberItem) item;
-                    QuantityType<?> qState = (QuantityType<?>) item.getState();
-                    Unit<? extends Quantity<?>> unit = nItem.getUnit();
-                    if (unit != null) {
-                        QuantityType<?> convertedState = qState.toUnit(unit);
-                        if (convertedState != null) {
-                            value = convertedState.doubleValue();
-                        } else {
-                            logger.warn(
-                                    "Failed to convert state '{}' to unit '{}'. Please check your item definition for correctness.",
-                                    qState, unit);
-                        }
-                    } else {
-                        value = qState.doubleValue();
-                    }
-                } else {
-                    DecimalType state = item.getStateAs(DecimalType.class);
-                    if (state != null) {
-                        value = state.toBigDecimal().doubleValue();
-                    }
-                }
-                if (value != null) {
-                    if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
-                                                                                          // adjusted by stepsize
-                        value = value * db.getRrdDef().getStep();
-                    }
-                    sample.setValue(DATASOURCE_STATE, value);
-                    sample.update();
-                    logger.debug("Stored '{}' as value '{}' in rrd4j database", name, value);
-                }
-            } catch (IllegalArgumentException e) {
-                String message = e.getMessage();
-                if (message != null && message.contains("at least one second step is required")) {
-                    // we try to store the value one second later
-                    ScheduledFuture<?> job = scheduledJobs.get(name);
-                    if (job != null) {
-                        job.cancel(true);
-                        scheduledJobs.remove(name);
-                    }
-                    job = scheduler.schedule(() -> store(item, name), 1, TimeUnit.SECONDS);
-                    scheduledJobs.put(name, job);
-                } else {
-                    logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
-                }
-            } catch (Exception e) {
-                logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
-            }
-            try {
-                db.close();
-            } catch (IOException e) {
-                logger.debug("Error closing rrd4j database: {}", e.getMessage());
+            Sample sample = db.createSample();
+            sample.setTime(now);
+            double value = pendingSample.getValue(function);
+            if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
+                                                                                  // adjusted by stepsize
+                value = value * db.getRrdDef().getStep();
             }
+            sample.setValue(DATASOURCE_STATE, value);
+            sample.update();
+            logger.debug("Stored '{}' as value '{}' ({} samples merged) in rrd4j database", name, value,
+                    pendingSample.count);
+        } catch (Exception e) {
+            logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
         }
+        return true;
     }
 
     @Override
@@ -237,6 +276,15 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
             logger.debug("Could not find item '{}' in rrd4j database", itemName);
             return List.of();
         }
+        try {
+            return query(db, filter);
+        } finally {
+            releaseDB(db);
+        }
+    }
+
+    private Iterable<HistoricItem> query(RrdDb db, FilterCriteria filter) {
+        String itemName = filter.getItemName();
 
         Item item = null;
         Unit<?> unit = null;
@@ -313,27 +361,26 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         return Set.of();
     }
 
-    protected synchronized @Nullable RrdDb getDB(String alias) {
+    /**
+     * Requests the database of an item from the pool, the database is created if it does not exist yet.
+     * Every database returned by this method has to be handed back with {@link #releaseDB(RrdDb)}.
+     */
+    protected @Nullable RrdDb getDB(String alias) {
         RrdDb db = null;
         File file = new File(DB_FOLDER + File.separator + alias + ".rrd");
         try {
-            if (file.exists()) {
-                // recreate the RrdDb instance from the file
-                db = new RrdDb(file.getAbsolutePath());
+            boolean open;
+            synchronized (openDatabases) {
+                open = openDatabases.get(alias) != null;
+            }
+            if (open || file.exists()) {
+                // get the shared RrdDb instance of the file, it is opened if it is not in use yet
+                db = pool.requestRrdDb(file.getAbsolutePath());
             } else {
-                File folder = new File(DB_FOLDER);
-                if (!folder.exists()) {
-                    folder.mkdirs();
-                }
-                RrdDef rrdDef = getRrdDef(alias, file);
-                if (rrdDef != null) {
-                    // create a new database file
-                    db = new RrdDb(rrdDef);
-                } else {
-                    logger.debug(
-                            "Did not create rrd4j database for item '{}' since no rrd definition could be determined. This is likely due to an unsupported item type.",
-                            alias);
-                }
+                db = createDB(alias, file);
+            }
+            if (db != null && !open) {
+                keepOpen(alias, file);
             }
         } catch (IOException e) {
             logger.error("Could not create rrd4j database file '{}': {}", file.getAbsolutePath(), e.getMessage());
@@ -344,6 +391,63 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         return db;
     }
 
+    private synchronized @Nullable RrdDb createDB(String alias, File file) throws IOException {
+        if (file.exists()) {
+            // created by another thread in the meantime
+            return pool.requestRrdDb(file.getAbsolutePath());
+        }
+        File folder = new File(DB_FOLDER);
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        RrdDef rrdDef = getRrdDef(alias, file);
+        if (rrdDef != null) {
+            // create a new database file
+            return pool.requestRrdDb(rrdDef);
+        } else {
+            logger.debug(
+                    "Did not create rrd4j database for item '{}' since no rrd definition could be determined. This is likely due to an unsupported item type.",
+                    alias);
+            return null;
+        }
+    }
+
+    private void keepOpen(String alias, File file) throws IOException {
+        RrdDb evicted = null;
+        synchronized (openDatabases) {
+            if (openDatabases.containsKey(alias)) {
+                return;
+            }
+            // the database is in use by the caller, so this only increments its reference count
+            openDatabases.put(alias, pool.requestRrdDb(file.getAbsolutePath()));
+            if (openDatabases.size() > maxOpenDatabases) {
+                Iterator<RrdDb> eldest = openDatabases.values().iterator();
+                evicted = eldest.next();
+                eldest.remove();
+            }
+        }
+        if (evicted != null) {
+            releaseDB(evicted);
+        }
+    }
+
+    private void closeOpenDatabases() {
+        List<RrdDb> databases;
+        synchronized (openDatabases) {
+            databases = new ArrayList<>(openDatabases.values());
+            openDatabases.clear();
+        }
+        databases.forEach(this::releaseDB);
+    }
+
+    protected void releaseDB(RrdDb db) {
+        try {
+            pool.release(db);
+        } catch (IOException e) {
+            logger.debug("Error releasing rrd4j database: {}", e.getMessage());
+        }
+    }
+
     private @Nullable RrdDefConfig getRrdDefConfig(String itemName) {
         RrdDefConfig useRdc = null;
         for (Map.Entry<String, RrdDefConfig> e : rrdDefs.entrySet()) {
@@ -441,6 +545,25 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     @Activate
     protected void activate(final Map<String, Object> config) {
         modified(config);
+        flushJob = scheduler.scheduleWithFixedDelay(this::flushPendingSamples, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        ScheduledFuture<?> job = flushJob;
+        if (job != null) {
+            job.cancel(false);
+            flushJob = null;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // write what is left, values which are rejected now would be lost anyway
+        flushPendingSamples();
+        closeOpenDatabases();
     }
 
     @Modified
@@ -554,6 +677,60 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    /**
+     * Values of one item stored within one flush interval. The value written is chosen by the consolidation function
+     * of the database, so that merging does not change what the archives would have consolidated.
+     */
+    private static class PendingSample {
+        private double first = Double.NaN;
+        private double last = Double.NaN;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private int count;
+
+        public void add(double value) {
+            if (count == 0) {
+                first = value;
+            }
+            last = value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            count++;
+        }
+
+        /**
+         * Adds the values of a newer sample.
+         */
+        public PendingSample add(PendingSample newer) {
+            if (count == 0) {
+                first = newer.first;
+            }
+            last = newer.last;
+            min = Math.min(min, newer.min);
+            max = Math.max(max, newer.max);
+            sum += newer.sum;
+            count += newer.count;
+            return this;
+        }
+
+        public double getValue(ConsolFun function) {
+            switch (function) {
+                case AVERAGE:
+                    return sum / count;
+                case MIN:
+                    return min;
+                case MAX:
+                    return max;
+                case FIRST:
+                    return first;
+                default:
+                    return last;
+            }
+        }
+    }
+
     private class RrdArchiveDef {
         public @Nullable ConsolFun fcn;
         public double xff;
@@ -41,6 +41,7 @@ import org.osgi.service.http.HttpService;
 import org.osgi.service.http.NamespaceException;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdDbPool;
 import org.rrd4j.graph.RrdGraph;
 import org.rrd4j.graph.RrdGraphDef;
 import org.slf4j.Logger;
@@ -171,9 +172,13 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
             label = label.substring(0, label.indexOf('['));
         }
         try {
-            RrdDb db = new RrdDb(rrdName);
-            consolFun = db.getRrdDef().getArcDefs()[0].getConsolFun();
-            db.close();
+            RrdDbPool pool = RrdDbPool.getInstance();
+            RrdDb db = pool.requestRrdDb(rrdName);
+            try {
+                consolFun = db.getRrdDef().getArcDefs()[0].getConsolFun();
+            } finally {
+                pool.release(db);
+            }
         } catch (IOException e) {
             consolFun = ConsolFun.MAX;
         }
@@ -230,6 +235,8 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         graphDef.setImageFormat("PNG");
         graphDef.setStartTime(period);
         graphDef.setTextAntiAliasing(true);
+        // read the databases through the pool shared with the persistence service instead of opening the files again
+        graphDef.setPoolUsed(true);
         graphDef.setLargeFont(new Font("SansSerif", Font.PLAIN, 15));
         graphDef.setSmallFont(new Font("SansSerif", Font.PLAIN, 11));
 
@@ -14,8 +14,6 @@ package org.openhab.transform.bin2json.internal;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.time.Duration;
-import java.time.LocalDateTime;
 
 import org.openhab.core.util.HexUtils;
 import org.slf4j.Logger;
@@ -23,7 +21,6 @@ import org.slf4j.LoggerFactory;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonPrimitive;
 import com.igormaznitsa.jbbp.JBBPParser;
 import com.igormaznitsa.jbbp.exceptions.JBBPException;
 import com.igormaznitsa.jbbp.model.JBBPAbstractArrayField;
@@ -66,6 +63,10 @@ import com.igormaznitsa.jbbp.model.JBBPFieldUShort;
  * json.toString() = {"a":3,"b":-6,"c":255}
  * </pre>
  *
+ * <p>
+ * The parser rule is compiled once, so an instance can be reused to convert any number of data blocks, also from
+ * several threads.
+ *
  * @author Pauli Anttila - Initial contribution
  *
  */
@@ -73,7 +74,7 @@ public class Bin2Json {
 
     private final Logger logger = LoggerFactory.getLogger(Bin2Json.class);
 
-    private JBBPParser parser;
+    private final JBBPParser parser;
 
     /**
      *
@@ -84,7 +85,7 @@ public class Bin2Json {
         try {
             parser = JBBPParser.prepare(parserRule);
         } catch (JBBPException e) {
-            throw new ConversionException(String.format("Illegal parser rule, reason: %s", e.getMessage(), e));
+            throw new ConversionException(String.format("Illegal parser rule, reason: %s", e.getMessage()), e);
         }
     }
 
@@ -99,7 +100,7 @@ public class Bin2Json {
         try {
             return convert(HexUtils.hexToBytes(hexString));
         } catch (IllegalArgumentException e) {
-            throw new ConversionException(String.format("Illegal hexstring , reason: %s", e.getMessage(), e));
+            throw new ConversionException(String.format("Illegal hexstring , reason: %s", e.getMessage()), e);
         }
     }
 
@@ -114,9 +115,9 @@ public class Bin2Json {
         try {
             return convert(parser.parse(data));
         } catch (IOException e) {
-            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage(), e));
+            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage()), e);
         } catch (JBBPException e) {
-            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage(), e));
+            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage()), e);
         }
     }
 
@@ -131,23 +132,22 @@ public class Bin2Json {
         try {
             return convert(parser.parse(inputStream));
         } catch (IOException e) {
-            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage(), e));
+            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage()), e);
         } catch (JBBPException e) {
-            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage(), e));
+            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage()), e);
         }
     }
 
     private JsonObject convert(JBBPFieldStruct data) throws ConversionException {
         try {
-            LocalDateTime start = LocalDateTime.now();
+            final long start = System.nanoTime();
             final JsonObject json = convertToJSon(data);
             if (logger.isTraceEnabled()) {
-                Duration duration = Duration.between(start, LocalDateTime.now());
-                logger.trace("Conversion time={}, json={}", duration, json.toString());
+                logger.trace("Conversion time={} us, json={}", (System.nanoTime() - start) / 1000, json);
             }
             return json;
         } catch (JBBPException e) {
-            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage(), e));
+            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage()), e);
         }
     }
 
@@ -163,27 +163,27 @@ public class Bin2Json {
             final JsonArray jsonArray = new JsonArray();
             if (field instanceof JBBPFieldArrayBit) {
                 for (final byte b : ((JBBPFieldArrayBit) field).getArray()) {
-                    jsonArray.add(new JsonPrimitive(b));
+                    jsonArray.add(b);
                 }
             } else if (field instanceof JBBPFieldArrayBoolean) {
                 for (final boolean b : ((JBBPFieldArrayBoolean) field).getArray()) {
-                    jsonArray.add(new JsonPrimitive(b));
+                    jsonArray.add(b);
                 }
             } else if (field instanceof JBBPFieldArrayByte) {
                 for (final byte b : ((JBBPFieldArrayByte) field).getArray()) {
-                    jsonArray.add(new JsonPrimitive(b));
+                    jsonArray.add(b);
                 }
             } else if (field instanceof JBBPFieldArrayInt) {
                 for (final int b : ((JBBPFieldArrayInt) field).getArray()) {
-                    jsonArray.add(new JsonPrimitive(b));
+                    jsonArray.add(b);
                 }
             } else if (field instanceof JBBPFieldArrayLong) {
                 for (final long b : ((JBBPFieldArrayLong) field).getArray()) {
-                    jsonArray.add(new JsonPrimitive(b));
+                    jsonArray.add(b);
                 }
             } else if (field instanceof JBBPFieldArrayShort) {
                 for (final short b : ((JBBPFieldArrayShort) field).getArray()) {
-                    jsonArray.add(new JsonPrimitive(b));
+                    jsonArray.add(b);
                 }
             } else if (field instanceof JBBPFieldArrayStruct) {
                 final JBBPFieldArrayStruct array = (JBBPFieldArrayStruct) field;
@@ -192,11 +192,11 @@ public class Bin2Json {
                 }
             } else if (field instanceof JBBPFieldArrayUByte) {
                 for (final byte b : ((JBBPFieldArrayUByte) field).getArray()) {
-                    jsonArray.add(new JsonPrimitive(b & 0xFF));
+                    jsonArray.add(b & 0xFF);
                 }
             } else if (field instanceof JBBPFieldArrayUShort) {
                 for (final short b : ((JBBPFieldArrayUShort) field).getArray()) {
-                    jsonArray.add(new JsonPrimitive(b & 0xFFFF));
+                    jsonArray.add(b & 0xFFFF);
                 }
             } else {
                 throw new ConversionException(String.format("Unexpected field type '%s'", field));
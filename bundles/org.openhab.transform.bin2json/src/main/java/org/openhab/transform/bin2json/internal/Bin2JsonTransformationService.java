@@ -12,6 +12,9 @@
  */
 package org.openhab.transform.bin2json.internal;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.transform.TransformationException;
@@ -24,6 +27,9 @@ import org.slf4j.LoggerFactory;
  * The implementation of {@link TransformationService} which transforms the
  * hexa string formatted binary data by Binary Block Parser syntax to JSON format.
  *
+ * The prepared parsers are cached per syntax, so repeated transformations with the same syntax only need to parse
+ * the data.
+ *
  * @author Pauli Anttila - Initial contribution
  */
 @NonNullByDefault
@@ -32,6 +38,19 @@ public class Bin2JsonTransformationService implements TransformationService {
 
     private Logger logger = LoggerFactory.getLogger(Bin2JsonTransformationService.class);
 
+    private static final int MAX_CACHED_PARSERS = 64;
+
+    // Preparing a JBBP parser compiles its rule, parsing with it afterwards keeps no state, so prepared parsers are
+    // kept per rule. Rules live in channel configurations, 64 covers typical setups; the oldest unused one is dropped.
+    private final Map<String, Bin2Json> parserCache = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, Bin2Json> eldest) {
+            return size() > MAX_CACHED_PARSERS;
+        }
+    };
+
     /**
      * Transforms the input <code>source</code> by Java Binary Block Parser syntax.
      *
@@ -46,7 +65,7 @@ public class Bin2JsonTransformationService implements TransformationService {
         String result = "";
 
         try {
-            result = String.valueOf(new Bin2Json(syntax).convert(source));
+            result = String.valueOf(getBin2Json(syntax).convert(source));
             logger.debug("transformation resulted '{}'", result);
             return result;
         } catch (ConversionException e) {
@@ -56,4 +75,18 @@ public class Bin2JsonTransformationService implements TransformationService {
                     result);
         }
     }
+
+    private Bin2Json getBin2Json(String syntax) throws ConversionException {
+        Bin2Json bin2Json;
+        synchronized (parserCache) {
+            bin2Json = parserCache.get(syntax);
+        }
+        if (bin2Json == null) {
+            bin2Json = new Bin2Json(syntax);
+            synchronized (parserCache) {
+                parserCache.put(syntax, bin2Json);
+            }
+        }
+        return bin2Json;
+    }
 }
@@ -13,13 +13,21 @@
 package org.openhab.transform.javascript.internal;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+import javax.script.Bindings;
 import javax.script.Compilable;
 import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
@@ -27,6 +35,7 @@ import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.transform.TransformationException;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
@@ -35,6 +44,11 @@ import org.slf4j.LoggerFactory;
 /**
  * Simple cache for compiled JavaScript files.
  *
+ * A script engine must not be used by several threads at once, so every cached script keeps a small pool of
+ * engines, each with its own compiled copy of the script. An evaluation borrows a compiled copy, evaluates it with
+ * fresh {@link Bindings} and returns it, so transformations from different threads run in parallel. Further engines
+ * are created on demand, but only {@link #MAX_IDLE_ENGINES} are kept per script.
+ *
  * @author Thomas Kordelle - Initial contribution
  * @author Thomas Kordelle - pre compiled scripts
  */
@@ -42,38 +56,127 @@ import org.slf4j.LoggerFactory;
 @Component(service = JavaScriptEngineManager.class)
 public class JavaScriptEngineManager {
 
+    /** Number of idle engines kept per script */
+    static final int MAX_IDLE_ENGINES = 4;
+
+    /** Upper bounds (inclusive) of the evaluation latency histogram buckets in milliseconds */
+    private static final long[] LATENCY_BUCKETS_MS = { 1, 5, 10, 50, 100, 500, 1000, Long.MAX_VALUE };
+
+    /** The metrics are logged on every cache miss and after this many cache hits */
+    private static final long METRICS_LOG_HITS = 1000;
+
     private final Logger logger = LoggerFactory.getLogger(JavaScriptEngineManager.class);
     private final ScriptEngineManager manager = new ScriptEngineManager();
-    /* keep memory foot print low. max 2 concurrent threads are estimated */
-    private final Map<String, CompiledScript> compiledScriptMap = new ConcurrentHashMap<>(4, 0.5f, 2);
+    private final Map<String, ScriptPool> compiledScriptMap = new ConcurrentHashMap<>();
+
+    // incremented whenever a script file changes, so that a script loaded before the change is not cached
+    private final AtomicLong cacheGeneration = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong enginesCreated = new AtomicLong();
+    private final AtomicLongArray evalLatencies = new AtomicLongArray(LATENCY_BUCKETS_MS.length);
 
     /**
-     * Get a pre compiled script {@link CompiledScript} from cache. If it is not in the cache, then load it from
-     * storage and put a pre compiled version into the cache.
+     * The source of a script together with its idle compiled copies.
+     */
+    private class ScriptPool {
+        private final String filename;
+        private final String script;
+        private final BlockingQueue<CompiledScript> idle = new ArrayBlockingQueue<>(MAX_IDLE_ENGINES);
+
+        private ScriptPool(String filename, String script) {
+            this.filename = filename;
+            this.script = script;
+        }
+
+        private CompiledScript acquire() throws ScriptException {
+            CompiledScript compiledScript = idle.poll();
+            return compiledScript != null ? compiledScript : compile();
+        }
+
+        private void release(CompiledScript compiledScript) {
+            // surplus engines are left to the garbage collector
+            idle.offer(compiledScript);
+        }
+
+        private CompiledScript compile() throws ScriptException {
+            final ScriptEngine engine = manager.getEngineByName("javascript");
+            final CompiledScript cScript = ((Compilable) engine).compile(script);
+            logger.debug("Compiled JavaScript {} in a new engine.", filename);
+            enginesCreated.incrementAndGet();
+            return cScript;
+        }
+    }
+
+    /**
+     * Evaluates a script from the cache. If it is not in the cache, then load it from storage and put a pre compiled
+     * version into the cache. The input is provided to the script as variable <code>input</code>.
      *
-     * @param filename name of the JavaScript file to load
-     * @return a pre compiled script {@link CompiledScript}
-     * @throws TransformationException if compile of JavaScript failed
+     * @param filename name of the JavaScript file to evaluate
+     * @param input value of the <code>input</code> variable
+     * @return the result of the script
+     * @throws TransformationException if loading or compiling the JavaScript failed
+     * @throws ScriptException if the evaluation of the JavaScript failed
      */
-    protected CompiledScript getScript(final String filename) throws TransformationException {
-        synchronized (compiledScriptMap) {
-            CompiledScript compiledScript = compiledScriptMap.get(filename);
-            if (compiledScript != null) {
-                logger.debug("Loading JavaScript {} from cache.", filename);
-                return compiledScript;
+    protected @Nullable Object eval(final String filename, final String input)
+            throws TransformationException, ScriptException {
+        final ScriptPool pool = getScriptPool(filename);
+        final CompiledScript cScript = pool.acquire();
+        final long startTime = System.nanoTime();
+        try {
+            final Bindings bindings = cScript.getEngine().createBindings();
+            bindings.put("input", input);
+            return cScript.eval(bindings);
+        } finally {
+            recordLatency(System.nanoTime() - startTime);
+            pool.release(cScript);
+        }
+    }
+
+    private ScriptPool getScriptPool(final String filename) throws TransformationException {
+        ScriptPool pool = compiledScriptMap.get(filename);
+        if (pool != null) {
+            logger.debug("Loading JavaScript {} from cache.", filename);
+            // once all scripts are cached there are no more misses, so the metrics are also logged from time to time
+            if (cacheHits.incrementAndGet() % METRICS_LOG_HITS == 0) {
+                logMetrics();
+            }
+            return pool;
+        }
+        cacheMisses.incrementAndGet();
+        logMetrics();
+
+        final long generation = cacheGeneration.get();
+        final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
+        logger.debug("Loading script {} from storage ", path);
+        try {
+            final ScriptPool newPool = new ScriptPool(filename,
+                    new String(Files.readAllBytes(Paths.get(path)), Charset.defaultCharset()));
+            // compile once up front, so that errors are reported before the script is cached
+            newPool.release(newPool.compile());
+            pool = compiledScriptMap.putIfAbsent(filename, newPool);
+            if (pool != null) {
+                return pool;
+            }
+            if (cacheGeneration.get() != generation) {
+                // a script file changed while this one was loaded, it might be the outdated version
+                compiledScriptMap.remove(filename, newPool);
+                logger.debug("Not caching JavaScript {}, it might have changed while it was loaded.", filename);
             } else {
-                final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
-                logger.debug("Loading script {} from storage ", path);
-                try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
-                    final ScriptEngine engine = manager.getEngineByName("javascript");
-                    final CompiledScript cScript = ((Compilable) engine).compile(reader);
-                    logger.debug("Putting compiled JavaScript {} to cache.", cScript);
-                    compiledScriptMap.put(filename, cScript);
-                    return cScript;
-                } catch (IOException | ScriptException e) {
-                    throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(),
-                            e);
-                }
+                logger.debug("Putting compiled JavaScript {} to cache.", filename);
+            }
+            return newPool;
+        } catch (IOException | ScriptException e) {
+            throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(), e);
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+            if (millis <= LATENCY_BUCKETS_MS[i]) {
+                evalLatencies.incrementAndGet(i);
+                return;
             }
         }
     }
@@ -85,6 +188,49 @@ public class JavaScriptEngineManager {
      */
     protected void removeFromCache(String fileName) {
         logger.debug("Removing JavaScript {} from cache.", fileName);
+        cacheGeneration.incrementAndGet();
         compiledScriptMap.remove(fileName);
     }
+
+    private void logMetrics() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("JavaScript cache hits: {}, misses: {}, engines: {}, evaluations per latency bucket: {}",
+                    getCacheHits(), getCacheMisses(), getEnginesCreated(), getEvalLatencyHistogram());
+        }
+    }
+
+    /**
+     * @return number of evaluations which found their script in the cache
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return number of evaluations which had to load their script
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * @return number of script engines created so far
+     */
+    public long getEnginesCreated() {
+        return enginesCreated.get();
+    }
+
+    /**
+     * Returns the number of evaluations per latency bucket. The keys are the inclusive upper bounds of the buckets in
+     * milliseconds in ascending order, the last bucket has the upper bound {@link Long#MAX_VALUE}.
+     *
+     * @return the evaluation latency histogram
+     */
+    public Map<Long, Long> getEvalLatencyHistogram() {
+        final Map<Long, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+            histogram.put(LATENCY_BUCKETS_MS[i], evalLatencies.get(i));
+        }
+        return Collections.unmodifiableMap(histogram);
+    }
 }
@@ -13,12 +13,11 @@
 package org.openhab.transform.jinja.internal;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -31,11 +30,22 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hubspot.jinjava.Jinjava;
+import com.hubspot.jinjava.interpret.Context;
+import com.hubspot.jinjava.interpret.FatalTemplateErrorsException;
+import com.hubspot.jinjava.interpret.InterpreterException;
+import com.hubspot.jinjava.interpret.JinjavaInterpreter;
+import com.hubspot.jinjava.interpret.TemplateError;
+import com.hubspot.jinjava.interpret.TemplateError.ErrorType;
+import com.hubspot.jinjava.tree.Node;
 
 /**
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by Jinja2 Expressions.
  *
+ * <p>
+ * Parsed templates are cached, so that repeated transformations with the same template only need to render. JSON
+ * values are bound as lazy views of the parsed tree, so only the fields a template accesses are converted.
+ *
  * @author Jochen Klein - Initial contribution
  *
  */
@@ -45,7 +55,20 @@ public class JinjaTransformationService implements TransformationService {
 
     private final Logger logger = LoggerFactory.getLogger(JinjaTransformationService.class);
 
-    private Jinjava jinjava = new Jinjava();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int MAX_CACHED_TEMPLATES = 256;
+
+    private final Jinjava jinjava = new Jinjava();
+    // Parsed node trees by template text. Rendering only reads a tree, so one tree serves concurrent renders and the
+    // map's monitor is held just for get and put. The least recently rendered template goes first when it is full.
+    private final Map<String, Node> templateCache = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, Node> eldest) {
+            return size() > MAX_CACHED_TEMPLATES;
+        }
+    };
 
     /**
      * Transforms the input <code>value</code> by Jinja template.
@@ -62,46 +85,58 @@ public class JinjaTransformationService implements TransformationService {
         bindings.put("value", value);
 
         try {
-            JsonNode tree = new ObjectMapper().readTree(value);
-            bindings.put("value_json", toObject(tree));
+            JsonNode tree = OBJECT_MAPPER.readTree(value);
+            bindings.put("value_json", LazyJsonNode.toObject(tree));
         } catch (IOException e) {
             // ok, then value_json is null...
         }
 
-        String transformationResult = jinjava.render(template, bindings);
+        String transformationResult = render(template, bindings);
 
         logger.debug("transformation resulted in '{}'", transformationResult);
 
         return transformationResult;
     }
 
-    private static @Nullable Object toObject(JsonNode node) {
-        switch (node.getNodeType()) {
-            case ARRAY: {
-                List<@Nullable Object> result = new ArrayList<>();
-                for (JsonNode el : node) {
-                    result.add(toObject(el));
-                }
-                return result;
+    /**
+     * Renders the template like {@link Jinjava#render(String, Map)}, but parses each template only once.
+     */
+    private String render(String template, Map<String, @Nullable Object> bindings) {
+        JinjavaInterpreter interpreter = new JinjavaInterpreter(jinjava,
+                new Context(jinjava.getGlobalContext(), bindings), jinjava.getGlobalConfig());
+        JinjavaInterpreter.pushCurrent(interpreter);
+        String result;
+        try {
+            Node root;
+            synchronized (templateCache) {
+                root = templateCache.get(template);
             }
-            case NUMBER:
-                return node.decimalValue();
-            case OBJECT: {
-                Map<String, @Nullable Object> result = new HashMap<>();
-                Iterator<Entry<String, JsonNode>> it = node.fields();
-                while (it.hasNext()) {
-                    Entry<String, JsonNode> field = it.next();
-                    result.put(field.getKey(), toObject(field.getValue()));
+            if (root == null) {
+                root = interpreter.parse(template);
+                // templates with syntax errors are parsed again on each call, so their errors are always reported
+                if (interpreter.getErrors().isEmpty()) {
+                    cacheTemplate(template, root);
                 }
-                return result;
             }
-            case STRING:
-                return node.asText();
-            case BOOLEAN:
-                return node.asBoolean();
-            case NULL:
-            default:
-                return null;
+            result = interpreter.render(root);
+        } catch (InterpreterException e) {
+            interpreter.addError(TemplateError.fromException(e));
+            result = "";
+        } finally {
+            JinjavaInterpreter.popCurrent();
+        }
+
+        List<TemplateError> fatalErrors = interpreter.getErrors().stream()
+                .filter(error -> error.getSeverity() == ErrorType.FATAL).collect(Collectors.toList());
+        if (!fatalErrors.isEmpty()) {
+            throw new FatalTemplateErrorsException(template, fatalErrors);
+        }
+        return result;
+    }
+
+    private void cacheTemplate(String template, Node root) {
+        synchronized (templateCache) {
+            templateCache.put(template, root);
         }
     }
 }
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.jinja.internal;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Read-only {@link Map} and {@link java.util.List} views of a {@link JsonNode} tree for the Jinja bindings. Nested
+ * values are converted when a template accesses them, so that large documents are not copied as a whole.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+final class LazyJsonNode {
+
+    private LazyJsonNode() {
+    }
+
+    /**
+     * Converts a {@link JsonNode} into the value bound to a template: objects and arrays become lazy views, numbers
+     * become {@link java.math.BigDecimal}s, strings and booleans their Java counterparts and everything else
+     * <code>null</code>.
+     */
+    static @Nullable Object toObject(JsonNode node) {
+        switch (node.getNodeType()) {
+            case ARRAY:
+                return new ArrayView(node);
+            case NUMBER:
+                return node.decimalValue();
+            case OBJECT:
+                return new ObjectView(node);
+            case STRING:
+                return node.asText();
+            case BOOLEAN:
+                return node.asBoolean();
+            case NULL:
+            default:
+                return null;
+        }
+    }
+
+    private static class ObjectView extends AbstractMap<String, @Nullable Object> {
+        private final JsonNode node;
+
+        private ObjectView(JsonNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public @Nullable Object get(@Nullable Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            JsonNode value = node.get((String) key);
+            return value == null ? null : toObject(value);
+        }
+
+        @Override
+        public boolean containsKey(@Nullable Object key) {
+            return key instanceof String && node.has((String) key);
+        }
+
+        @Override
+        public int size() {
+            return node.size();
+        }
+
+        @Override
+        public Set<Entry<String, @Nullable Object>> entrySet() {
+            return new AbstractSet<Entry<String, @Nullable Object>>() {
+                @Override
+                public Iterator<Entry<String, @Nullable Object>> iterator() {
+                    Iterator<Entry<String, JsonNode>> fields = node.fields();
+                    return new Iterator<Entry<String, @Nullable Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return fields.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, @Nullable Object> next() {
+                            Entry<String, JsonNode> field = fields.next();
+                            return new SimpleImmutableEntry<>(field.getKey(), toObject(field.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return node.size();
+                }
+            };
+        }
+    }
+
+    private static class ArrayView extends AbstractList<@Nullable Object> {
+        private final JsonNode node;
+
+        private ArrayView(JsonNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public @Nullable Object get(int index) {
+            if (index < 0 || index >= node.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + node.size());
+            }
+            return toObject(node.get(index));
+        }
+
+        @Override
+        public int size() {
+            return node.size();
+        }
+    }
+}
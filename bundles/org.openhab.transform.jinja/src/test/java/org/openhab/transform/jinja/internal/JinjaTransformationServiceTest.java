@@ -59,4 +59,24 @@ public class JinjaTransformationServiceTest {
         // Asserts
         assertEquals("Hello world!", transformedResponse);
     }
+
+    @Test
+    public void testCachedTemplate() throws TransformationException {
+        String template = "{{value_json.AM2301.Temperature}} {{value_json.TempUnit}}";
+
+        assertEquals("4.7 C",
+                processor.transform(template, "{\"AM2301\":{\"Temperature\":4.7,\"Humidity\":99.9},\"TempUnit\":\"C\"}"));
+        assertEquals("5.2 F",
+                processor.transform(template, "{\"AM2301\":{\"Temperature\":5.2,\"Humidity\":99.9},\"TempUnit\":\"F\"}"));
+    }
+
+    @Test
+    public void testNestedArrays() throws TransformationException {
+        String json = "{\"sensors\":[{\"id\":1,\"on\":true},{\"id\":2,\"on\":false}],\"name\":null}";
+
+        assertEquals("2", processor.transform("{{value_json.sensors[1].id}}", json));
+        assertEquals("2", processor.transform("{{value_json.sensors|length}}", json));
+        assertEquals("1,2,", processor.transform("{% for s in value_json.sensors %}{{s.id}},{% endfor %}", json));
+        assertEquals("none", processor.transform("{{value_json.name or 'none'}}", json));
+    }
 }
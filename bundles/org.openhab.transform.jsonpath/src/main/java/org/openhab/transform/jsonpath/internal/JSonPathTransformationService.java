@@ -12,7 +12,10 @@
  */
 package org.openhab.transform.jsonpath.internal;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -24,6 +27,7 @@ import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
@@ -33,6 +37,11 @@ import com.jayway.jsonpath.PathNotFoundException;
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by JSonPath Expressions.
  *
+ * <p>
+ * Compiled expressions are cached. The most recently parsed documents are cached as well, so that several channels
+ * extracting values from the same payload (e.g. one MQTT message or HTTP response) only parse it once. Callers
+ * holding a reference to this service can use {@link #transform(Collection, String)} to extract several values at once.
+ *
  * @author Gaël L'hopital
  * @author Sebastian Janzen
  *
@@ -43,6 +52,32 @@ public class JSonPathTransformationService implements TransformationService {
 
     private final Logger logger = LoggerFactory.getLogger(JSonPathTransformationService.class);
 
+    private static final int MAX_CACHED_EXPRESSIONS = 256;
+    private static final int MAX_CACHED_DOCUMENTS = 8;
+    private static final int MAX_CACHED_DOCUMENT_LENGTH = 256 * 1024;
+
+    // Compiled paths by expression. Channels typically use a fixed set of paths, the bound only protects against
+    // generated ones. Lookups change the access order, so every access synchronizes on the map.
+    private final Map<String, JsonPath> pathCache = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, JsonPath> eldest) {
+            return size() > MAX_CACHED_EXPRESSIONS;
+        }
+    };
+
+    // Parsed payloads, so that the channels of one thing which read different paths from the same payload parse it
+    // only once. A few small payloads are enough for that; same locking as the path cache.
+    private final Map<String, Object> documentCache = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, Object> eldest) {
+            return size() > MAX_CACHED_DOCUMENTS;
+        }
+    };
+
     /**
      * Transforms the input <code>source</code> by JSonPath expression.
      *
@@ -60,15 +95,7 @@ public class JSonPathTransformationService implements TransformationService {
         logger.debug("about to transform '{}' by the function '{}'", source, jsonPathExpression);
 
         try {
-            Object transformationResult = JsonPath.read(source, jsonPathExpression);
-            logger.debug("transformation resulted in '{}'", transformationResult);
-            if (transformationResult == null) {
-                return null;
-            } else if (transformationResult instanceof List) {
-                return flattenList((List<?>) transformationResult);
-            } else {
-                return transformationResult.toString();
-            }
+            return read(getJsonPath(jsonPathExpression), getDocument(source));
         } catch (PathNotFoundException e) {
             throw new TransformationException("Invalid path '" + jsonPathExpression + "' in '" + source + "'");
         } catch (InvalidPathException | InvalidJsonException e) {
@@ -76,6 +103,81 @@ public class JSonPathTransformationService implements TransformationService {
         }
     }
 
+    /**
+     * Transforms the input <code>source</code> by several JSonPath expressions, parsing the JSON only once.
+     *
+     * @param jsonPathExpressions JsonPath expressions
+     * @param source String which contains JSON
+     * @return the result of each expression, in the order of the given expressions. Expressions whose path does not
+     *         exist in the source map to <code>null</code>.
+     * @throws TransformationException If one of the JsonPath expressions or the JSON is invalid
+     */
+    public Map<String, @Nullable String> transform(Collection<String> jsonPathExpressions, String source)
+            throws TransformationException {
+        logger.debug("about to transform '{}' by the functions '{}'", source, jsonPathExpressions);
+
+        Map<String, @Nullable String> results = new LinkedHashMap<>();
+        try {
+            Object document = getDocument(source);
+            for (String jsonPathExpression : jsonPathExpressions) {
+                try {
+                    results.put(jsonPathExpression, read(getJsonPath(jsonPathExpression), document));
+                } catch (PathNotFoundException e) {
+                    logger.debug("Invalid path '{}' in '{}'", jsonPathExpression, source);
+                    results.put(jsonPathExpression, null);
+                }
+            }
+        } catch (InvalidPathException | InvalidJsonException e) {
+            throw new TransformationException("An error occurred while transforming JSON expression.", e);
+        }
+        return results;
+    }
+
+    private @Nullable String read(JsonPath jsonPath, Object document) {
+        Object transformationResult = jsonPath.read(document);
+        logger.debug("transformation resulted in '{}'", transformationResult);
+        if (transformationResult == null) {
+            return null;
+        } else if (transformationResult instanceof List) {
+            return flattenList((List<?>) transformationResult);
+        } else {
+            return transformationResult.toString();
+        }
+    }
+
+    private JsonPath getJsonPath(String jsonPathExpression) {
+        synchronized (pathCache) {
+            JsonPath jsonPath = pathCache.get(jsonPathExpression);
+            if (jsonPath != null) {
+                return jsonPath;
+            }
+        }
+        // compiled paths are immutable and can be shared
+        JsonPath jsonPath = JsonPath.compile(jsonPathExpression);
+        synchronized (pathCache) {
+            pathCache.put(jsonPathExpression, jsonPath);
+        }
+        return jsonPath;
+    }
+
+    private Object getDocument(String source) {
+        if (source.length() > MAX_CACHED_DOCUMENT_LENGTH) {
+            return Configuration.defaultConfiguration().jsonProvider().parse(source);
+        }
+        synchronized (documentCache) {
+            Object document = documentCache.get(source);
+            if (document != null) {
+                return document;
+            }
+        }
+        // parse outside of the lock, the parsed document is only read afterwards
+        Object document = Configuration.defaultConfiguration().jsonProvider().parse(source);
+        synchronized (documentCache) {
+            documentCache.put(source, document);
+        }
+        return document;
+    }
+
     private String flattenList(List<?> list) {
         if (list.size() == 1) {
             return list.get(0).toString();
@@ -14,6 +14,9 @@ package org.openhab.transform.jsonpath.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
+import java.util.Map;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openhab.core.transform.TransformationException;
@@ -127,4 +130,30 @@ public class JSonPathTransformationServiceTest {
         String transformedResponse = processor.transform("$.data", json);
         assertEquals(list, transformedResponse);
     }
+
+    @Test
+    public void testRepeatedTransformationsOfSamePayload() throws TransformationException {
+        assertEquals("bob", processor.transform("$[0].name", jsonArray));
+        assertEquals("alice", processor.transform("$[1].name", jsonArray));
+        assertEquals("bob", processor.transform("$[0].name", new String(jsonArray)));
+        assertThrows(TransformationException.class, () -> processor.transform("$[5].id", jsonArray));
+        assertEquals("2", processor.transform("$[1].id", jsonArray));
+    }
+
+    @Test
+    public void testMultipleExpressions() throws TransformationException {
+        Map<String, String> results = processor.transform(List.of("$[0].name", "$[1].id", "$[5].id", "$.*.id"),
+                jsonArray);
+
+        assertEquals(List.of("$[0].name", "$[1].id", "$[5].id", "$.*.id"), List.copyOf(results.keySet()));
+        assertEquals("bob", results.get("$[0].name"));
+        assertEquals("2", results.get("$[1].id"));
+        assertNull(results.get("$[5].id"));
+        assertEquals("[1, 2]", results.get("$.*.id"));
+    }
+
+    @Test
+    public void testMultipleExpressionsWithInvalidJson() {
+        assertThrows(TransformationException.class, () -> processor.transform(List.of("$"), "{id:"));
+    }
 }
@@ -12,6 +12,9 @@
  */
 package org.openhab.transform.regex.internal;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,6 +33,9 @@ import org.slf4j.LoggerFactory;
  * <p>
  * <b>Note:</b> the given Regular Expression must contain exactly one group!
  *
+ * <p>
+ * Compiled expressions are cached, so that repeated transformations with the same expression only need to match.
+ *
  * @author Thomas.Eichstaedt-Engelen
  */
 @NonNullByDefault
@@ -39,6 +45,35 @@ public class RegExTransformationService implements TransformationService {
     private final Logger logger = LoggerFactory.getLogger(RegExTransformationService.class);
 
     private static final Pattern SUBSTR_PATTERN = Pattern.compile("^s/(.*?[^\\\\])/(.*?[^\\\\])/(.*)$");
+    static final int MAX_CACHED_EXPRESSIONS = 256;
+
+    // Rules may build expressions from changing values, so the cache is bounded and drops the expression unused for
+    // the longest time. Reading it updates that order, hence the lock on the map; compiling happens outside of it.
+    private final Map<String, CompiledRegEx> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, CompiledRegEx> eldest) {
+            return size() > MAX_CACHED_EXPRESSIONS;
+        }
+    };
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    /**
+     * A regular expression in either match or substitution form, compiled once.
+     */
+    private static class CompiledRegEx {
+        private final Pattern pattern;
+        private final @Nullable String substitution;
+        private final boolean global;
+
+        private CompiledRegEx(Pattern pattern, @Nullable String substitution, boolean global) {
+            this.pattern = pattern;
+            this.substitution = substitution;
+            this.global = global;
+        }
+    }
 
     @Override
     public @Nullable String transform(String regExpression, String source) throws TransformationException {
@@ -50,23 +85,15 @@ public class RegExTransformationService implements TransformationService {
 
         String result = "";
 
-        Matcher substMatcher = SUBSTR_PATTERN.matcher(regExpression);
-        if (substMatcher.matches()) {
+        CompiledRegEx compiled = getCompiledRegEx(regExpression);
+        String substitution = compiled.substitution;
+        if (substitution != null) {
             logger.debug("Using substitution form of regex transformation");
-            String regex = substMatcher.group(1);
-            String substitution = substMatcher.group(2);
-            String options = substMatcher.group(3);
-            if (options.equals("g")) {
-                result = source.trim().replaceAll(regex, substitution);
-            } else {
-                result = source.trim().replaceFirst(regex, substitution);
-            }
-            if (result != null) {
-                return result;
-            }
+            Matcher substMatcher = compiled.pattern.matcher(source.trim());
+            return compiled.global ? substMatcher.replaceAll(substitution) : substMatcher.replaceFirst(substitution);
         }
 
-        Matcher matcher = Pattern.compile("^" + regExpression + "$", Pattern.DOTALL).matcher(source.trim());
+        Matcher matcher = compiled.pattern.matcher(source.trim());
         if (!matcher.matches()) {
             logger.debug(
                     "the given regex '^{}$' doesn't match the given content '{}' -> couldn't compute transformation",
@@ -94,4 +121,56 @@ public class RegExTransformationService implements TransformationService {
 
         return result;
     }
+
+    private CompiledRegEx getCompiledRegEx(String regExpression) {
+        CompiledRegEx compiled;
+        synchronized (cache) {
+            compiled = cache.get(regExpression);
+        }
+        if (compiled != null) {
+            cacheHits.incrementAndGet();
+            return compiled;
+        }
+        long misses = cacheMisses.incrementAndGet();
+
+        Matcher substMatcher = SUBSTR_PATTERN.matcher(regExpression);
+        if (substMatcher.matches()) {
+            compiled = new CompiledRegEx(Pattern.compile(substMatcher.group(1)), substMatcher.group(2),
+                    substMatcher.group(3).equals("g"));
+        } else {
+            compiled = new CompiledRegEx(Pattern.compile("^" + regExpression + "$", Pattern.DOTALL), null, false);
+        }
+
+        int size;
+        synchronized (cache) {
+            cache.put(regExpression, compiled);
+            size = cache.size();
+        }
+        logger.debug("compiled regex '{}', {} expressions cached after {} hits and {} misses", regExpression, size,
+                cacheHits.get(), misses);
+        return compiled;
+    }
+
+    /**
+     * @return number of transformations which found their compiled expression in the cache
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return number of transformations which had to compile their expression
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * @return number of cached compiled expressions
+     */
+    public int getCacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
 }
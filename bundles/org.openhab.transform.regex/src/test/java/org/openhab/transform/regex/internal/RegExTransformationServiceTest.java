@@ -75,4 +75,35 @@ public class RegExTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("varX=12 varY=54 ", transformedResponse);
     }
+
+    @Test
+    public void testTransformByRegex_cachesCompiledExpressions() throws TransformationException {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("8", processor.transform(".*?<current_conditions>.*?<temp_c data=\"(.*?)\".*", source));
+            assertEquals("SetMode(42)", processor.transform("s/^OP:(.*?),ARG:(.*)$/$1($2)/", "OP:SetMode,ARG:42"));
+        }
+
+        // Asserts
+        assertEquals(2, processor.getCacheSize());
+        assertEquals(2, processor.getCacheMisses());
+        assertEquals(4, processor.getCacheHits());
+    }
+
+    @Test
+    public void testTransformByRegex_evictsLeastRecentlyUsedExpression() throws TransformationException {
+        processor.transform("(a)", "a");
+        for (int i = 1; i < RegExTransformationService.MAX_CACHED_EXPRESSIONS; i++) {
+            processor.transform("(" + i + ")", String.valueOf(i));
+        }
+        // use the first expression again, so the second one is the least recently used
+        processor.transform("(a)", "a");
+        processor.transform("(new)", "new");
+        assertEquals(RegExTransformationService.MAX_CACHED_EXPRESSIONS, processor.getCacheSize());
+
+        long misses = processor.getCacheMisses();
+        processor.transform("(a)", "a");
+        assertEquals(misses, processor.getCacheMisses());
+        processor.transform("(1)", "1");
+        assertEquals(misses + 1, processor.getCacheMisses());
+    }
 }
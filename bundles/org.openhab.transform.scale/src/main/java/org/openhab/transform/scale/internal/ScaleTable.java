@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The ranges of a scale file, prepared for lookups in logarithmic time.
+ *
+ * All range limits are sorted into one array. The limits split the number line into the limits themselves and the
+ * open gaps between them, and no range starts or ends within such a part. The label of the first range in file order
+ * containing each part is therefore computed once when the table is built, and a lookup only has to find the part of
+ * the value by binary search. Overlapping ranges keep their first-match semantics, while a range which is repeated
+ * with the same bounds replaces the label of the earlier entry, like a repeated key of the scale file.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ScaleTable {
+
+    private final String format;
+    private final @Nullable String nonNumericLabel;
+
+    private final BigDecimal[] limits;
+    // label of each limit
+    private final @Nullable String[] limitLabels;
+    // label of the gap below limits[i], the last entry is the gap above the highest limit
+    private final @Nullable String[] gapLabels;
+
+    // the limits as doubles, only set if all of them can be represented as double without loss
+    private final double @Nullable [] doubleLimits;
+
+    private ScaleTable(List<Range> ranges, List<String> labels, String format, @Nullable String nonNumericLabel) {
+        this.format = format;
+        this.nonNumericLabel = nonNumericLabel;
+
+        TreeSet<BigDecimal> sortedLimits = new TreeSet<>();
+        for (Range range : ranges) {
+            if (range.min != null) {
+                sortedLimits.add(range.min);
+            }
+            if (range.max != null) {
+                sortedLimits.add(range.max);
+            }
+        }
+        limits = sortedLimits.toArray(new BigDecimal[0]);
+
+        limitLabels = new String[limits.length];
+        gapLabels = new String[limits.length + 1];
+        for (int i = 0; i < limits.length; i++) {
+            limitLabels[i] = firstMatch(ranges, labels, limits[i]);
+        }
+        for (int i = 0; i <= limits.length; i++) {
+            gapLabels[i] = firstMatchInGap(ranges, labels, i);
+        }
+
+        double[] doubles = new double[limits.length];
+        boolean exact = true;
+        for (int i = 0; i < limits.length && exact; i++) {
+            doubles[i] = limits[i].doubleValue();
+            exact = !Double.isInfinite(doubles[i]) && BigDecimal.valueOf(doubles[i]).compareTo(limits[i]) == 0;
+        }
+        doubleLimits = exact ? doubles : null;
+    }
+
+    private static @Nullable String firstMatch(List<Range> ranges, List<String> labels, BigDecimal value) {
+        for (int i = 0; i < ranges.size(); i++) {
+            if (ranges.get(i).contains(value)) {
+                return labels.get(i);
+            }
+        }
+        return null;
+    }
+
+    private @Nullable String firstMatchInGap(List<Range> ranges, List<String> labels, int gap) {
+        // a range contains the whole open gap between two adjacent limits if it contains any value within it
+        for (int i = 0; i < ranges.size(); i++) {
+            Range range = ranges.get(i);
+            boolean aboveMin = range.min == null || (gap > 0 && range.min.compareTo(limits[gap - 1]) <= 0);
+            boolean belowMax = range.max == null || (gap < limits.length && range.max.compareTo(limits[gap]) >= 0);
+            if (aboveMin && belowMax) {
+                return labels.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the format of the result, containing the placeholders for value and label
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the label for non-numeric values or <code>null</code> if the scale does not define one
+     */
+    public @Nullable String getNonNumericLabel() {
+        return nonNumericLabel;
+    }
+
+    /**
+     * Returns the label of the first range containing the value.
+     *
+     * @param value the value to look up
+     * @return the label or <code>null</code> if no range contains the value
+     */
+    public @Nullable String getLabel(BigDecimal value) {
+        int index = Arrays.binarySearch(limits, value);
+        return index >= 0 ? limitLabels[index] : gapLabels[-index - 1];
+    }
+
+    /**
+     * Returns the label of the first range containing the value, like {@link #getLabel(BigDecimal)} for
+     * {@link BigDecimal#valueOf(double)}, without creating a {@link BigDecimal} if the scale limits allow it.
+     *
+     * @param value the value to look up
+     * @return the label, the label for non-numeric values if the value is NaN, or <code>null</code> if there is no
+     *         matching label
+     */
+    public @Nullable String getLabel(double value) {
+        if (Double.isNaN(value)) {
+            return nonNumericLabel;
+        }
+        double[] doubleLimits = this.doubleLimits;
+        if (doubleLimits != null) {
+            // binarySearch orders -0.0 below 0.0, both are zero for BigDecimal
+            int index = Arrays.binarySearch(doubleLimits, value == 0 ? 0.0 : value);
+            return index >= 0 ? limitLabels[index] : gapLabels[-index - 1];
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? gapLabels[limits.length] : gapLabels[0];
+        }
+        return getLabel(BigDecimal.valueOf(value));
+    }
+
+    /**
+     * Builder collecting the entries of a scale file in file order.
+     */
+    public static class Builder {
+        private final List<Range> ranges = new ArrayList<>();
+        private final List<String> labels = new ArrayList<>();
+        private String format;
+        private @Nullable String nonNumericLabel;
+
+        public Builder(String defaultFormat) {
+            this.format = defaultFormat;
+        }
+
+        /**
+         * Adds a range, or replaces the label if a range with the same bounds has been added before.
+         */
+        public Builder withRange(Range range, String label) {
+            for (int i = 0; i < ranges.size(); i++) {
+                if (sameBounds(ranges.get(i), range)) {
+                    labels.set(i, label);
+                    return this;
+                }
+            }
+            ranges.add(range);
+            labels.add(label);
+            return this;
+        }
+
+        private static boolean sameBounds(Range a, Range b) {
+            return sameBound(a.min, a.minInclusive, b.min, b.minInclusive)
+                    && sameBound(a.max, a.maxInclusive, b.max, b.maxInclusive);
+        }
+
+        private static boolean sameBound(@Nullable BigDecimal a, boolean aInclusive, @Nullable BigDecimal b,
+                boolean bInclusive) {
+            if (a == null || b == null) {
+                return a == b;
+            }
+            return a.compareTo(b) == 0 && aInclusive == bInclusive;
+        }
+
+        public Builder withFormat(String format) {
+            this.format = format;
+            return this;
+        }
+
+        public Builder withNonNumericLabel(String label) {
+            this.nonNumericLabel = label;
+            return this;
+        }
+
+        public ScaleTable build() {
+            return new ScaleTable(ranges, labels, format, nonNumericLabel);
+        }
+    }
+}
@@ -20,10 +20,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -51,7 +49,7 @@ import org.slf4j.LoggerFactory;
  */
 @Component(service = { TransformationService.class, ConfigOptionProvider.class }, property = {
         "openhab.transform=SCALE" })
-public class ScaleTransformationService extends AbstractFileTransformationService<Map<Range, String>>
+public class ScaleTransformationService extends AbstractFileTransformationService<ScaleTable>
         implements ConfigOptionProvider {
 
     private final Logger logger = LoggerFactory.getLogger(ScaleTransformationService.class);
@@ -68,9 +66,6 @@ public class ScaleTransformationService extends AbstractFileTransformationServic
     private static final String FORMAT_VALUE = "%value%";
     private static final String FORMAT_LABEL = "%label%";
 
-    /** Inaccessible range used to store presentation format ]0..0[ */
-    private static final Range FORMAT_RANGE = Range.range(BigDecimal.ZERO, false, BigDecimal.ZERO, false);
-
     /**
      * The implementation of {@link OrderedProperties} that let access
      * properties in the same order than presented in the source file
@@ -112,8 +107,7 @@ public class ScaleTransformationService extends AbstractFileTransformationServic
      * @return the transformed result or null if the transformation couldn't be completed for any reason.
      */
     @Override
-    protected @Nullable String internalTransform(Map<Range, String> data, String source)
-            throws TransformationException {
+    protected @Nullable String internalTransform(ScaleTable data, String source) throws TransformationException {
         try {
             final BigDecimal value = new BigDecimal(source);
             return formatResult(data, source, value);
@@ -123,7 +117,7 @@ public class ScaleTransformationService extends AbstractFileTransformationServic
                 final QuantityType<?> quantity = new QuantityType<>(source);
                 return formatResult(data, source, quantity.toBigDecimal());
             } catch (NumberFormatException e2) {
-                String nonNumeric = data.get(null);
+                String nonNumeric = data.getNonNumericLabel();
                 if (nonNumeric != null) {
                     return nonNumeric;
                 } else {
@@ -134,25 +128,18 @@ public class ScaleTransformationService extends AbstractFileTransformationServic
         }
     }
 
-    private String formatResult(Map<Range, String> data, String source, final BigDecimal value)
-            throws TransformationException {
-        String format = data.get(FORMAT_RANGE);
-        String result = getScaleResult(data, source, value);
-        return format.replaceAll(FORMAT_VALUE, source).replaceAll(FORMAT_LABEL, result);
-    }
-
-    private String getScaleResult(Map<Range, String> data, String source, final BigDecimal value)
-            throws TransformationException {
-        return data.entrySet().stream().filter(entry -> entry.getKey() != null && entry.getKey().contains(value))
-                .findFirst().map(Map.Entry::getValue)
-                .orElseThrow(() -> new TransformationException("No matching range for '" + source + "'"));
+    private String formatResult(ScaleTable data, String source, final BigDecimal value) throws TransformationException {
+        String result = data.getLabel(value);
+        if (result == null) {
+            throw new TransformationException("No matching range for '" + source + "'");
+        }
+        return data.getFormat().replaceAll(FORMAT_VALUE, source).replaceAll(FORMAT_LABEL, result);
     }
 
     @Override
-    protected Map<Range, String> internalLoadTransform(String filename) throws TransformationException {
+    protected ScaleTable internalLoadTransform(String filename) throws TransformationException {
         try (FileReader reader = new FileReader(filename)) {
-            final Map<Range, String> data = new LinkedHashMap<>();
-            data.put(FORMAT_RANGE, FORMAT_LABEL);
+            final ScaleTable.Builder data = new ScaleTable.Builder(FORMAT_LABEL);
             final OrderedProperties properties = new OrderedProperties();
             properties.load(reader);
 
@@ -172,15 +159,15 @@ public class ScaleTransformationService extends AbstractFileTransformationServic
                         final BigDecimal highValue = highLimit.isEmpty() ? null : new BigDecimal(highLimit);
                         final Range range = Range.range(lowValue, lowerInclusive, highValue, upperInclusive);
 
-                        data.put(range, value);
+                        data.withRange(range, value);
                     } catch (NumberFormatException ex) {
                         throw new TransformationException("Error parsing bounds: " + lowLimit + ".." + highLimit);
                     }
                 } else {
                     if (NON_NUMBER.equals(entry)) {
-                        data.put(null, value);
+                        data.withNonNumericLabel(value);
                     } else if (FORMAT.equals(entry)) {
-                        data.put(FORMAT_RANGE, value);
+                        data.withFormat(value);
                     } else {
                         logger.warn("Scale transform file '{}' does not comply with syntax for entry : '{}', '{}'",
                                 filename, entry, value);
@@ -188,7 +175,7 @@ public class ScaleTransformationService extends AbstractFileTransformationServic
                 }
             }
 
-            return data;
+            return data.build();
         } catch (final IOException ex) {
             throw new TransformationException("An error occurred while opening file.", ex);
         }
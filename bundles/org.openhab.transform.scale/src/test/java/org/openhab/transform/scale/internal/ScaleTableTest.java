@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class ScaleTableTest {
+
+    private static BigDecimal bd(String value) {
+        return new BigDecimal(value);
+    }
+
+    @Test
+    public void testFirstMatchOfOverlappingRanges() {
+        ScaleTable table = new ScaleTable.Builder("%label%")
+                .withRange(Range.range(null, false, bd("15"), false), "first")
+                .withRange(Range.range(bd("10"), true, bd("17"), false), "second")
+                .withRange(Range.range(bd("15"), true, null, false), "last").build();
+
+        assertEquals("first", table.getLabel(bd("-1000")));
+        assertEquals("first", table.getLabel(bd("12")));
+        assertEquals("second", table.getLabel(bd("15")));
+        assertEquals("second", table.getLabel(bd("16.99")));
+        assertEquals("last", table.getLabel(bd("17")));
+        assertEquals("last", table.getLabel(bd("1E+9")));
+
+        assertEquals("first", table.getLabel(12.0));
+        assertEquals("second", table.getLabel(15.0));
+        assertEquals("last", table.getLabel(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void testRepeatedRangeReplacesLabel() {
+        ScaleTable table = new ScaleTable.Builder("%label%")
+                .withRange(Range.range(bd("0"), true, bd("10"), false), "old")
+                .withRange(Range.range(bd("5"), true, bd("20"), false), "overlap")
+                .withRange(Range.range(bd("0.0"), true, bd("10"), false), "new").build();
+
+        assertEquals("new", table.getLabel(bd("0")));
+        assertEquals("new", table.getLabel(bd("7")));
+        assertEquals("overlap", table.getLabel(bd("10")));
+    }
+
+    @Test
+    public void testGapsAndBounds() {
+        ScaleTable table = new ScaleTable.Builder("%label%").withRange(Range.range(bd("0"), false, bd("1"), true), "a")
+                .withRange(Range.range(bd("2"), true, bd("3"), false), "b").withNonNumericLabel("nan").build();
+
+        assertNull(table.getLabel(bd("0")));
+        assertEquals("a", table.getLabel(bd("0.5")));
+        assertEquals("a", table.getLabel(bd("1.0")));
+        assertNull(table.getLabel(bd("1.5")));
+        assertEquals("b", table.getLabel(bd("2")));
+        assertNull(table.getLabel(bd("3")));
+
+        assertNull(table.getLabel(-0.0));
+        assertEquals("a", table.getLabel(1.0));
+        assertNull(table.getLabel(Double.NEGATIVE_INFINITY));
+        assertEquals("nan", table.getLabel(Double.NaN));
+    }
+
+    @Test
+    public void testLookupMatchesLinearScan() {
+        Random random = new Random(42);
+        List<Range> ranges = new ArrayList<>();
+        ScaleTable.Builder builder = new ScaleTable.Builder("%label%");
+        for (int i = 0; i < 200; i++) {
+            BigDecimal min = random.nextInt(10) == 0 ? null : BigDecimal.valueOf(random.nextInt(2000) - 1000, 1);
+            BigDecimal max = random.nextInt(10) == 0 ? null : BigDecimal.valueOf(random.nextInt(2000) - 1000, 1);
+            Range range = Range.range(min, random.nextBoolean(), max, random.nextBoolean());
+            ranges.add(range);
+            builder.withRange(range, String.valueOf(i));
+        }
+        ScaleTable table = builder.build();
+
+        for (int i = -1100; i <= 1100; i++) {
+            BigDecimal value = BigDecimal.valueOf(i, 1);
+            String expected = null;
+            for (int j = 0; j < ranges.size(); j++) {
+                if (ranges.get(j).contains(value)) {
+                    expected = String.valueOf(j);
+                    break;
+                }
+            }
+            assertEquals(expected, table.getLabel(value), "BigDecimal lookup of " + value);
+            assertEquals(expected, table.getLabel(value.doubleValue()), "double lookup of " + value);
+        }
+    }
+}
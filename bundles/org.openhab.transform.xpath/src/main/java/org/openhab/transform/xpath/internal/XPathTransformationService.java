@@ -13,12 +13,18 @@
 package org.openhab.transform.xpath.internal;
 
 import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -41,8 +47,27 @@ import org.xml.sax.InputSource;
 @Component(property = { "openhab.transform=XPATH" })
 public class XPathTransformationService implements TransformationService {
 
+    private static final int MAX_CACHED_EXPRESSIONS = 100;
+    private static final int MAX_POOLED_DOCUMENT_BUILDERS = 8;
+
     private final Logger logger = LoggerFactory.getLogger(XPathTransformationService.class);
 
+    // guarded by this
+    private @Nullable DocumentBuilderFactory domFactory;
+    private final Queue<DocumentBuilder> documentBuilders = new ConcurrentLinkedQueue<>();
+    // guarded by expressions, XPath is not thread-safe
+    private final XPath xpath = XPathFactory.newInstance().newXPath();
+    // Compiled expressions, least recently used first. Its monitor also guards the shared XPath, so a ConcurrentHashMap
+    // would not spare the lock; expressions usually come from a few things, 100 is plenty.
+    private final Map<String, XPathExpression> expressions = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, XPathExpression> eldest) {
+            return size() > MAX_CACHED_EXPRESSIONS;
+        }
+    };
+
     @Override
     public @Nullable String transform(String xpathExpression, String source) throws TransformationException {
         if (xpathExpression == null || source == null) {
@@ -51,40 +76,69 @@ public class XPathTransformationService implements TransformationService {
 
         logger.debug("about to transform '{}' by the function '{}'", source, xpathExpression);
 
-        StringReader stringReader = null;
-
         try {
-            DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-            // see https://cheatsheetseries.owasp.org/cheatsheets/XML_External_Entity_Prevention_Cheat_Sheet.html
-            domFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            domFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            domFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            domFactory.setXIncludeAware(false);
-            domFactory.setExpandEntityReferences(false);
-            domFactory.setNamespaceAware(true);
-            domFactory.setValidating(false);
-            DocumentBuilder builder = domFactory.newDocumentBuilder();
-
-            stringReader = new StringReader(source);
-            InputSource inputSource = new InputSource(stringReader);
-            inputSource.setEncoding("UTF-8");
-
-            Document doc = builder.parse(inputSource);
-
-            XPath xpath = XPathFactory.newInstance().newXPath();
-            XPathExpression expr = xpath.compile(xpathExpression);
+            XPathExpression expr = getExpression(xpathExpression);
+            Document doc = parse(source);
 
-            String transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
+            String transformationResult;
+            // compiled expressions are not thread-safe
+            synchronized (expr) {
+                transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
+            }
 
             logger.debug("transformation resulted in '{}'", transformationResult);
 
             return transformationResult;
         } catch (Exception e) {
             throw new TransformationException("transformation throws exceptions", e);
-        } finally {
-            if (stringReader != null) {
-                stringReader.close();
+        }
+    }
+
+    private XPathExpression getExpression(String xpathExpression) throws XPathExpressionException {
+        synchronized (expressions) {
+            XPathExpression expr = expressions.get(xpathExpression);
+            if (expr == null) {
+                expr = xpath.compile(xpathExpression);
+                expressions.put(xpathExpression, expr);
             }
+            return expr;
+        }
+    }
+
+    /**
+     * Parses the source with a pooled {@link DocumentBuilder}, which is returned to the pool afterwards.
+     */
+    private Document parse(String source) throws Exception {
+        DocumentBuilder builder = documentBuilders.poll();
+        if (builder == null) {
+            builder = newDocumentBuilder();
+        }
+        try (StringReader stringReader = new StringReader(source)) {
+            InputSource inputSource = new InputSource(stringReader);
+            inputSource.setEncoding("UTF-8");
+            Document doc = builder.parse(inputSource);
+            builder.reset();
+            if (documentBuilders.size() < MAX_POOLED_DOCUMENT_BUILDERS) {
+                documentBuilders.offer(builder);
+            }
+            return doc;
+        }
+    }
+
+    private synchronized DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilderFactory factory = domFactory;
+        if (factory == null) {
+            factory = DocumentBuilderFactory.newInstance();
+            // see https://cheatsheetseries.owasp.org/cheatsheets/XML_External_Entity_Prevention_Cheat_Sheet.html
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setXIncludeAware(false);
+            factory.setExpandEntityReferences(false);
+            factory.setNamespaceAware(true);
+            factory.setValidating(false);
+            domFactory = factory;
         }
+        return factory.newDocumentBuilder();
     }
 }
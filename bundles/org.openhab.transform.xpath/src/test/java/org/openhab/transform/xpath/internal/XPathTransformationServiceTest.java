@@ -14,6 +14,12 @@ package org.openhab.transform.xpath.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openhab.core.transform.TransformationException;
@@ -38,4 +44,36 @@ public class XPathTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("8", transformedResponse);
     }
+
+    @Test
+    public void testTransformWithCachedExpressionsAndBuilders() throws TransformationException {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("8", processor.transform("//current_conditions/temp_c/@data", source));
+            assertEquals("46", processor.transform("//current_conditions/temp_f/@data", source));
+            assertEquals("42", processor.transform("/a/b", "<a><b>42</b></a>"));
+        }
+    }
+
+    @Test
+    public void testTransformInvalidSourceDoesNotBreakLaterCalls() throws TransformationException {
+        assertThrows(TransformationException.class, () -> processor.transform("/a/b", "<a><b>"));
+        assertEquals("42", processor.transform("/a/b", "<a><b>42</b></a>"));
+    }
+
+    @Test
+    public void testTransformConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String value = String.valueOf(i);
+                results.add(executor.submit(() -> processor.transform("/a/b", "<a><b>" + value + "</b></a>")));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(String.valueOf(i), results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
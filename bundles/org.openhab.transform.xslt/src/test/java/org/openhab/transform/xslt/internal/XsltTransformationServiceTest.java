@@ -14,28 +14,103 @@ package org.openhab.transform.xslt.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
 import org.openhab.core.transform.TransformationException;
+import org.osgi.framework.BundleContext;
 
 /**
  * @author Thomas.Eichstaedt-Engelen
  */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.WARN)
 public class XsltTransformationServiceTest extends AbstractTransformationServiceTest {
 
-    private XsltTransformationService processor;
+    private static final String FILENAME = "http/google_weather.xsl";
+
+    private @Mock BundleContext bundleContext;
+    private @TempDir Path transformFolder;
+
+    private TestableXsltTransformationService processor;
+
+    private class TestableXsltTransformationService extends XsltTransformationService {
+        @Override
+        protected String getSourcePath() {
+            return transformFolder.toString() + File.separator;
+        }
+
+        @Override
+        protected Locale getLocale() {
+            return Locale.US;
+        }
+
+        @Override
+        public void activate(BundleContext context) {
+            super.activate(context);
+        }
+
+        @Override
+        public void deactivate() {
+            super.deactivate();
+        }
+    }
 
     @BeforeEach
-    public void init() {
-        processor = new XsltTransformationService();
+    public void init() throws IOException {
+        Path stylesheet = transformFolder.resolve(FILENAME);
+        Files.createDirectories(stylesheet.getParent());
+        Files.copy(Paths.get("conf", "transform", FILENAME), stylesheet);
+        processor = new TestableXsltTransformationService();
+        processor.activate(bundleContext);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        processor.deactivate();
     }
 
     @Test
     public void testTransformByXSLT() throws TransformationException {
         // method under test
-        String transformedResponse = processor.transform("http/google_weather.xsl", source);
+        String transformedResponse = processor.transform(FILENAME, source);
 
         // Asserts
         assertEquals("8", transformedResponse);
     }
+
+    @Test
+    public void testTransformByCachedXSLT() throws TransformationException {
+        assertEquals("8", processor.transform(FILENAME, source));
+        assertEquals("8", processor.transform(FILENAME, source));
+    }
+
+    @Test
+    public void testChangedXSLTIsReloaded() throws Exception {
+        assertEquals("8", processor.transform(FILENAME, source));
+
+        Path stylesheet = transformFolder.resolve(FILENAME);
+        Files.writeString(stylesheet, Files.readString(stylesheet).replace("temp_c", "temp_f"));
+
+        long deadline = System.currentTimeMillis() + 10000;
+        String transformedResponse = processor.transform(FILENAME, source);
+        while (!"46".equals(transformedResponse) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            transformedResponse = processor.transform(FILENAME, source);
+        }
+        assertEquals("46", transformedResponse);
+    }
 }
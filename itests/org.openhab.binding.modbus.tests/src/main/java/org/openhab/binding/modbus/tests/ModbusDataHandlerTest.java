@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -97,6 +98,16 @@ public class ModbusDataHandlerTest extends AbstractModbusOSGiTest {
         }
     }
 
+    private final class CountingTransformation implements TransformationService {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String transform(String function, String source) throws TransformationException {
+            calls.incrementAndGet();
+            return source;
+        }
+    }
+
     private static final Map<String, String> CHANNEL_TO_ACCEPTED_TYPE = new HashMap<>();
     static {
         CHANNEL_TO_ACCEPTED_TYPE.put(CHANNEL_SWITCH, "Switch");
@@ -603,6 +614,136 @@ public class ModbusDataHandlerTest extends AbstractModbusOSGiTest {
         assertSingleStateUpdate(dataHandler, CHANNEL_STRING, is(equalTo(new StringType("ON"))));
     }
 
+    private ModbusDataThingHandler createUnchangedValuesHandler(ModbusReadRequestBlueprint request,
+            long updateUnchangedValuesEveryMillis, boolean autoCreateItemsAndLinkToChannels) {
+        ModbusSlaveEndpoint endpoint = new ModbusTCPSlaveEndpoint("thisishost", 502, false);
+        doReturn(3).when(request).getDataLength();
+        doReturn(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS).when(request).getFunctionCode();
+
+        PollTask task = Mockito.mock(PollTask.class);
+        doReturn(endpoint).when(task).getEndpoint();
+        doReturn(request).when(task).getRequest();
+
+        Bridge poller = createPollerMock("poller1", task);
+
+        Configuration dataConfig = new Configuration();
+        dataConfig.put("readStart", "0");
+        dataConfig.put("readTransform", "COUNT(1)");
+        dataConfig.put("readValueType", "int16");
+        dataConfig.put("updateUnchangedValuesEveryMillis", updateUnchangedValuesEveryMillis);
+        ModbusDataThingHandler dataHandler = createDataHandler("read1", poller,
+                builder -> builder.withConfiguration(dataConfig), bundleContext, autoCreateItemsAndLinkToChannels);
+        assertThat(dataHandler.getThing().getStatus(), is(equalTo(ThingStatus.ONLINE)));
+        return dataHandler;
+    }
+
+    private void linkNewItem(ModbusDataThingHandler handler, String channel, String itemType) {
+        ChannelUID channelUID = new ChannelUID(handler.getThing().getUID(), channel);
+        String itemName = getItemName(channelUID);
+        GenericItem item = itemType.equals("DateTime") ? new DateTimeItem(itemName)
+                : coreItemFactory.createItem(itemType, itemName);
+        assertNotNull(item);
+        addItem(Objects.requireNonNull(item));
+        linkItem(itemName, channelUID);
+    }
+
+    private void pollRegister(ModbusDataThingHandler handler, ModbusReadRequestBlueprint request, int value) {
+        handler.onReadResult(new AsyncModbusReadResult(request,
+                new ModbusRegisterArray(new byte[] { (byte) (value >> 8), (byte) value })));
+    }
+
+    private void assertStateUpdateCount(ModbusDataThingHandler handler, String channel, int count) {
+        waitForAssert(() -> {
+            List<State> updates = getStateUpdates(getItemName(new ChannelUID(handler.getThing().getUID(), channel)));
+            assertThat(updates == null ? 0 : updates.size(), is(equalTo(count)));
+        });
+    }
+
+    @Test
+    public void testUnchangedValueWithinUpdateInterval() {
+        CountingTransformation transformation = new CountingTransformation();
+        mockTransformation("COUNT", transformation);
+        ModbusReadRequestBlueprint request = Mockito.mock(ModbusReadRequestBlueprint.class);
+        ModbusDataThingHandler dataHandler = createUnchangedValuesHandler(request, 60_000L, true);
+
+        pollRegister(dataHandler, request, 5);
+        int transformationsPerPoll = transformation.calls.get();
+        assertTrue(transformationsPerPoll > 0);
+        pollRegister(dataHandler, request, 5);
+
+        // the unchanged value is not transformed again, only the last read success channel is updated
+        assertThat(transformation.calls.get(), is(equalTo(transformationsPerPoll)));
+        assertStateUpdateCount(dataHandler, CHANNEL_LAST_READ_SUCCESS, 2);
+        assertSingleStateUpdate(dataHandler, CHANNEL_NUMBER, new DecimalType(5));
+        assertSingleStateUpdate(dataHandler, CHANNEL_STRING, new StringType("5"));
+        assertSingleStateUpdate(dataHandler, CHANNEL_LAST_READ_ERROR, is(nullValue(State.class)));
+        assertThat(dataHandler.getThing().getStatus(), is(equalTo(ThingStatus.ONLINE)));
+    }
+
+    @Test
+    public void testUnchangedValueAfterUpdateIntervalExpired() throws InterruptedException {
+        CountingTransformation transformation = new CountingTransformation();
+        mockTransformation("COUNT", transformation);
+        ModbusReadRequestBlueprint request = Mockito.mock(ModbusReadRequestBlueprint.class);
+        ModbusDataThingHandler dataHandler = createUnchangedValuesHandler(request, 50L, true);
+
+        pollRegister(dataHandler, request, 5);
+        int transformationsPerPoll = transformation.calls.get();
+        Thread.sleep(100);
+        pollRegister(dataHandler, request, 5);
+
+        // the channels are due for an update, so the value is decoded and transformed again
+        assertThat(transformation.calls.get(), is(equalTo(2 * transformationsPerPoll)));
+        assertStateUpdateCount(dataHandler, CHANNEL_LAST_READ_SUCCESS, 2);
+        assertStateUpdateCount(dataHandler, CHANNEL_NUMBER, 2);
+        assertStateUpdateCount(dataHandler, CHANNEL_STRING, 2);
+    }
+
+    @Test
+    public void testUnchangedValueWithChannelLinkedAfterLastUpdate() {
+        CountingTransformation transformation = new CountingTransformation();
+        mockTransformation("COUNT", transformation);
+        ModbusReadRequestBlueprint request = Mockito.mock(ModbusReadRequestBlueprint.class);
+        ModbusDataThingHandler dataHandler = createUnchangedValuesHandler(request, 60_000L, false);
+        linkNewItem(dataHandler, CHANNEL_NUMBER, "Number");
+        linkNewItem(dataHandler, CHANNEL_LAST_READ_SUCCESS, "DateTime");
+
+        pollRegister(dataHandler, request, 5);
+        assertThat(transformation.calls.get(), is(equalTo(1)));
+
+        linkNewItem(dataHandler, CHANNEL_STRING, "String");
+        pollRegister(dataHandler, request, 5);
+
+        // the new channel has not received the value yet, so it is decoded again for both channels
+        assertThat(transformation.calls.get(), is(equalTo(3)));
+        assertSingleStateUpdate(dataHandler, CHANNEL_STRING, new StringType("5"));
+        assertSingleStateUpdate(dataHandler, CHANNEL_NUMBER, new DecimalType(5));
+        assertStateUpdateCount(dataHandler, CHANNEL_LAST_READ_SUCCESS, 2);
+    }
+
+    @Test
+    public void testUnchangedValueAfterReadError() {
+        CountingTransformation transformation = new CountingTransformation();
+        mockTransformation("COUNT", transformation);
+        ModbusReadRequestBlueprint request = Mockito.mock(ModbusReadRequestBlueprint.class);
+        ModbusDataThingHandler dataHandler = createUnchangedValuesHandler(request, 60_000L, true);
+
+        pollRegister(dataHandler, request, 5);
+        int transformationsPerPoll = transformation.calls.get();
+        dataHandler.handleReadError(
+                new AsyncModbusFailure<ModbusReadRequestBlueprint>(request, new Exception("fooerror")));
+        assertThat(dataHandler.getThing().getStatus(), is(equalTo(ThingStatus.OFFLINE)));
+        pollRegister(dataHandler, request, 5);
+
+        // the same raw value after a read error is decoded again
+        assertThat(transformation.calls.get(), is(equalTo(2 * transformationsPerPoll)));
+        assertThat(dataHandler.getThing().getStatus(), is(equalTo(ThingStatus.ONLINE)));
+        assertSingleStateUpdate(dataHandler, CHANNEL_LAST_READ_ERROR, is(notNullValue(State.class)));
+        assertStateUpdateCount(dataHandler, CHANNEL_LAST_READ_SUCCESS, 2);
+        // the decoded value equals the last update, so the channel is not updated again
+        assertSingleStateUpdate(dataHandler, CHANNEL_NUMBER, new DecimalType(5));
+    }
+
     @Test
     public void testWriteRealTransformation() throws InvalidSyntaxException {
         captureModbusWrites();